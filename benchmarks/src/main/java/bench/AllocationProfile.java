@@ -0,0 +1,61 @@
+package bench;
+
+import compiler.Compiler;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import lexical.LexicalAnalysis;
+import lexical.SymbolTable;
+import lexical.TokenType;
+
+// Bytes allocated per thousand tokens while lexing, and while lexing + parsing + checking, after warm-up.
+// Usage: java -cp benchmarks/target/benchmarks.jar bench.AllocationProfile [source code path] [rounds]
+public class AllocationProfile {
+
+    public static void main(String[] args) throws Exception{
+        if(args.length < 1){
+            System.out.println("Usage: java -cp benchmarks/target/benchmarks.jar bench.AllocationProfile [source code path] [rounds]");
+            System.exit(1);
+        }
+
+        String path = args[0];
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long tokens = 0;
+        long lexBytes = 0;
+        long parseBytes = 0;
+
+        for(int round = 0; round < 2 * rounds; round++){
+            long before = threads.getThreadAllocatedBytes(thread);
+            long count = lex(path);
+            long lexed = threads.getThreadAllocatedBytes(thread);
+            parse(path);
+            long parsed = threads.getThreadAllocatedBytes(thread);
+
+            // The first half of the rounds is warm-up.
+            if(round >= rounds){
+                tokens += count;
+                lexBytes += lexed - before;
+                parseBytes += parsed - lexed;
+            }
+        }
+
+        System.out.println("tokens per round:       " + tokens / rounds);
+        System.out.println("lexing bytes/1k tokens: " + lexBytes * 1000 / tokens);
+        System.out.println("full analysis bytes/1k: " + parseBytes * 1000 / tokens);
+    }
+
+    private static long lex(String path) throws Exception{
+        LexicalAnalysis lexical = new LexicalAnalysis(path, new SymbolTable());
+        long count = 0;
+        while(lexical.nextToken().getType() != TokenType.END_OF_FILE) count++;
+        lexical.close();
+        return count + 1;
+    }
+
+    private static void parse(String path) throws Exception{
+        new Compiler().compile(Paths.get(path));
+    }
+}
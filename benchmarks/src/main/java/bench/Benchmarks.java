@@ -0,0 +1,22 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar: the JMH command line, with the GC profiler always on so every result
+// comes with gc.alloc.rate.norm (bytes allocated per operation).
+// Usage: java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regexp]
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception{
+        CommandLineOptions options = new CommandLineOptions(args);
+        if(options.shouldHelp() || options.shouldList() || options.shouldListProfilers() || options.shouldListResultFormats()){
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import syntactic.IncrementalAnalysis;
+
+// Latency of an edit through IncrementalAnalysis, as an editor sends them while someone types: a space typed
+// into the program body and deleted again, at a cursor moving through it a few characters at a time.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IncrementalBenchmark {
+
+    private static final int CURSOR_STEP = 37;
+
+    @Param({Inputs.MEDIUM, Inputs.HUGE})
+    public String size;
+
+    private IncrementalAnalysis analysis;
+    private int body;
+    private int cursor;
+    private boolean typed;
+
+    @Setup
+    public void setup(){
+        byte[] source = Inputs.program(size);
+        analysis = new IncrementalAnalysis(source);
+        if(!analysis.getDiagnostics().isEmpty()) throw new IllegalStateException("Benchmark input does not compile");
+
+        while(source[body] != '{') body++;
+        cursor = ++body;
+    }
+
+    @Benchmark
+    public int edit(){
+        if(typed){
+            typed = false;
+            return analysis.edit(cursor, 1, "").size();
+        }
+
+        cursor += CURSOR_STEP;
+        if(cursor >= analysis.length() - 1) cursor = body;
+        typed = true;
+        return analysis.edit(cursor, 0, " ").size();
+    }
+}
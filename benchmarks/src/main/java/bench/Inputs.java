@@ -0,0 +1,33 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import synthetic.ProgramGenerator;
+
+// Valid programs of a given size for the benchmarks, written by synthetic.ProgramGenerator.
+final class Inputs {
+
+    static final String SMALL = "small";
+    static final String MEDIUM = "medium";
+    static final String HUGE = "huge";
+
+    private static final long SEED = 14;
+    private static final int DEPTH = 8;
+    private static final int IDENTIFIERS = 192;
+
+    private Inputs(){}
+
+    static int statements(String size){
+        switch(size){
+            case SMALL: return 100;
+            case MEDIUM: return 10_000;
+            case HUGE: return 500_000;
+            default: throw new IllegalArgumentException("Unknown input size: " + size);
+        }
+    }
+
+    // Programs of the same size are identical on every run, so results compare release over release.
+    static byte[] program(String size){
+        return new ProgramGenerator(SEED).statements(statements(size)).depth(DEPTH).identifiers(IDENTIFIERS)
+                                         .generate().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,314 @@
+package bench;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lsp.Json;
+import lsp.LanguageServer;
+import synthetic.ProgramGenerator;
+
+// A scripted editor against lsp.LanguageServer, started as a separate process: opens generated documents, then
+// types into them in turn, one character typed or deleted every interval, asking for hovers and declarations
+// now and then. The latency of a change is the time from sending it to the first diagnostics published for it or
+// a later version; the run fails if its p99 is over 50 ms. The first changes warm the server up and are not counted.
+//
+// Usage: java -cp benchmarks/target/benchmarks.jar bench.LanguageServerLoadTest [--documents N] [--statements N]
+//            [--warm-up N] [--edits N] [--interval MILLISECONDS] [--debounce MILLISECONDS]
+public class LanguageServerLoadTest {
+
+    private static final double LIMIT_MILLIS = 50;
+    // Every this many edits, a hover and a declaration request.
+    private static final int REQUEST_EVERY = 8;
+
+    private final Process server;
+    private final InputStream in;
+    private final OutputStream out;
+
+    // Receipt times of diagnostics by document and version, and pending requests by id.
+    private final Map<String, Map<Long, Long>> published = new ConcurrentHashMap<String, Map<Long, Long>>();
+    private final Map<Long, CompletableFuture<Object>> responses = new ConcurrentHashMap<Long, CompletableFuture<Object>>();
+    private long nextId;
+
+    private LanguageServerLoadTest(Process server){
+        this.server = server;
+        this.in = new BufferedInputStream(server.getInputStream());
+        this.out = server.getOutputStream();
+    }
+
+    public static void main(String[] args) throws Exception{
+        int documents = 4;
+        int statements = 9000;
+        int warmUp = 1000;
+        int edits = 2000;
+        long interval = 10;
+        long debounce = LanguageServer.DEFAULT_DEBOUNCE_MILLIS;
+
+        for(int i = 0; i < args.length; i++){
+            String option = args[i];
+            String value = null;
+            int equals = option.indexOf('=');
+            if(option.startsWith("-") && equals > 0){
+                value = option.substring(equals + 1);
+                option = option.substring(0, equals);
+            }
+            if(value == null){
+                if(i + 1 >= args.length) usage();
+                value = args[++i];
+            }
+
+            switch(option){
+                case "--documents": documents = Integer.parseInt(value); break;
+                case "--statements": statements = Integer.parseInt(value); break;
+                case "--warm-up": warmUp = Integer.parseInt(value); break;
+                case "--edits": edits = Integer.parseInt(value); break;
+                case "--interval": interval = Long.parseLong(value); break;
+                case "--debounce": debounce = Long.parseLong(value); break;
+                default: usage();
+            }
+        }
+
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "lsp.LanguageServer",
+                                             "--debounce", String.valueOf(debounce))
+                          .redirectError(ProcessBuilder.Redirect.INHERIT)
+                          .start();
+        LanguageServerLoadTest test = new LanguageServerLoadTest(process);
+        boolean passed = test.run(documents, statements, warmUp, edits, interval);
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static void usage(){
+        System.out.println("Usage: java -cp benchmarks/target/benchmarks.jar bench.LanguageServerLoadTest [--documents N] [--statements N] [--warm-up N] [--edits N] [--interval MILLISECONDS] [--debounce MILLISECONDS]");
+        System.exit(1);
+    }
+
+    private boolean run(int documents, int statements, int warmUp, int edits, long interval) throws Exception{
+        Thread reader = new Thread(this::receive, "responses");
+        reader.setDaemon(true);
+        reader.start();
+
+        request("initialize", Map.of("capabilities", Map.of())).get(10, TimeUnit.SECONDS);
+        notify("initialized", Map.of());
+
+        String[] uris = new String[documents];
+        List<List<StringBuilder>> texts = new ArrayList<List<StringBuilder>>();
+        int lines = 0;
+        for(int d = 0; d < documents; d++){
+            String text = new ProgramGenerator(d).statements(statements).illTyped(0.002).generate();
+            uris[d] = "file:///load/document" + d + ".txt";
+            published.put(uris[d], new ConcurrentHashMap<Long, Long>());
+
+            List<StringBuilder> document = new ArrayList<StringBuilder>();
+            for(String line : text.split("\n", -1)) document.add(new StringBuilder(line));
+            texts.add(document);
+            lines += document.size();
+
+            Map<String, Object> item = new LinkedHashMap<String, Object>();
+            item.put("uri", uris[d]);
+            item.put("languageId", "compiler");
+            item.put("version", 0);
+            item.put("text", text);
+            notify("textDocument/didOpen", Map.of("textDocument", item));
+        }
+        for(String uri : uris) awaitVersion(uri, 0);
+        System.out.println(documents + " documents, " + lines / documents + " lines each");
+
+        // Counted changes as sent: document, version and time.
+        int[] sentDocuments = new int[edits];
+        long[] sentVersions = new long[edits];
+        long[] sentTimes = new long[edits];
+        long[] versions = new long[documents];
+        int[] cursorLines = new int[documents];
+        int[] cursorCharacters = new int[documents];
+        boolean[] typed = new boolean[documents];
+        long seed = 42;
+        List<Long> requestTimes = new ArrayList<Long>();
+
+        long start = System.nanoTime();
+        for(int e = -warmUp; e < edits; e++){
+            long due = start + (e + warmUp) * interval * 1_000_000L;
+            while(System.nanoTime() < due) Thread.sleep(0, 200_000);
+
+            int d = (e + warmUp) % documents;
+            List<StringBuilder> text = texts.get(d);
+            // A new place to type every other edit, past the declarations.
+            if(!typed[d]){
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                int line = text.size() / 4 + (int) ((seed >>> 33) % (text.size() - text.size() / 4));
+                cursorLines[d] = line;
+                cursorCharacters[d] = (int) ((seed >>> 17) % (text.get(line).length() + 1));
+            }
+
+            Map<String, Object> position = position(cursorLines[d], cursorCharacters[d]);
+            Map<String, Object> change = new LinkedHashMap<String, Object>();
+            StringBuilder line = text.get(cursorLines[d]);
+            if(!typed[d]){
+                change.put("range", range(position, position));
+                change.put("text", "x");
+                line.insert(cursorCharacters[d], 'x');
+            }else{
+                change.put("range", range(position, position(cursorLines[d], cursorCharacters[d] + 1)));
+                change.put("text", "");
+                line.deleteCharAt(cursorCharacters[d]);
+            }
+            typed[d] = !typed[d];
+
+            Map<String, Object> identifier = new LinkedHashMap<String, Object>();
+            identifier.put("uri", uris[d]);
+            identifier.put("version", ++versions[d]);
+            if(e >= 0){
+                sentDocuments[e] = d;
+                sentVersions[e] = versions[d];
+                sentTimes[e] = System.nanoTime();
+            }
+            notify("textDocument/didChange", Map.of("textDocument", identifier, "contentChanges", List.of(change)));
+
+            if(e >= 0 && e % REQUEST_EVERY == REQUEST_EVERY - 1){
+                Map<String, Object> params = Map.of("textDocument", Map.of("uri", uris[d]), "position", position);
+                long sent = System.nanoTime();
+                request("textDocument/hover", params).get(10, TimeUnit.SECONDS);
+                request("textDocument/definition", params).get(10, TimeUnit.SECONDS);
+                requestTimes.add(System.nanoTime() - sent);
+            }
+        }
+        for(int d = 0; d < documents; d++) awaitVersion(uris[d], versions[d]);
+
+        request("shutdown", null).get(10, TimeUnit.SECONDS);
+        notify("exit", null);
+        int exit = server.waitFor();
+
+        // Each change waits for the first diagnostics of its version or a later one.
+        long[] latencies = new long[edits];
+        for(int e = 0; e < edits; e++){
+            long first = Long.MAX_VALUE;
+            for(Map.Entry<Long, Long> receipt : published.get(uris[sentDocuments[e]]).entrySet()){
+                if(receipt.getKey() >= sentVersions[e]) first = Math.min(first, receipt.getValue());
+            }
+            latencies[e] = first - sentTimes[e];
+        }
+        Arrays.sort(latencies);
+        long[] requests = requestTimes.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        System.out.println(edits + " changes, one every " + interval + " ms; " + published.values().stream().mapToInt(Map::size).sum()
+                           + " diagnostics published");
+        System.out.println("diagnostics latency ms: " + percentiles(latencies));
+        if(requests.length > 0) System.out.println("hover + definition ms:  " + percentiles(requests));
+        System.out.println("server exit code:       " + exit);
+
+        boolean passed = percentile(latencies, 0.99) / 1e6 <= LIMIT_MILLIS && exit == 0;
+        System.out.println(passed ? "PASS" : "FAIL: p99 over " + (long) LIMIT_MILLIS + " ms");
+        return passed;
+    }
+
+    private void awaitVersion(String uri, long version) throws InterruptedException{
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while(!published.get(uri).containsKey(version)){
+            if(System.nanoTime() > deadline) throw new IllegalStateException("No diagnostics for version " + version + " of " + uri);
+            Thread.sleep(1);
+        }
+    }
+
+    private static String percentiles(long[] sorted){
+        return String.format("p50 %.2f  p90 %.2f  p99 %.2f  max %.2f", percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.9) / 1e6,
+                             percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p){
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static Map<String, Object> position(int line, int character){
+        Map<String, Object> position = new LinkedHashMap<String, Object>();
+        position.put("line", line);
+        position.put("character", character);
+        return position;
+    }
+
+    private static Map<String, Object> range(Map<String, Object> start, Map<String, Object> end){
+        Map<String, Object> range = new LinkedHashMap<String, Object>();
+        range.put("start", start);
+        range.put("end", end);
+        return range;
+    }
+
+    private synchronized CompletableFuture<Object> request(String method, Object params) throws IOException{
+        long id = nextId++;
+        CompletableFuture<Object> response = new CompletableFuture<Object>();
+        responses.put(id, response);
+
+        Map<String, Object> message = new LinkedHashMap<String, Object>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("method", method);
+        message.put("params", params);
+        send(message);
+        return response;
+    }
+
+    private void notify(String method, Object params) throws IOException{
+        Map<String, Object> message = new LinkedHashMap<String, Object>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", method);
+        message.put("params", params);
+        send(message);
+    }
+
+    private synchronized void send(Map<String, Object> message) throws IOException{
+        byte[] content = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.flush();
+    }
+
+    // Runs on its own thread until the server closes its output.
+    private void receive(){
+        try{
+            while(true){
+                int length = -1;
+                String header;
+                while(!(header = readHeader()).isEmpty()){
+                    if(header.startsWith("Content-Length:")) length = Integer.parseInt(header.substring(15).trim());
+                }
+                byte[] content = in.readNBytes(length);
+                if(content.length < length) return;
+                long received = System.nanoTime();
+
+                Map<?, ?> message = (Map<?, ?>) Json.parse(new String(content, StandardCharsets.UTF_8));
+                if("textDocument/publishDiagnostics".equals(message.get("method"))){
+                    Map<?, ?> params = (Map<?, ?>) message.get("params");
+                    Object version = params.get("version");
+                    Map<Long, Long> receipts = published.get((String) params.get("uri"));
+                    if(receipts != null && version != null) receipts.putIfAbsent((Long) version, received);
+                }else if(message.get("id") instanceof Long){
+                    CompletableFuture<Object> response = responses.remove((Long) message.get("id"));
+                    if(response == null) continue;
+                    if(message.containsKey("error")) response.completeExceptionally(new IllegalStateException(String.valueOf(message.get("error"))));
+                    else response.complete(message.get("result"));
+                }
+            }
+        }catch(IOException | RuntimeException e){
+            // The server is gone: whoever waits on it times out.
+        }
+    }
+
+    private String readHeader() throws IOException{
+        StringBuilder header = new StringBuilder();
+        while(true){
+            int c = in.read();
+            if(c < 0) throw new IOException("End of the server's output");
+            if(c == '\n') break;
+            if(c != '\r') header.append((char) c);
+        }
+        return header.toString();
+    }
+}
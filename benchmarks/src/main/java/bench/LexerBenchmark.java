@@ -0,0 +1,97 @@
+package bench;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import lexical.SymbolTable;
+import lexical.Token;
+import lexical.TokenFile;
+import lexical.TokenType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Tokens per second of LexicalAnalysis.nextToken() over a whole program, symbol interning included, and of
+// reading the same tokens back from a TokenFile instead.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LexerBenchmark {
+
+    @Param({Inputs.SMALL, Inputs.MEDIUM, Inputs.HUGE})
+    public String size;
+
+    private byte[] source;
+    private Path tokenPath;
+    private TokenFile tokens;
+
+    // Reported as tokens/s next to the programs/s of the benchmark itself.
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Tokens {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset(){
+            tokens = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException{
+        source = Inputs.program(size);
+        tokenPath = Files.createTempFile("tokens", ".bin");
+        TokenFile.write(SourceBuffer.wrap(source), tokenPath);
+        tokens = TokenFile.open(tokenPath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException{
+        Files.deleteIfExists(tokenPath);
+    }
+
+    @Benchmark
+    public void nextToken(Tokens counter, Blackhole blackhole) throws EOFException{
+        LexicalAnalysis lexical = new LexicalAnalysis(SourceBuffer.wrap(source), new SymbolTable());
+        long count = 0;
+        Token token;
+        do{
+            token = lexical.nextToken();
+            blackhole.consume(token);
+            count++;
+        }while(token.getType() != TokenType.END_OF_FILE);
+        counter.tokens += count;
+    }
+
+    @Benchmark
+    public void tokenFile(Tokens counter, Blackhole blackhole) throws EOFException{
+        TokenFile.Reader reader = tokens.reader(SourceBuffer.wrap(source), new SymbolTable());
+        long count = 0;
+        Token token;
+        do{
+            token = reader.nextToken();
+            blackhole.consume(token);
+            count++;
+        }while(token.getType() != TokenType.END_OF_FILE);
+        counter.tokens += count;
+    }
+}
@@ -0,0 +1,104 @@
+package bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import lexical.LexicalAnalysis;
+import lexical.ParallelLexer;
+import lexical.PipelinedLexer;
+import lexical.SourceBuffer;
+import lexical.SymbolTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import syntactic.SyntacticAnalysis;
+
+// Statements per second through lexing, parsing and type checking; analyze() is start() without the printing.
+// The ast variant also builds the AST, as code generation and the interpreter need; the pipelined variant
+// lexes on a second thread and the parallel variant in 64 KB chunks on the common pool, both only paying off
+// with spare cores.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+    @Param({Inputs.SMALL, Inputs.MEDIUM, Inputs.HUGE})
+    public String size;
+
+    private byte[] source;
+    private int statements;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Statements {
+        public long statements;
+
+        @Setup(Level.Iteration)
+        public void reset(){
+            statements = 0;
+        }
+    }
+
+    @Setup
+    public void setup(){
+        source = Inputs.program(size);
+        statements = Inputs.statements(size);
+        if(!analyzer(false).analyze()) throw new IllegalStateException("Benchmark input does not compile");
+    }
+
+    private SyntacticAnalysis analyzer(boolean buildAst){
+        SymbolTable st = new SymbolTable();
+        SyntacticAnalysis analysis = new SyntacticAnalysis(new LexicalAnalysis(SourceBuffer.wrap(source), st), st,
+                                                           SyntacticAnalysis.DEFAULT_MAX_ERRORS);
+        if(buildAst) analysis.buildAst();
+        return analysis;
+    }
+
+    @Benchmark
+    public boolean analyze(Statements counter){
+        counter.statements += statements;
+        return analyzer(false).analyze();
+    }
+
+    @Benchmark
+    public boolean analyzeWithAst(Statements counter){
+        counter.statements += statements;
+        return analyzer(true).analyze();
+    }
+
+    @Benchmark
+    public boolean analyzePipelined(Statements counter){
+        counter.statements += statements;
+        SymbolTable st = new SymbolTable();
+        PipelinedLexer lexer = new PipelinedLexer(SourceBuffer.wrap(source), st);
+        try{
+            return new SyntacticAnalysis(lexer, st, SyntacticAnalysis.DEFAULT_MAX_ERRORS).analyze();
+        }finally{
+            lexer.close();
+        }
+    }
+
+    @Benchmark
+    public boolean analyzeParallel(Statements counter){
+        counter.statements += statements;
+        SymbolTable st = new SymbolTable();
+        ParallelLexer lexer = new ParallelLexer(SourceBuffer.wrap(source), st, ForkJoinPool.commonPool(), 64 << 10);
+        try{
+            return new SyntacticAnalysis(lexer, st, SyntacticAnalysis.DEFAULT_MAX_ERRORS).analyze();
+        }finally{
+            lexer.close();
+        }
+    }
+}
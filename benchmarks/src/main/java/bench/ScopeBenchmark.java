@@ -0,0 +1,124 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lexical.SymbolTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import semantic.Class;
+import semantic.Type;
+
+// Block scopes of SymbolTable, in nanoseconds per operation:
+// - nest: entering DEPTH blocks one inside the other, each declaring a name that shadows the one of the block
+//   around it and looking up a global, then leaving them all;
+// - shadow: declaring SHADOWED names in a block, shadowing as many globals, looking each up and leaving the block;
+// - lookupAtDepth: looking up globals from inside DEPTH blocks; lookupAtDepthMapStack does the same with a
+//   stack of one map per block searched from the innermost out, as a naive scoped table would.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScopeBenchmark {
+
+    private static final int DEPTH = 10_000;
+    private static final int SHADOWED = 100_000;
+    private static final int LOOKUPS = 1024;
+    // Names declared at every depth of nest, each shadowing itself DEPTH / NESTED times.
+    private static final int NESTED = 16;
+
+    private SymbolTable st;
+    private int[] globals;
+    private int[] locals;
+
+    // Already DEPTH blocks deep, for lookupAtDepth.
+    private SymbolTable deep;
+    private List<Map<Integer, Type>> mapStack;
+
+    @Setup
+    public void setup(){
+        st = new SymbolTable();
+        globals = new int[SHADOWED];
+        for(int i = 0; i < SHADOWED; i++){
+            globals[i] = st.intern("global" + i);
+            st.setType(globals[i], Type.INT);
+            st.setClass(globals[i], Class.VARIABLE);
+        }
+        locals = new int[NESTED];
+        for(int i = 0; i < NESTED; i++) locals[i] = st.intern("local" + i);
+
+        deep = new SymbolTable();
+        mapStack = new ArrayList<Map<Integer, Type>>();
+        mapStack.add(new HashMap<Integer, Type>());
+        // Interned first, so the globals are ids 0 to LOOKUPS - 1.
+        for(int i = 0; i < LOOKUPS; i++){
+            int id = deep.intern("global" + i);
+            deep.setType(id, Type.INT);
+            mapStack.get(0).put(id, Type.INT);
+        }
+        int local = deep.intern("local");
+        for(int d = 1; d <= DEPTH; d++){
+            deep.enterScope();
+            deep.declare(local);
+            deep.setType(local, Type.FLOAT);
+
+            Map<Integer, Type> block = new HashMap<Integer, Type>();
+            block.put(local, Type.FLOAT);
+            mapStack.add(block);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DEPTH)
+    public void nest(Blackhole blackhole){
+        for(int d = 0; d < DEPTH; d++){
+            st.enterScope();
+            st.declare(locals[d % NESTED]);
+            st.setType(locals[d % NESTED], (d & 1) == 0 ? Type.INT : Type.FLOAT);
+            blackhole.consume(st.typeOf(globals[d]));
+        }
+        for(int d = 0; d < DEPTH; d++) st.exitScope();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SHADOWED)
+    public void shadow(Blackhole blackhole){
+        st.enterScope();
+        for(int i = 0; i < SHADOWED; i++){
+            st.declare(globals[i]);
+            st.setType(globals[i], Type.STRING);
+        }
+        for(int i = 0; i < SHADOWED; i++) blackhole.consume(st.typeOf(globals[i]));
+        st.exitScope();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookupAtDepth(Blackhole blackhole){
+        for(int i = 0; i < LOOKUPS; i++) blackhole.consume(deep.typeOf(i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void lookupAtDepthMapStack(Blackhole blackhole){
+        for(int i = 0; i < LOOKUPS; i++){
+            Type type = null;
+            for(int d = mapStack.size() - 1; d >= 0 && type == null; d--) type = mapStack.get(d).get(i);
+            blackhole.consume(type);
+        }
+    }
+}
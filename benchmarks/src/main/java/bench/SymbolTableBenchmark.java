@@ -0,0 +1,86 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import lexical.SourceBuffer;
+import lexical.SymbolTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import semantic.Type;
+
+// Cost of one identifier lookup in a table holding symbols entries: from the source range as the lexer
+// does it, from a String, and of the column reads the type checker does per use.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SymbolTableBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"16", "1024", "65536"})
+    public int symbols;
+
+    private SymbolTable st;
+    private SourceBuffer source;
+    private int[] starts;
+    private int[] lengths;
+    private String[] names;
+    private int[] ids;
+
+    @Setup
+    public void setup(){
+        st = new SymbolTable();
+        String[] all = new String[symbols];
+        for(int i = 0; i < symbols; i++){
+            all[i] = "identifier" + Integer.toString(i * 40503, 36);
+            st.setType(st.intern(all[i]), Type.INT);
+        }
+
+        // Lookups spread over the whole table, in a fixed order.
+        StringBuilder text = new StringBuilder();
+        starts = new int[LOOKUPS];
+        lengths = new int[LOOKUPS];
+        names = new String[LOOKUPS];
+        ids = new int[LOOKUPS];
+        for(int i = 0; i < LOOKUPS; i++){
+            String name = all[(int) ((i * 2654435761L) % symbols)];
+            starts[i] = text.length();
+            lengths[i] = name.length();
+            names[i] = name;
+            ids[i] = st.intern(name);
+            text.append(name).append(' ');
+        }
+        source = SourceBuffer.of(text);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void internFromSource(Blackhole blackhole){
+        for(int i = 0; i < LOOKUPS; i++) blackhole.consume(st.intern(source, starts[i], lengths[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void internString(Blackhole blackhole){
+        for(int i = 0; i < LOOKUPS; i++) blackhole.consume(st.intern(names[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void typeOf(Blackhole blackhole){
+        for(int i = 0; i < LOOKUPS; i++) blackhole.consume(st.typeOf(ids[i]));
+    }
+}
@@ -0,0 +1,452 @@
+package codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import lexical.SymbolTable;
+import lexical.TokenType;
+import semantic.Type;
+import syntactic.Ast;
+import syntactic.NodeKind;
+
+// Translates a checked program into a class file with a single static main(String[]).
+//
+// Variables are locals of main, in the slot given by their SymbolTable offset (slot 0 holds args), and start as
+// 0, 0.0 or "". read parses the next whitespace-separated word of System.in, write prints with println.
+// Booleans are ints 0/1; "/" converts int operands to float; "+" on strings is String.concat and "=="/"!="
+// on strings compare contents. Conditions are compiled to compare-and-branch instructions.
+public final class BytecodeGenerator {
+
+    // Java 5 class files need no StackMapTable.
+    private static final int MAJOR_VERSION = 49;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final String STRING = "java/lang/String";
+    private static final String SCANNER = "java/util/Scanner";
+
+    private final Ast ast;
+    private final SymbolTable st;
+    private final ConstantPool pool = new ConstantPool();
+    private Code code;
+    private int scannerSlot;
+
+    private BytecodeGenerator(Ast ast, SymbolTable st){
+        this.ast = ast;
+        this.st = st;
+    }
+
+    // className is an internal name such as "Prog" or "codegen/Prog"; sourceFile may be null.
+    public static byte[] generate(Ast ast, SymbolTable st, String className, String sourceFile){
+        if(ast == null || ast.root() == Ast.NONE) throw new CodeGenerationException("No program to generate");
+        return new BytecodeGenerator(ast, st).classFile(className, sourceFile);
+    }
+
+    // The name of the program's class identifier.
+    public static String programName(Ast ast, SymbolTable st){
+        return st.getName(ast.symbol(ast.root()));
+    }
+
+    private byte[] classFile(String className, String sourceFile){
+        byte[] main = main();
+
+        int thisClass = pool.classRef(className);
+        int superClass = pool.classRef("java/lang/Object");
+        int mainName = pool.utf8("main");
+        int mainDescriptor = pool.utf8("([Ljava/lang/String;)V");
+        int codeName = pool.utf8("Code");
+        int sourceFileName = sourceFile == null ? 0 : pool.utf8("SourceFile");
+        int sourceFileValue = sourceFile == null ? 0 : pool.utf8(sourceFile);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try{
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            pool.writeTo(out);
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+
+            out.writeShort(1);
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(mainName);
+            out.writeShort(mainDescriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(main.length);
+            out.write(main);
+
+            if(sourceFile == null){
+                out.writeShort(0);
+            }else{
+                out.writeShort(1);
+                out.writeShort(sourceFileName);
+                out.writeInt(2);
+                out.writeShort(sourceFileValue);
+            }
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] main(){
+        int root = ast.root();
+        int variables = 0;
+        boolean reads = false;
+
+        for(int i = 0; i < ast.size(); i++){
+            if(ast.kind(i) == NodeKind.VARIABLE) variables++;
+            else if(ast.kind(i) == NodeKind.READ) reads = true;
+        }
+
+        scannerSlot = 1 + variables;
+        code = new Code(pool, scannerSlot);
+
+        for(int decl = ast.firstChild(root); decl != Ast.NONE; decl = ast.nextSibling(decl)){
+            if(ast.kind(decl) != NodeKind.DECL) continue;
+
+            code.line(ast.line(decl));
+            for(int variable = ast.firstChild(decl); variable != Ast.NONE; variable = ast.nextSibling(variable)){
+                Type type = ast.type(variable);
+                if(type == Type.INT) code.iconst(0);
+                else if(type == Type.FLOAT) code.fconst(0.0f);
+                else code.sconst("");
+                store(ast.symbol(variable), type);
+            }
+        }
+
+        if(reads){
+            code.reference(Code.NEW, pool.classRef(SCANNER), 1);
+            code.op(Code.DUP, 1);
+            code.reference(Code.GETSTATIC, pool.field("java/lang/System", "in", "Ljava/io/InputStream;"), 1);
+            code.reference(Code.INVOKESPECIAL, pool.method(SCANNER, "<init>", "(Ljava/io/InputStream;)V"), -2);
+            code.local(Code.ASTORE, scannerSlot);
+        }
+
+        for(int child = ast.firstChild(root); child != Ast.NONE; child = ast.nextSibling(child)){
+            if(ast.kind(child) == NodeKind.STMT_LIST) statements(child);
+        }
+        code.op(Code.RETURN, 0);
+
+        return code.attribute();
+    }
+
+    private int slot(int symbol){
+        return 1 + st.offsetOf(symbol);
+    }
+
+    private void load(int symbol, Type type){
+        code.local(type == Type.INT ? Code.ILOAD : type == Type.FLOAT ? Code.FLOAD : Code.ALOAD, slot(symbol));
+    }
+
+    private void store(int symbol, Type type){
+        code.local(type == Type.INT ? Code.ISTORE : type == Type.FLOAT ? Code.FSTORE : Code.ASTORE, slot(symbol));
+    }
+
+    // Statements, expressions and conditions nest as deep as the parser allows, which is bounded by the heap and
+    // not by the thread stack, so they are lowered from an explicit stack of tasks instead of by recursion. A task
+    // is an action with a node, a label and an int; the tasks of a node are pushed last to first.
+    private static final int STATEMENTS = 0;  // node is a statement or NONE, followed by its siblings
+    private static final int EXPRESSION = 1;
+    private static final int BRANCH = 2;      // jump to label when node evaluates to value != 0
+    private static final int STORE = 3;       // the value of ASSIGN node into its variable
+    private static final int PRINT = 4;       // println of WRITE node's value
+    private static final int UNARY = 5;
+    private static final int BINARY = 6;
+    private static final int CONVERT = 7;     // I2F when node is an int
+    private static final int COMPARE = 8;     // jump to label on relation value of node's operands
+    private static final int JUMP_IF = 9;     // jump to label when the value on the stack is value != 0
+    private static final int LINE = 10;       // value
+    private static final int ICONST = 11;     // value
+    private static final int SET_STACK = 12;  // value
+    private static final int GOTO = 13;       // label
+    private static final int PLACE = 14;      // label
+
+    private int[] actions = new int[64];
+    private int[] nodes = new int[64];
+    private int[] values = new int[64];
+    private Label[] labels = new Label[64];
+    private int tasks;
+
+    private void push(int action, int node, Label label, int value){
+        if(tasks == actions.length){
+            actions = Arrays.copyOf(actions, tasks * 2);
+            nodes = Arrays.copyOf(nodes, tasks * 2);
+            values = Arrays.copyOf(values, tasks * 2);
+            labels = Arrays.copyOf(labels, tasks * 2);
+        }
+        actions[tasks] = action;
+        nodes[tasks] = node;
+        labels[tasks] = label;
+        values[tasks] = value;
+        tasks++;
+    }
+
+    private void statements(int list){
+        push(STATEMENTS, ast.firstChild(list), null, 0);
+        run();
+    }
+
+    private void run(){
+        while(tasks > 0){
+            tasks--;
+            int node = nodes[tasks];
+            Label label = labels[tasks];
+            int value = values[tasks];
+            labels[tasks] = null;
+
+            switch(actions[tasks]){
+                case STATEMENTS:
+                    if(node == Ast.NONE) break;
+                    push(STATEMENTS, ast.nextSibling(node), null, 0);
+                    statement(node);
+                break;
+                case EXPRESSION: expression(node); break;
+                case BRANCH: branch(node, label, value != 0); break;
+                case STORE: store(ast.symbol(node), st.typeOf(ast.symbol(node))); break;
+                case PRINT:{
+                    Type type = ast.type(ast.firstChild(node));
+                    String descriptor = type == Type.INT ? "(I)V" : type == Type.FLOAT ? "(F)V" : type == Type.BOOLEAN ? "(Z)V" : "(Ljava/lang/String;)V";
+                    code.reference(Code.INVOKEVIRTUAL, pool.method("java/io/PrintStream", "println", descriptor), -2);
+                }
+                break;
+                case UNARY:
+                    if(ast.operator(node) == TokenType.NOT){
+                        code.iconst(1);
+                        code.op(Code.IXOR, -1);
+                    }else{
+                        code.op(ast.type(ast.firstChild(node)) == Type.FLOAT ? Code.FNEG : Code.INEG, 0);
+                    }
+                break;
+                case BINARY: binary(node); break;
+                case CONVERT: if(ast.type(node) == Type.INT) code.op(Code.I2F, 0); break;
+                case COMPARE: compare(node, label, value); break;
+                case JUMP_IF: code.jump(value != 0 ? Code.IFNE : Code.IFEQ, label); break;
+                case LINE: code.line(value); break;
+                case ICONST: code.iconst(value); break;
+                case SET_STACK: code.setStack(value); break;
+                case GOTO: code.jump(Code.GOTO, label); break;
+                case PLACE: code.place(label); break;
+                default: throw new IllegalStateException("Bad task " + actions[tasks]);
+            }
+        }
+    }
+
+    private void statement(int node){
+        code.line(ast.line(node));
+        int first = ast.firstChild(node);
+
+        switch(ast.kind(node)){
+            case ASSIGN:
+                push(STORE, node, null, 0);
+                push(EXPRESSION, first, null, 0);
+            break;
+            case IF:{
+                int then = ast.nextSibling(first);
+                int otherwise = ast.nextSibling(then);
+                Label skip = new Label();
+
+                if(otherwise == Ast.NONE){
+                    push(PLACE, Ast.NONE, skip, 0);
+                }else{
+                    Label end = new Label();
+                    push(PLACE, Ast.NONE, end, 0);
+                    push(STATEMENTS, ast.firstChild(otherwise), null, 0);
+                    push(PLACE, Ast.NONE, skip, 0);
+                    push(GOTO, Ast.NONE, end, 0);
+                }
+                push(STATEMENTS, ast.firstChild(then), null, 0);
+                push(BRANCH, first, skip, 0);
+            }
+            break;
+            case DO:{
+                Label top = new Label();
+                code.place(top);
+                int condition = ast.nextSibling(first);
+                push(BRANCH, condition, top, 1);
+                push(LINE, Ast.NONE, null, ast.line(condition));
+                push(STATEMENTS, ast.firstChild(first), null, 0);
+            }
+            break;
+            case READ:{
+                Type type = st.typeOf(ast.symbol(node));
+                code.local(Code.ALOAD, scannerSlot);
+                code.reference(Code.INVOKEVIRTUAL, pool.method(SCANNER, "next", "()Ljava/lang/String;"), 0);
+                if(type == Type.INT) code.reference(Code.INVOKESTATIC, pool.method("java/lang/Integer", "parseInt", "(Ljava/lang/String;)I"), 0);
+                if(type == Type.FLOAT) code.reference(Code.INVOKESTATIC, pool.method("java/lang/Float", "parseFloat", "(Ljava/lang/String;)F"), 0);
+                store(ast.symbol(node), type);
+            }
+            break;
+            case STMT_LIST:
+                push(STATEMENTS, first, null, 0);
+            break;
+            case WRITE:
+                code.reference(Code.GETSTATIC, pool.field("java/lang/System", "out", "Ljava/io/PrintStream;"), 1);
+                push(PRINT, node, null, 0);
+                push(EXPRESSION, first, null, 0);
+            break;
+            default:
+                throw new CodeGenerationException("Unexpected " + ast.kind(node) + " at line " + ast.line(node));
+        }
+    }
+
+    private void expression(int node){
+        int first = ast.firstChild(node);
+
+        switch(ast.kind(node)){
+            case INT_CONST: code.iconst(ast.intValue(node)); return;
+            case REAL_CONST: code.fconst(ast.floatValue(node)); return;
+            case LITERAL: code.sconst(ast.literal(node)); return;
+            case BOOL_CONST: code.iconst(ast.value(node)); return;
+            case IDENT: load(ast.symbol(node), ast.type(node)); return;
+            case UNARY:
+                push(UNARY, node, null, 0);
+                push(EXPRESSION, first, null, 0);
+                return;
+            case BINARY:
+                break;
+            default:
+                throw new CodeGenerationException("Unexpected " + ast.kind(node) + " at line " + ast.line(node));
+        }
+
+        int second = ast.nextSibling(first);
+        switch(ast.operator(node)){
+            case ADD:
+            case SUB:
+            case MUL:
+            case AND:
+            case OR:
+                push(BINARY, node, null, 0);
+                push(EXPRESSION, second, null, 0);
+                push(EXPRESSION, first, null, 0);
+            break;
+            case DIV:
+                push(BINARY, node, null, 0);
+                push(EXPRESSION, second, null, 0);
+                push(CONVERT, first, null, 0);
+                push(EXPRESSION, first, null, 0);
+            break;
+            default:{
+                // Relational operators as values: 1 when the comparison holds.
+                Label no = new Label();
+                Label end = new Label();
+                push(PLACE, Ast.NONE, end, 0);
+                push(ICONST, Ast.NONE, null, 0);
+                push(SET_STACK, Ast.NONE, null, code.stack());
+                push(PLACE, Ast.NONE, no, 0);
+                push(GOTO, Ast.NONE, end, 0);
+                push(ICONST, Ast.NONE, null, 1);
+                push(BRANCH, node, no, 0);
+            }
+        }
+    }
+
+    // The operator of node, once both operands are on the stack.
+    private void binary(int node){
+        int left = ast.firstChild(node);
+        Type type = ast.type(left);
+
+        switch(ast.operator(node)){
+            case ADD:
+                if(type == Type.STRING) code.reference(Code.INVOKEVIRTUAL, pool.method(STRING, "concat", "(Ljava/lang/String;)Ljava/lang/String;"), -1);
+                else code.op(type == Type.FLOAT ? Code.FADD : Code.IADD, -1);
+            break;
+            case SUB: code.op(type == Type.FLOAT ? Code.FSUB : Code.ISUB, -1); break;
+            case MUL: code.op(type == Type.FLOAT ? Code.FMUL : Code.IMUL, -1); break;
+            case DIV:
+                if(ast.type(ast.nextSibling(left)) == Type.INT) code.op(Code.I2F, 0);
+                code.op(Code.FDIV, -1);
+            break;
+            case AND: code.op(Code.IAND, -1); break;
+            case OR: code.op(Code.IOR, -1); break;
+            default:
+                throw new CodeGenerationException("Unexpected " + ast.operator(node) + " at line " + ast.line(node));
+        }
+    }
+
+    // Relations in the order of IFEQ..IFLE and IF_ICMPEQ..IF_ICMPLE; index ^ 1 is the negated relation.
+    private static int relation(TokenType operator){
+        switch(operator){
+            case EQUALS: return 0;
+            case NOT_EQUALS: return 1;
+            case LOWER: return 2;
+            case GREATER_EQUAL: return 3;
+            case GREATER: return 4;
+            case LOWER_EQUAL: return 5;
+            default: return -1;
+        }
+    }
+
+    // Jumps to target when the boolean expression node evaluates to jumpIf, falls through otherwise.
+    private void branch(int node, Label target, boolean jumpIf){
+        int first = ast.firstChild(node);
+
+        if(ast.kind(node) == NodeKind.UNARY && ast.operator(node) == TokenType.NOT){
+            push(BRANCH, first, target, jumpIf ? 0 : 1);
+            return;
+        }
+
+        if(ast.kind(node) == NodeKind.BOOL_CONST){
+            if(ast.booleanValue(node) == jumpIf) code.jump(Code.GOTO, target);
+            return;
+        }
+
+        TokenType operator = ast.kind(node) == NodeKind.BINARY ? ast.operator(node) : null;
+        int relation = operator == null ? -1 : relation(operator);
+
+        if(operator == TokenType.AND || operator == TokenType.OR){
+            int second = ast.nextSibling(first);
+            // Short-circuit: jumpIf on AND is the same as !jumpIf on OR with negated operands.
+            boolean shortCircuit = (operator == TokenType.AND) == jumpIf;
+            if(shortCircuit){
+                Label skip = new Label();
+                push(PLACE, Ast.NONE, skip, 0);
+                push(BRANCH, second, target, jumpIf ? 1 : 0);
+                push(BRANCH, first, skip, jumpIf ? 0 : 1);
+            }else{
+                push(BRANCH, second, target, jumpIf ? 1 : 0);
+                push(BRANCH, first, target, jumpIf ? 1 : 0);
+            }
+            return;
+        }
+
+        if(relation < 0){
+            push(JUMP_IF, Ast.NONE, target, jumpIf ? 1 : 0);
+            push(EXPRESSION, node, null, 0);
+            return;
+        }
+        if(!jumpIf) relation ^= 1;
+
+        push(COMPARE, node, target, relation);
+        push(EXPRESSION, ast.nextSibling(first), null, 0);
+        push(EXPRESSION, first, null, 0);
+    }
+
+    // Jumps to target when relation holds between the operands of node, which are on the stack.
+    private void compare(int node, Label target, int relation){
+        Type type = ast.type(ast.firstChild(node));
+        TokenType operator = ast.operator(node);
+
+        if(type == Type.STRING){
+            code.reference(Code.INVOKEVIRTUAL, pool.method(STRING, "equals", "(Ljava/lang/Object;)Z"), -1);
+            code.jump(relation == 0 ? Code.IFNE : Code.IFEQ, target);
+        }else if(type == Type.FLOAT){
+            // fcmpg makes NaN greater and fcmpl makes it lower, so every comparison with NaN is false.
+            boolean lower = operator == TokenType.LOWER || operator == TokenType.LOWER_EQUAL;
+            code.op(lower ? Code.FCMPG : Code.FCMPL, -1);
+            code.jump(Code.IFEQ + relation, target);
+        }else{
+            code.jump(Code.IF_ICMPEQ + relation, target);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Bytecode of one method. Tracks the operand stack depth to compute max_stack, and records line numbers.
+// Class files of version 49 need no StackMapTable, so branches only have to be patched.
+final class Code {
+
+    static final int ICONST_0 = 3;
+    static final int ICONST_1 = 4;
+    static final int FCONST_0 = 11;
+    static final int BIPUSH = 16;
+    static final int SIPUSH = 17;
+    static final int LDC = 18;
+    static final int LDC_W = 19;
+    static final int ILOAD = 21;
+    static final int FLOAD = 23;
+    static final int ALOAD = 25;
+    static final int ISTORE = 54;
+    static final int FSTORE = 56;
+    static final int ASTORE = 58;
+    static final int DUP = 89;
+    static final int IADD = 96;
+    static final int FADD = 98;
+    static final int ISUB = 100;
+    static final int FSUB = 102;
+    static final int IMUL = 104;
+    static final int FMUL = 106;
+    static final int FDIV = 110;
+    static final int INEG = 116;
+    static final int FNEG = 118;
+    static final int IAND = 126;
+    static final int IOR = 128;
+    static final int IXOR = 130;
+    static final int I2F = 134;
+    static final int FCMPL = 149;
+    static final int FCMPG = 150;
+    static final int IFEQ = 153;
+    static final int IFNE = 154;
+    static final int IFLT = 155;
+    static final int IFGE = 156;
+    static final int IFGT = 157;
+    static final int IFLE = 158;
+    static final int IF_ICMPEQ = 159;
+    static final int IF_ICMPNE = 160;
+    static final int IF_ICMPLT = 161;
+    static final int IF_ICMPGE = 162;
+    static final int IF_ICMPGT = 163;
+    static final int IF_ICMPLE = 164;
+    static final int GOTO = 167;
+    static final int RETURN = 177;
+    static final int GETSTATIC = 178;
+    static final int INVOKEVIRTUAL = 182;
+    static final int INVOKESPECIAL = 183;
+    static final int INVOKESTATIC = 184;
+    static final int NEW = 187;
+    static final int WIDE = 196;
+
+    private static final int MAX_CODE = 0xFFFF;
+
+    private final ConstantPool pool;
+
+    private byte[] code = new byte[256];
+    private int length;
+
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+
+    private int[] lines = new int[32];
+    private int lineCount;
+
+    Code(ConstantPool pool, int maxLocals){
+        this.pool = pool;
+        this.maxLocals = maxLocals;
+    }
+
+    int position(){
+        return length;
+    }
+
+    // Stack depth at the current position; set explicitly where control only arrives by a jump.
+    int stack(){
+        return stack;
+    }
+
+    void setStack(int depth){
+        stack = depth;
+    }
+
+    private void adjust(int delta){
+        stack += delta;
+        if(stack > maxStack) maxStack = stack;
+    }
+
+    private void u1(int value){
+        if(length == code.length) code = Arrays.copyOf(code, code.length * 2);
+        code[length++] = (byte) value;
+    }
+
+    private void u2(int value){
+        u1(value >> 8);
+        u1(value);
+    }
+
+    // Instruction without operands; delta is its effect on the stack depth.
+    void op(int opcode, int delta){
+        u1(opcode);
+        adjust(delta);
+    }
+
+    void iconst(int value){
+        if(value >= -1 && value <= 5){
+            op(ICONST_0 + value, 1);
+        }else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE){
+            u1(BIPUSH);
+            u1(value);
+            adjust(1);
+        }else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE){
+            u1(SIPUSH);
+            u2(value);
+            adjust(1);
+        }else{
+            ldc(pool.integer(value));
+        }
+    }
+
+    void fconst(float value){
+        if(value == 0.0f && Float.floatToRawIntBits(value) == 0) op(FCONST_0, 1);
+        else if(value == 1.0f) op(FCONST_0 + 1, 1);
+        else if(value == 2.0f) op(FCONST_0 + 2, 1);
+        else ldc(pool.floating(value));
+    }
+
+    void sconst(String value){
+        ldc(pool.string(value));
+    }
+
+    private void ldc(int index){
+        if(index <= 0xFF){
+            u1(LDC);
+            u1(index);
+        }else{
+            u1(LDC_W);
+            u2(index);
+        }
+        adjust(1);
+    }
+
+    void local(int opcode, int slot){
+        if(slot >= maxLocals) maxLocals = slot + 1;
+
+        if(slot > 0xFF){
+            u1(WIDE);
+            u1(opcode);
+            u2(slot);
+        }else{
+            u1(opcode);
+            u1(slot);
+        }
+        adjust(opcode >= ISTORE ? -1 : 1);
+    }
+
+    // Field or method access, class instantiation: a constant pool operand.
+    void reference(int opcode, int index, int delta){
+        u1(opcode);
+        u2(index);
+        adjust(delta);
+    }
+
+    void jump(int opcode, Label target){
+        int instruction = length;
+        u1(opcode);
+        if(target.position >= 0){
+            u2(offset(instruction, target.position));
+        }else{
+            target.addJump(instruction, length);
+            u2(0);
+        }
+
+        if(opcode == GOTO) return;
+        adjust(opcode >= IF_ICMPEQ ? -2 : -1);
+    }
+
+    void place(Label label){
+        label.position = length;
+        for(int i = 0; i < label.jumpCount; i++){
+            int operand = label.jumps[i * 2 + 1];
+            int offset = offset(label.jumps[i * 2], length);
+            code[operand] = (byte) (offset >> 8);
+            code[operand + 1] = (byte) offset;
+        }
+    }
+
+    private static int offset(int from, int to){
+        int offset = to - from;
+        if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) throw new CodeGenerationException("Branch too far");
+        return offset;
+    }
+
+    void line(int line){
+        if(lineCount > 0 && lines[lineCount * 2 - 1] == line) return;
+
+        if(lineCount * 2 == lines.length) lines = Arrays.copyOf(lines, lines.length * 2);
+        lines[lineCount * 2] = length;
+        lines[lineCount * 2 + 1] = line;
+        lineCount++;
+    }
+
+    // Code attribute with a LineNumberTable.
+    byte[] attribute(){
+        if(length > MAX_CODE) throw new CodeGenerationException("Program too large: " + length + " bytes of code, the limit is " + MAX_CODE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try{
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(length);
+            out.write(code, 0, length);
+            out.writeShort(0); // exception table
+
+            out.writeShort(1);
+            out.writeShort(pool.utf8("LineNumberTable"));
+            out.writeInt(2 + 4 * lineCount);
+            out.writeShort(lineCount);
+            for(int i = 0; i < lineCount; i++){
+                out.writeShort(lines[i * 2]);
+                out.writeShort(lines[i * 2 + 1]);
+            }
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
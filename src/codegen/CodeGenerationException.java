@@ -0,0 +1,11 @@
+package codegen;
+
+// A checked program that cannot be represented in a class file, e.g. one whose main method exceeds 64KB.
+public class CodeGenerationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CodeGenerationException(String message){
+        super(message);
+    }
+}
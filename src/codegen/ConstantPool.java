@@ -0,0 +1,110 @@
+package codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Constant pool of a class file; equal constants share one entry.
+final class ConstantPool {
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> entries = new HashMap<String, Integer>();
+    private int count = 1;
+
+    int utf8(String text){
+        Integer index = entries.get("U" + text);
+        if(index != null) return index;
+
+        try{
+            out.writeByte(UTF8);
+            out.writeUTF(text);
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+        return add("U" + text);
+    }
+
+    int integer(int value){
+        Integer index = entries.get("I" + value);
+        if(index != null) return index;
+
+        write(INTEGER, value);
+        return add("I" + value);
+    }
+
+    int floating(float value){
+        int bits = Float.floatToRawIntBits(value);
+        Integer index = entries.get("F" + bits);
+        if(index != null) return index;
+
+        write(FLOAT, bits);
+        return add("F" + bits);
+    }
+
+    // Internal name, e.g. java/lang/String.
+    int classRef(String name){
+        return reference(CLASS, "C" + name, utf8(name), -1);
+    }
+
+    int string(String text){
+        return reference(STRING, "S" + text, utf8(text), -1);
+    }
+
+    int field(String owner, String name, String descriptor){
+        return reference(FIELD_REF, "R" + owner + "." + name + ":" + descriptor, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    int method(String owner, String name, String descriptor){
+        return reference(METHOD_REF, "M" + owner + "." + name + ":" + descriptor, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    private int nameAndType(String name, String descriptor){
+        return reference(NAME_AND_TYPE, "N" + name + ":" + descriptor, utf8(name), utf8(descriptor));
+    }
+
+    private int reference(int tag, String key, int first, int second){
+        Integer index = entries.get(key);
+        if(index != null) return index;
+
+        try{
+            out.writeByte(tag);
+            out.writeShort(first);
+            if(second >= 0) out.writeShort(second);
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+        return add(key);
+    }
+
+    private void write(int tag, int value){
+        try{
+            out.writeByte(tag);
+            out.writeInt(value);
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int add(String key){
+        if(count == 0xFFFF) throw new CodeGenerationException("Too many constants");
+        entries.put(key, count);
+        return count++;
+    }
+
+    void writeTo(DataOutputStream target) throws IOException{
+        target.writeShort(count);
+        bytes.writeTo(target);
+    }
+}
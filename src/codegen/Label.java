@@ -0,0 +1,20 @@
+package codegen;
+
+import java.util.Arrays;
+
+// A position in the code; jumps emitted before the label is placed are patched by Code.place().
+final class Label {
+
+    int position = -1;
+
+    // Offsets of the jump instructions and of their 16-bit operands.
+    int[] jumps = new int[4];
+    int jumpCount;
+
+    void addJump(int instruction, int operand){
+        if(jumpCount * 2 == jumps.length) jumps = Arrays.copyOf(jumps, jumps.length * 2);
+        jumps[jumpCount * 2] = instruction;
+        jumps[jumpCount * 2 + 1] = operand;
+        jumpCount++;
+    }
+}
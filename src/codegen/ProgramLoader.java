@@ -0,0 +1,68 @@
+package codegen;
+
+import interpreter.ProgramException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.NoSuchElementException;
+import lexical.SymbolTable;
+import syntactic.Ast;
+
+// Runs a checked program in this JVM. The generated class gets a class loader of its own, so it can be unloaded
+// as soon as it is no longer used and, unlike a hidden class, shows its frames and their source lines in stack
+// traces, which is how a failure is placed.
+public final class ProgramLoader {
+
+    private ProgramLoader(){}
+
+    private static final class Loader extends ClassLoader {
+        Loader(){
+            super(ProgramLoader.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes){
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    // A failure of the program itself, such as read finding no more input, is a ProgramException worded as the
+    // Interpreter words it.
+    public static void run(Ast ast, SymbolTable st, String sourceFile) throws Throwable{
+        String name = BytecodeGenerator.programName(ast, st);
+        byte[] bytes = BytecodeGenerator.generate(ast, st, name, sourceFile);
+
+        Class<?> program = new Loader().define(name, bytes);
+        MethodHandle main = MethodHandles.publicLookup().findStatic(program, "main", MethodType.methodType(void.class, String[].class));
+        try{
+            main.invokeExact(new String[0]);
+        }catch(NoSuchElementException e){
+            throw failure(e, name, "no more input to read");
+        }catch(NumberFormatException e){
+            throw failure(e, name, "expecting " + (calls(e, "java.lang.Integer") ? "an int" : "a float") + ", read '" + word(e) + "'");
+        }
+    }
+
+    private static ProgramException failure(Throwable e, String className, String message){
+        for(StackTraceElement frame : e.getStackTrace()){
+            if(frame.getClassName().equals(className) && frame.getLineNumber() > 0){
+                return new ProgramException("Runtime error at line " + frame.getLineNumber() + ": " + message);
+            }
+        }
+        return new ProgramException("Runtime error: " + message);
+    }
+
+    private static boolean calls(Throwable e, String className){
+        for(StackTraceElement frame : e.getStackTrace()){
+            if(frame.getClassName().equals(className)) return true;
+        }
+        return false;
+    }
+
+    // The word parseInt and parseFloat were given, from their message: For input string: "word".
+    private static String word(NumberFormatException e){
+        String message = String.valueOf(e.getMessage());
+        int quote = message.indexOf('"');
+        if(quote >= 0 && message.endsWith("\"") && message.length() > quote + 1) return message.substring(quote + 1, message.length() - 1);
+        return message.equals("empty String") ? "" : message;
+    }
+}
@@ -0,0 +1,43 @@
+package compiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Spans the whole pass; analysisTime leaves out the time spent waiting for the scanner.
+@Name("compiler.Analysis")
+@Label("Parsing and Checking")
+@Category("Compiler")
+@Description("Parsing and semantic checking of one compilation unit")
+final class AnalysisEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Analysis Time")
+    @Timespan
+    long analysisTime;
+
+    @Label("Symbols")
+    long symbols;
+
+    @Label("Symbol Lookups")
+    long symbolLookups;
+
+    @Label("Symbol Probes")
+    long symbolProbes;
+
+    @Label("Max Nesting Depth")
+    int maxNestingDepth;
+
+    @Label("Diagnostics")
+    int diagnostics;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,279 @@
+package compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lexical.SourceBuffer;
+import lexical.SymbolTable;
+import semantic.Class;
+import semantic.Type;
+import syntactic.Diagnostic;
+
+// On-disk cache of compilation results, one file per entry named by the SHA-256 of the compiler version,
+// the error limit and the source bytes, so an entry can never be stale.
+//
+// Entries are written to a temporary file and renamed into place, so readers see either a whole entry or
+// none; several processes can share a directory. Each hit touches the entry's modification time and, once
+// the directory grows past maxBytes, the least recently used entries are deleted under a file lock.
+public final class CompilationCache {
+
+    private static final int MAGIC = 0x43434532; // "CCE2"
+    private static final String SUFFIX = ".entry";
+    private static final String LOCK = "cache.lock";
+
+    private static final Type[] TYPES = Type.values();
+    private static final Class[] CLASSES = Class.values();
+
+    // A FileLock is held by the whole JVM, so caches sharing a directory take turns on its guard before locking.
+    private static final ConcurrentMap<Path, Object> GUARDS = new ConcurrentHashMap<Path, Object>();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Object guard;
+
+    // Approximate size of the directory: measured on open and after each eviction, grown by every store.
+    private final AtomicLong size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CompilationCache(Path directory, long maxBytes) throws IOException{
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        Files.createDirectories(directory);
+        this.guard = GUARDS.computeIfAbsent(directory.toRealPath(), path -> new Object());
+        this.size = new AtomicLong(measure());
+    }
+
+    public long getHits(){
+        return hits.get();
+    }
+
+    public long getMisses(){
+        return misses.get();
+    }
+
+    String key(SourceBuffer source, int maxErrors){
+        MessageDigest digest;
+        try{
+            digest = MessageDigest.getInstance("SHA-256");
+        }catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+
+        digest.update((Compiler.VERSION + "\0" + maxErrors + "\0").getBytes(StandardCharsets.UTF_8));
+        source.digest(digest);
+
+        StringBuilder hex = new StringBuilder(64);
+        for(byte b : digest.digest()) hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+
+    // Returns null on a miss; a damaged or concurrently evicted entry is a miss too.
+    CompilationResult load(String key){
+        Path entry = directory.resolve(key + SUFFIX);
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))){
+            CompilationResult result = read(in);
+            hits.incrementAndGet();
+            touch(entry);
+            return result;
+        }catch(IOException e){
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    // Failures to write are ignored: the cache only ever saves work.
+    void store(String key, CompilationResult result){
+        Path entry = directory.resolve(key + SUFFIX);
+        Path temporary = null;
+
+        try{
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))){
+                write(out, result);
+            }
+
+            long bytes = Files.size(temporary);
+            try{
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }catch(AtomicMoveNotSupportedException e){
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temporary = null;
+
+            if(size.addAndGet(bytes) > maxBytes) evict();
+        }catch(IOException e){
+            // Another process may have evicted the directory under us; the result is still valid.
+        }finally{
+            if(temporary != null){
+                try{
+                    Files.deleteIfExists(temporary);
+                }catch(IOException e){
+                    // Left for the next eviction.
+                }
+            }
+        }
+    }
+
+    private static void touch(Path entry){
+        try{
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        }catch(IOException e){
+            // Evicted meanwhile.
+        }
+    }
+
+    // Deletes the least recently used entries until the directory is back to three quarters of maxBytes.
+    private void evict() throws IOException{
+        synchronized(guard){
+            evictLocked();
+        }
+    }
+
+    // Closing the channel releases its lock.
+    private void evictLocked() throws IOException{
+        try(FileChannel channel = FileChannel.open(directory.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+            channel.lock();
+
+            List<Path> entries = new ArrayList<Path>();
+            List<BasicFileAttributes> attributes = new ArrayList<BasicFileAttributes>();
+            long total = 0;
+
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)){
+                for(Path entry : stream){
+                    try{
+                        BasicFileAttributes attribute = Files.readAttributes(entry, BasicFileAttributes.class);
+                        entries.add(entry);
+                        attributes.add(attribute);
+                        total += attribute.size();
+                    }catch(NoSuchFileException e){
+                        // Deleted by another process.
+                    }
+                }
+            }
+
+            Integer[] order = new Integer[entries.size()];
+            for(int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> attributes.get(a).lastModifiedTime().compareTo(attributes.get(b).lastModifiedTime()));
+
+            long target = maxBytes - maxBytes / 4;
+            for(int i = 0; i < order.length && total > target; i++){
+                Files.deleteIfExists(entries.get(order[i]));
+                total -= attributes.get(order[i]).size();
+            }
+            size.set(total);
+        }
+    }
+
+    private long measure() throws IOException{
+        long total = 0;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)){
+            for(Path entry : stream){
+                try{
+                    total += Files.size(entry);
+                }catch(NoSuchFileException e){
+                    // Deleted by another process.
+                }
+            }
+        }
+        return total;
+    }
+
+    // Entry layout: magic, success, diagnostics (line, column, length, message, excerpt), symbols (name, type,
+    // class, offset).
+    private static void write(DataOutputStream out, CompilationResult result) throws IOException{
+        out.writeInt(MAGIC);
+        out.writeBoolean(result.isSuccess());
+
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        out.writeInt(diagnostics.size());
+        for(Diagnostic diagnostic : diagnostics){
+            out.writeInt(diagnostic.getLine());
+            out.writeInt(diagnostic.getColumn());
+            out.writeInt(diagnostic.getLength());
+            out.writeUTF(diagnostic.getMessage());
+            out.writeUTF(diagnostic.getExcerpt());
+        }
+
+        SymbolTable st = result.getSymbolTable();
+        out.writeInt(st.size());
+        for(int id = 0; id < st.size(); id++){
+            Type type = st.typeOf(id);
+            Class idClass = st.classOf(id);
+            out.writeUTF(st.getName(id));
+            out.writeByte(type == null ? -1 : type.ordinal());
+            out.writeByte(idClass == null ? -1 : idClass.ordinal());
+            out.writeInt(st.offsetOf(id));
+        }
+    }
+
+    private static CompilationResult read(DataInputStream in) throws IOException{
+        if(in.readInt() != MAGIC) throw new IOException("Not a cache entry");
+        boolean success = in.readBoolean();
+
+        // Counts and ordinals are checked so that a damaged entry fails as an IOException; a count past the end
+        // of the file runs into EOFException instead of presizing a huge list.
+        int diagnosticCount = count(in);
+        List<Diagnostic> diagnostics = new ArrayList<Diagnostic>(Math.min(diagnosticCount, 64));
+        for(int i = 0; i < diagnosticCount; i++){
+            int line = in.readInt();
+            int column = in.readInt();
+            int length = in.readInt();
+            String message = in.readUTF();
+            diagnostics.add(new Diagnostic(line, column, length, message, in.readUTF()));
+        }
+
+        // Identifiers are interned in id order, so they keep the ids they had when compiled.
+        SymbolTable st = new SymbolTable();
+        int symbolCount = count(in);
+        for(int i = 0; i < symbolCount; i++){
+            int id = st.intern(in.readUTF());
+            if(id != i) throw new IOException("Duplicate symbol in cache entry");
+            int type = ordinal(in, TYPES.length);
+            int idClass = ordinal(in, CLASSES.length);
+            if(type >= 0) st.setType(id, TYPES[type]);
+            if(idClass >= 0) st.setClass(id, CLASSES[idClass]);
+            st.setOffset(id, in.readInt());
+        }
+
+        return new CompilationResult(success, Collections.unmodifiableList(diagnostics), st, null);
+    }
+
+    private static int count(DataInputStream in) throws IOException{
+        int count = in.readInt();
+        if(count < 0) throw new IOException("Negative count in cache entry");
+        return count;
+    }
+
+    // -1 for none, otherwise below bound.
+    private static int ordinal(DataInputStream in, int bound) throws IOException{
+        int ordinal = in.readByte();
+        if(ordinal < -1 || ordinal >= bound) throw new IOException("Bad ordinal in cache entry");
+        return ordinal;
+    }
+}
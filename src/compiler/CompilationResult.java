@@ -0,0 +1,50 @@
+package compiler;
+
+import java.util.List;
+import lexical.SymbolTable;
+import syntactic.Ast;
+import syntactic.Diagnostic;
+
+public final class CompilationResult {
+
+    private final boolean success;
+    private final List<Diagnostic> diagnostics;
+    private final SymbolTable symbolTable;
+    private final Ast ast;
+    private final CompilationStats stats;
+
+    CompilationResult(boolean success, List<Diagnostic> diagnostics, SymbolTable symbolTable, Ast ast){
+        this(success, diagnostics, symbolTable, ast, null);
+    }
+
+    CompilationResult(boolean success, List<Diagnostic> diagnostics, SymbolTable symbolTable, Ast ast, CompilationStats stats){
+        this.success = success;
+        this.diagnostics = diagnostics;
+        this.symbolTable = symbolTable;
+        this.ast = ast;
+        this.stats = stats;
+    }
+
+    public boolean isSuccess(){
+        return success;
+    }
+
+    // In the order they were found.
+    public List<Diagnostic> getDiagnostics(){
+        return diagnostics;
+    }
+
+    public SymbolTable getSymbolTable(){
+        return symbolTable;
+    }
+
+    // Null unless the Compiler was asked to build trees.
+    public Ast getAst(){
+        return ast;
+    }
+
+    // Null unless the Compiler was asked for statistics, and for results loaded from the cache.
+    public CompilationStats getStats(){
+        return stats;
+    }
+}
@@ -0,0 +1,178 @@
+package compiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import lexical.TokenType;
+
+// Where the time and memory of compilations went, for Compiler instances created with statistics on.
+// Parsing and semantic checking happen in one pass, so they are one phase; the time spent waiting for
+// the scanner is lexing, not parsing. Reading a mapped file includes faulting in its pages.
+public final class CompilationStats {
+
+    static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATIONS = allocationsSupported();
+
+    int units;
+    long sourceBytes;
+    long readNanos;
+    long readAllocated;
+    long lexNanos;
+    long lexAllocated;
+    long analysisNanos;
+    long analysisAllocated;
+    final long[] tokens = new long[TOKEN_TYPES.length];
+    long symbols;
+    long symbolLookups;
+    long symbolProbes;
+    int maxNestingDepth;
+
+    public CompilationStats(){
+    }
+
+    // Adds other to these totals; the nesting depth is the deepest of both.
+    public void add(CompilationStats other){
+        units += other.units;
+        sourceBytes += other.sourceBytes;
+        readNanos += other.readNanos;
+        readAllocated += other.readAllocated;
+        lexNanos += other.lexNanos;
+        lexAllocated += other.lexAllocated;
+        analysisNanos += other.analysisNanos;
+        analysisAllocated += other.analysisAllocated;
+        for(int i = 0; i < tokens.length; i++) tokens[i] += other.tokens[i];
+        symbols += other.symbols;
+        symbolLookups += other.symbolLookups;
+        symbolProbes += other.symbolProbes;
+        maxNestingDepth = Math.max(maxNestingDepth, other.maxNestingDepth);
+    }
+
+    // Charges a read done outside the compiler, such as a file read ahead of its compilation, to these totals.
+    public void addRead(long nanos, long allocated){
+        readNanos += Math.max(0, nanos);
+        readAllocated += Math.max(0, allocated);
+    }
+
+    public int units(){
+        return units;
+    }
+
+    public long sourceBytes(){
+        return sourceBytes;
+    }
+
+    public long readNanos(){
+        return readNanos;
+    }
+
+    public long lexNanos(){
+        return lexNanos;
+    }
+
+    // Parsing and semantic checking, without lexing.
+    public long analysisNanos(){
+        return analysisNanos;
+    }
+
+    public long readAllocated(){
+        return readAllocated;
+    }
+
+    public long lexAllocated(){
+        return lexAllocated;
+    }
+
+    public long analysisAllocated(){
+        return analysisAllocated;
+    }
+
+    public long tokens(TokenType type){
+        return tokens[type.ordinal()];
+    }
+
+    public long tokens(){
+        long total = 0;
+        for(long count : tokens) total += count;
+        return total;
+    }
+
+    public long symbols(){
+        return symbols;
+    }
+
+    public long symbolLookups(){
+        return symbolLookups;
+    }
+
+    public long symbolProbes(){
+        return symbolProbes;
+    }
+
+    public int maxNestingDepth(){
+        return maxNestingDepth;
+    }
+
+    // Token counts by type, most frequent first, e.g. "IDENTIFIER=120 SEMI_COLON=40".
+    public String tokensByType(){
+        List<TokenType> types = new ArrayList<TokenType>();
+        for(TokenType type : TOKEN_TYPES){
+            if(tokens[type.ordinal()] > 0) types.add(type);
+        }
+        types.sort((a, b) -> Long.compare(tokens[b.ordinal()], tokens[a.ordinal()]));
+
+        StringBuilder out = new StringBuilder();
+        for(TokenType type : types){
+            if(out.length() > 0) out.append(' ');
+            out.append(type.name()).append('=').append(tokens[type.ordinal()]);
+        }
+        return out.toString();
+    }
+
+    // Multi-line summary, as printed by --stats.
+    public String format(){
+        long total = readNanos + lexNanos + analysisNanos;
+        StringBuilder out = new StringBuilder();
+
+        out.append(String.format("%d unit%s, %s read, %d tokens%n", units, units == 1 ? "" : "s", bytes(sourceBytes), tokens()));
+        out.append(phase("read", readNanos, total, readAllocated));
+        out.append(phase("lexing", lexNanos, total, lexAllocated));
+        out.append(phase("parsing and checking", analysisNanos, total, analysisAllocated));
+        out.append(String.format("symbol table: %d symbols, %d lookups, %.2f probes per lookup%n",
+                                 symbols, symbolLookups, symbolLookups == 0 ? 0.0 : (double) symbolProbes / symbolLookups));
+        out.append(String.format("max nesting depth: %d%n", maxNestingDepth));
+        out.append(String.format("tokens: %s%n", tokensByType()));
+        out.append(String.format("slowest phase: %s%n", slowestPhase()));
+        return out.toString();
+    }
+
+    private String slowestPhase(){
+        if(readNanos >= lexNanos && readNanos >= analysisNanos) return "read (I/O bound)";
+        if(lexNanos >= analysisNanos) return "lexing";
+        return "parsing and checking";
+    }
+
+    private static String phase(String name, long nanos, long total, long allocated){
+        return String.format("  %-22s %10.3f ms %5.1f%%  %s allocated%n", name, nanos / 1e6, total == 0 ? 0.0 : 100.0 * nanos / total,
+                             ALLOCATIONS ? bytes(allocated) : "n/a");
+    }
+
+    private static String bytes(long bytes){
+        if(bytes < 1 << 10) return bytes + " B";
+        if(bytes < 1 << 20) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    // Bytes allocated so far by the current thread, or 0 where the JVM cannot tell.
+    public static long allocatedBytes(){
+        return ALLOCATIONS ? ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static boolean allocationsSupported(){
+        return THREADS instanceof com.sun.management.ThreadMXBean &&
+               ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported() &&
+               ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+    }
+}
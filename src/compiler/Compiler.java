@@ -0,0 +1,148 @@
+package compiler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import lexical.LexicalAnalysis;
+import lexical.ParallelLexer;
+import lexical.PipelinedLexer;
+import lexical.SourceBuffer;
+import lexical.SymbolTable;
+import lexical.TokenSource;
+import syntactic.SyntacticAnalysis;
+
+// Entry point for embedding the compiler: nothing is printed and the JVM is never exited.
+// A Compiler holds no per-compilation state, so one instance can be shared by any number of threads.
+public final class Compiler {
+
+    // Part of every CompilationCache key; change it whenever diagnostics or symbol tables can come out different.
+    public static final String VERSION = "2";
+
+    // Source name of the events of in-memory compilations.
+    private static final String MEMORY = "<memory>";
+
+    // Below this size starting a lexer thread costs more than it hides.
+    private static final int PIPELINE_THRESHOLD = 256 << 10;
+    // Below a few chunks per worker the chunks cannot keep the pool busy.
+    private static final int PARALLEL_THRESHOLD = 8 * ParallelLexer.DEFAULT_CHUNK_SIZE;
+
+    private final int maxErrors;
+    private final CompilationCache cache;
+    private final boolean buildAst;
+    private final boolean stats;
+    private final LexingMode lexing;
+
+    public Compiler(){
+        this(SyntacticAnalysis.DEFAULT_MAX_ERRORS);
+    }
+
+    public Compiler(int maxErrors){
+        this(maxErrors, null);
+    }
+
+    // Results are looked up in and added to cache when it is not null.
+    public Compiler(int maxErrors, CompilationCache cache){
+        this(maxErrors, cache, false);
+    }
+
+    // With buildAst every result carries its Ast; the cache does not hold trees, so it is only written to.
+    public Compiler(int maxErrors, CompilationCache cache, boolean buildAst){
+        this(maxErrors, cache, buildAst, false);
+    }
+
+    // With stats every compiled result carries its CompilationStats. The compiler.* Flight Recorder events are
+    // emitted whenever a recording enables them; otherwise nothing is measured.
+    public Compiler(int maxErrors, CompilationCache cache, boolean buildAst, boolean stats){
+        this(maxErrors, cache, buildAst, stats, LexingMode.SEQUENTIAL);
+    }
+
+    // PIPELINED applies to sources of PIPELINE_THRESHOLD bytes or more, PARALLEL to sources of PARALLEL_THRESHOLD
+    // bytes or more. Both are ignored on a single processor, where the threads could only take turns.
+    public Compiler(int maxErrors, CompilationCache cache, boolean buildAst, boolean stats, LexingMode lexing){
+        this.maxErrors = maxErrors;
+        this.cache = cache;
+        this.buildAst = buildAst;
+        this.stats = stats;
+        this.lexing = Runtime.getRuntime().availableProcessors() > 1 ? lexing : LexingMode.SEQUENTIAL;
+    }
+
+    // Characters above U+00FF are not part of the language and are replaced by '?'.
+    public CompilationResult compile(CharSequence source){
+        return compile(SourceBuffer.of(source), PhaseRecorder.start(stats, MEMORY));
+    }
+
+    public CompilationResult compile(byte[] source){
+        return compile(source, MEMORY);
+    }
+
+    // name is the source name of the compiler.* events, e.g. the path the bytes were read from.
+    public CompilationResult compile(byte[] source, String name){
+        return compile(SourceBuffer.wrap(source), PhaseRecorder.start(stats, name));
+    }
+
+    // Compiles the remaining bytes of source without moving its position.
+    public CompilationResult compile(ByteBuffer source){
+        return compile(SourceBuffer.wrap(source), PhaseRecorder.start(stats, MEMORY));
+    }
+
+    // Reads source to its end; closing it is left to the caller.
+    public CompilationResult compile(ReadableByteChannel source) throws IOException{
+        PhaseRecorder recorder = PhaseRecorder.start(stats, source.toString());
+        if(recorder == null) return compile(SourceBuffer.read(source), null);
+
+        recorder.beginRead();
+        SourceBuffer input = SourceBuffer.read(source);
+        recorder.endRead(input);
+        return compile(input, recorder);
+    }
+
+    public CompilationResult compile(Path source) throws IOException{
+        PhaseRecorder recorder = PhaseRecorder.start(stats, source.toString());
+        if(recorder == null) return compile(SourceBuffer.open(source), null);
+
+        recorder.beginRead();
+        SourceBuffer input = SourceBuffer.open(source);
+        recorder.endRead(input);
+        return compile(input, recorder);
+    }
+
+    private CompilationResult compile(SourceBuffer input, PhaseRecorder recorder){
+        try{
+            if(cache == null) return analyze(input, recorder);
+
+            String key = cache.key(input, maxErrors);
+            CompilationResult result = buildAst ? null : cache.load(key);
+            if(result == null){
+                result = analyze(input, recorder);
+                cache.store(key, result);
+            }
+            return result;
+        }finally{
+            input.close();
+        }
+    }
+
+    private CompilationResult analyze(SourceBuffer input, PhaseRecorder recorder){
+        SymbolTable st = new SymbolTable();
+        PipelinedLexer pipeline = lexing == LexingMode.PIPELINED && input.length() >= PIPELINE_THRESHOLD ? new PipelinedLexer(input, st) : null;
+        ParallelLexer chunks = lexing == LexingMode.PARALLEL && input.length() >= PARALLEL_THRESHOLD ? new ParallelLexer(input, st) : null;
+        try{
+            TokenSource lexical = pipeline != null ? pipeline : chunks != null ? chunks : new LexicalAnalysis(input, st);
+            if(recorder != null) lexical = recorder.lexer(lexical);
+
+            SyntacticAnalysis parser = new SyntacticAnalysis(lexical, st, maxErrors);
+            if(buildAst) parser.buildAst();
+
+            if(recorder == null) return new CompilationResult(parser.analyze(), parser.getDiagnostics(), st, parser.getAst());
+
+            recorder.beginAnalysis();
+            boolean success = parser.analyze();
+            CompilationStats stats = recorder.endAnalysis(parser, st, input);
+            return new CompilationResult(success, parser.getDiagnostics(), st, parser.getAst(), stats);
+        }finally{
+            if(pipeline != null) pipeline.close();
+            if(chunks != null) chunks.close();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package compiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Lexing is interleaved with parsing, so the event spans the whole pass and lexTime is the part spent scanning.
+@Name("compiler.Lex")
+@Label("Lexing")
+@Category("Compiler")
+@Description("Scanning of one compilation unit")
+final class LexEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Lexing Time")
+    @Timespan
+    long lexTime;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Tokens by Type")
+    String tokensByType;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
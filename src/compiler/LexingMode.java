@@ -0,0 +1,12 @@
+package compiler;
+
+// How a Compiler runs the lexer next to the parser. Modes other than SEQUENTIAL only apply to sources large
+// enough to pay for their threads, and only on more than one processor.
+public enum LexingMode {
+    // On the parser's thread, see LexicalAnalysis.
+    SEQUENTIAL,
+    // On a second thread, ahead of the parser, see PipelinedLexer.
+    PIPELINED,
+    // In chunks on the common ForkJoinPool, see ParallelLexer.
+    PARALLEL
+}
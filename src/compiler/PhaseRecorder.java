@@ -0,0 +1,121 @@
+package compiler;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import lexical.SourceBuffer;
+import lexical.SymbolTable;
+import lexical.TokenSource;
+import syntactic.SyntacticAnalysis;
+
+// Measures the phases of one compilation for CompilationStats and the compiler.* Flight Recorder events.
+// start() returns null when neither is wanted, and the compilation then runs without any instrumentation.
+final class PhaseRecorder {
+
+    private final String source;
+    private final CompilationStats stats = new CompilationStats();
+    private final boolean keepStats;
+
+    private final ReadEvent readEvent = new ReadEvent();
+    private final LexEvent lexEvent = new LexEvent();
+    private final AnalysisEvent analysisEvent = new AnalysisEvent();
+
+    private StatsTokenSource lexer;
+    private long start;
+    private long allocated;
+
+    private PhaseRecorder(String source, boolean keepStats){
+        this.source = source;
+        this.keepStats = keepStats;
+    }
+
+    static PhaseRecorder start(boolean stats, String source){
+        if(!stats && !recording()) return null;
+        return new PhaseRecorder(source, stats);
+    }
+
+    // Looking up an EventType starts Flight Recorder, so it is only done once a recording has started it.
+    private static boolean recording(){
+        if(!FlightRecorder.isInitialized()) return false;
+        return Events.READ.isEnabled() || Events.LEX.isEnabled() || Events.ANALYSIS.isEnabled();
+    }
+
+    private static final class Events {
+        static final EventType READ = EventType.getEventType(ReadEvent.class);
+        static final EventType LEX = EventType.getEventType(LexEvent.class);
+        static final EventType ANALYSIS = EventType.getEventType(AnalysisEvent.class);
+    }
+
+    void beginRead(){
+        readEvent.begin();
+        start = System.nanoTime();
+        allocated = CompilationStats.allocatedBytes();
+    }
+
+    void endRead(SourceBuffer input){
+        input.load();
+        stats.readNanos = System.nanoTime() - start;
+        stats.readAllocated = CompilationStats.allocatedBytes() - allocated;
+        readEvent.end();
+
+        if(readEvent.shouldCommit()){
+            readEvent.source = source;
+            readEvent.bytes = input.length();
+            readEvent.allocated = stats.readAllocated;
+            readEvent.commit();
+        }
+    }
+
+    TokenSource lexer(TokenSource scanner){
+        lexer = new StatsTokenSource(scanner);
+        return lexer;
+    }
+
+    void beginAnalysis(){
+        lexEvent.begin();
+        analysisEvent.begin();
+        start = System.nanoTime();
+        allocated = CompilationStats.allocatedBytes();
+    }
+
+    // Null unless statistics were asked for. Lexing is estimated and the rest is measured as a whole, so lexing
+    // is capped at the whole and neither phase is ever reported as negative.
+    CompilationStats endAnalysis(SyntacticAnalysis parser, SymbolTable st, SourceBuffer input){
+        long nanos = System.nanoTime() - start;
+        long bytes = Math.max(0, CompilationStats.allocatedBytes() - allocated);
+        lexEvent.end();
+        analysisEvent.end();
+
+        stats.units = 1;
+        stats.sourceBytes = input.length();
+        stats.lexNanos = Math.min(lexer.nanos(), nanos);
+        stats.lexAllocated = Math.min(lexer.allocated(), bytes);
+        stats.analysisNanos = nanos - stats.lexNanos;
+        stats.analysisAllocated = bytes - stats.lexAllocated;
+        System.arraycopy(lexer.tokens, 0, stats.tokens, 0, stats.tokens.length);
+        stats.symbols = st.size();
+        stats.symbolLookups = st.lookups();
+        stats.symbolProbes = st.probes();
+        stats.maxNestingDepth = parser.getMaxNestingDepth();
+
+        if(lexEvent.shouldCommit()){
+            lexEvent.source = source;
+            lexEvent.lexTime = stats.lexNanos;
+            lexEvent.tokens = stats.tokens();
+            lexEvent.tokensByType = stats.tokensByType();
+            lexEvent.allocated = stats.lexAllocated;
+            lexEvent.commit();
+        }
+        if(analysisEvent.shouldCommit()){
+            analysisEvent.source = source;
+            analysisEvent.analysisTime = stats.analysisNanos;
+            analysisEvent.symbols = stats.symbols;
+            analysisEvent.symbolLookups = stats.symbolLookups;
+            analysisEvent.symbolProbes = stats.symbolProbes;
+            analysisEvent.maxNestingDepth = stats.maxNestingDepth;
+            analysisEvent.diagnostics = parser.getDiagnostics().size();
+            analysisEvent.allocated = stats.analysisAllocated;
+            analysisEvent.commit();
+        }
+        return keepStats ? stats : null;
+    }
+}
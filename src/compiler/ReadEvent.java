@@ -0,0 +1,26 @@
+package compiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("compiler.Read")
+@Label("Source Read")
+@Category("Compiler")
+@Description("Opening or reading one compilation unit; mapped files are faulted in")
+final class ReadEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,109 @@
+package compiler;
+
+import java.io.EOFException;
+import lexical.LineIndex;
+import lexical.Token;
+import lexical.TokenSource;
+import lexical.TokenType;
+
+// Counts the tokens of the scanner it wraps by TokenType and estimates the time and memory spent in it.
+// Reading the clock and the allocation counter costs about as much as scanning a token, so past the first
+// EXACT_CALLS calls only a random sample of about one call in SAMPLE_GAP is measured and scaled up. The first
+// calls, which pay for warming up the scanner, are all measured and never scaled, so a cold call cannot be
+// multiplied into more time than the compilation took. Symbols interned by the scanner are charged to lexing.
+final class StatsTokenSource implements TokenSource {
+
+    private static final int SAMPLE_GAP = 16;
+    private static final int EXACT_CALLS = 1024;
+
+    private final TokenSource source;
+    final long[] tokens = new long[CompilationStats.TOKEN_TYPES.length];
+
+    private long calls;
+    private long exactNanos;
+    private long exactAllocated;
+    private long sampledCalls;
+    private long sampledNanos;
+    private long sampledAllocated;
+    private int countdown;
+    private boolean ended;
+    private int random = 0x2545F491;
+
+    StatsTokenSource(TokenSource source){
+        this.source = source;
+    }
+
+    @Override
+    public Token nextToken() throws EOFException{
+        calls++;
+        if(calls <= EXACT_CALLS) return measured(true);
+        if(--countdown > 0) return count(source.nextToken());
+
+        // Gaps are uniform in [1, 2 * SAMPLE_GAP - 1], so programs repeating a statement shape do not alias.
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        countdown = 1 + (random >>> 1) % (2 * SAMPLE_GAP - 1);
+        sampledCalls++;
+        return measured(false);
+    }
+
+    private Token measured(boolean exact) throws EOFException{
+        // The allocation counter is read outside the timed span, and an empty span measured just before
+        // takes out what reading the clock adds to it.
+        long before = CompilationStats.allocatedBytes();
+        long empty = System.nanoTime();
+        long start = System.nanoTime();
+        try{
+            return count(source.nextToken());
+        }finally{
+            long end = System.nanoTime();
+            long nanos = Math.max(0, (end - start) - (start - empty));
+            long allocated = CompilationStats.allocatedBytes() - before;
+            if(exact){
+                exactNanos += nanos;
+                exactAllocated += allocated;
+            }else{
+                sampledNanos += nanos;
+                sampledAllocated += allocated;
+            }
+        }
+    }
+
+    // The parser may ask again once the input has ended; that is still the one END_OF_FILE of the unit.
+    private Token count(Token token){
+        if(token.getType() == TokenType.END_OF_FILE){
+            if(ended) return token;
+            ended = true;
+        }
+        tokens[token.getType().ordinal()]++;
+        return token;
+    }
+
+    @Override
+    public int getLineCounter(){
+        return source.getLineCounter();
+    }
+
+    @Override
+    public long getTokenSpan(){
+        return source.getTokenSpan();
+    }
+
+    @Override
+    public LineIndex getLineIndex(){
+        return source.getLineIndex();
+    }
+
+    long nanos(){
+        return exactNanos + scaled(sampledNanos);
+    }
+
+    long allocated(){
+        return Math.max(0, exactAllocated + scaled(sampledAllocated));
+    }
+
+    private long scaled(long sampled){
+        return sampledCalls == 0 ? 0 : (long) ((double) sampled * (calls - EXACT_CALLS) / sampledCalls);
+    }
+}
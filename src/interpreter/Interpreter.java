@@ -0,0 +1,173 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Executes a Program. Input is split into whitespace-separated words like java.util.Scanner.next(), and
+// output is buffered and flushed when the buffer fills, before reading blocks on input and when the program
+// ends, so a prompt is always shown before the read that waits for its answer.
+public final class Interpreter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final Writer out;
+    private final String newline = System.lineSeparator();
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private int inputPosition;
+    private int inputLength;
+
+    private char[] word = new char[64];
+
+    public Interpreter(InputStream in, OutputStream out){
+        this.in = in;
+        this.out = new OutputStreamWriter(out, StandardCharsets.ISO_8859_1);
+    }
+
+    public void run(Program program) throws IOException{
+        final int[] code = program.code;
+        final int[] ints = new int[program.intRegisters];
+        final float[] floats = new float[program.floatRegisters];
+        final String[] strings = new String[program.stringRegisters];
+        Arrays.fill(strings, "");
+
+        Writer out = this.out;
+        int pc = 0;
+
+        try{
+            while(true){
+                switch(code[pc]){
+                    case Op.HALT:
+                        return;
+
+                    case Op.ICONST: ints[code[pc + 1]] = code[pc + 2]; pc += Op.WIDTH; break;
+                    case Op.FCONST: floats[code[pc + 1]] = Float.intBitsToFloat(code[pc + 2]); pc += Op.WIDTH; break;
+                    case Op.SCONST: strings[code[pc + 1]] = program.strings[code[pc + 2]]; pc += Op.WIDTH; break;
+
+                    case Op.IMOV: ints[code[pc + 1]] = ints[code[pc + 2]]; pc += Op.WIDTH; break;
+                    case Op.FMOV: floats[code[pc + 1]] = floats[code[pc + 2]]; pc += Op.WIDTH; break;
+                    case Op.SMOV: strings[code[pc + 1]] = strings[code[pc + 2]]; pc += Op.WIDTH; break;
+
+                    case Op.IADD: ints[code[pc + 1]] = ints[code[pc + 2]] + ints[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.ISUB: ints[code[pc + 1]] = ints[code[pc + 2]] - ints[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.IMUL: ints[code[pc + 1]] = ints[code[pc + 2]] * ints[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.IDIV: floats[code[pc + 1]] = (float) ints[code[pc + 2]] / (float) ints[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.FADD: floats[code[pc + 1]] = floats[code[pc + 2]] + floats[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.FSUB: floats[code[pc + 1]] = floats[code[pc + 2]] - floats[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.FMUL: floats[code[pc + 1]] = floats[code[pc + 2]] * floats[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.FDIV: floats[code[pc + 1]] = floats[code[pc + 2]] / floats[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.SCAT: strings[code[pc + 1]] = strings[code[pc + 2]].concat(strings[code[pc + 3]]); pc += Op.WIDTH; break;
+                    case Op.AND: ints[code[pc + 1]] = ints[code[pc + 2]] & ints[code[pc + 3]]; pc += Op.WIDTH; break;
+                    case Op.OR: ints[code[pc + 1]] = ints[code[pc + 2]] | ints[code[pc + 3]]; pc += Op.WIDTH; break;
+
+                    case Op.INEG: ints[code[pc + 1]] = -ints[code[pc + 2]]; pc += Op.WIDTH; break;
+                    case Op.FNEG: floats[code[pc + 1]] = -floats[code[pc + 2]]; pc += Op.WIDTH; break;
+                    case Op.NOT: ints[code[pc + 1]] = ints[code[pc + 2]] ^ 1; pc += Op.WIDTH; break;
+
+                    case Op.IEQ: ints[code[pc + 1]] = ints[code[pc + 2]] == ints[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.IEQ + 1: ints[code[pc + 1]] = ints[code[pc + 2]] != ints[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.IEQ + 2: ints[code[pc + 1]] = ints[code[pc + 2]] < ints[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.IEQ + 3: ints[code[pc + 1]] = ints[code[pc + 2]] >= ints[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.IEQ + 4: ints[code[pc + 1]] = ints[code[pc + 2]] > ints[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.IEQ + 5: ints[code[pc + 1]] = ints[code[pc + 2]] <= ints[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.FEQ: ints[code[pc + 1]] = floats[code[pc + 2]] == floats[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.FEQ + 1: ints[code[pc + 1]] = floats[code[pc + 2]] != floats[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.FEQ + 2: ints[code[pc + 1]] = floats[code[pc + 2]] < floats[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.FEQ + 3: ints[code[pc + 1]] = floats[code[pc + 2]] >= floats[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.FEQ + 4: ints[code[pc + 1]] = floats[code[pc + 2]] > floats[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.FEQ + 5: ints[code[pc + 1]] = floats[code[pc + 2]] <= floats[code[pc + 3]] ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.SEQ: ints[code[pc + 1]] = strings[code[pc + 2]].equals(strings[code[pc + 3]]) ? 1 : 0; pc += Op.WIDTH; break;
+                    case Op.SNE: ints[code[pc + 1]] = strings[code[pc + 2]].equals(strings[code[pc + 3]]) ? 0 : 1; pc += Op.WIDTH; break;
+
+                    case Op.IJEQ: pc = ints[code[pc + 1]] == ints[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.IJEQ + 1: pc = ints[code[pc + 1]] != ints[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.IJEQ + 2: pc = ints[code[pc + 1]] < ints[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.IJEQ + 3: pc = ints[code[pc + 1]] >= ints[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.IJEQ + 4: pc = ints[code[pc + 1]] > ints[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.IJEQ + 5: pc = ints[code[pc + 1]] <= ints[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.FJEQ: pc = floats[code[pc + 1]] == floats[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.FJEQ + 1: pc = floats[code[pc + 1]] != floats[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.FJEQ + 2: pc = floats[code[pc + 1]] < floats[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.FJEQ + 3: pc = floats[code[pc + 1]] >= floats[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.FJEQ + 4: pc = floats[code[pc + 1]] > floats[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.FJEQ + 5: pc = floats[code[pc + 1]] <= floats[code[pc + 2]] ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.SJEQ: pc = strings[code[pc + 1]].equals(strings[code[pc + 2]]) ? code[pc + 3] : pc + Op.WIDTH; break;
+                    case Op.SJNE: pc = strings[code[pc + 1]].equals(strings[code[pc + 2]]) ? pc + Op.WIDTH : code[pc + 3]; break;
+
+                    case Op.JMP: pc = code[pc + 1]; break;
+                    case Op.JT: pc = ints[code[pc + 1]] != 0 ? code[pc + 2] : pc + Op.WIDTH; break;
+                    case Op.JF: pc = ints[code[pc + 1]] == 0 ? code[pc + 2] : pc + Op.WIDTH; break;
+
+                    case Op.READI: ints[code[pc + 1]] = readInt(); pc += Op.WIDTH; break;
+                    case Op.READF: floats[code[pc + 1]] = readFloat(); pc += Op.WIDTH; break;
+                    case Op.READS: strings[code[pc + 1]] = word(); pc += Op.WIDTH; break;
+
+                    case Op.WRITEI: out.write(Integer.toString(ints[code[pc + 1]])); out.write(newline); pc += Op.WIDTH; break;
+                    case Op.WRITEF: out.write(Float.toString(floats[code[pc + 1]])); out.write(newline); pc += Op.WIDTH; break;
+                    case Op.WRITES: out.write(strings[code[pc + 1]]); out.write(newline); pc += Op.WIDTH; break;
+                    case Op.WRITEB: out.write(ints[code[pc + 1]] != 0 ? "true" : "false"); out.write(newline); pc += Op.WIDTH; break;
+
+                    default:
+                        throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+                }
+            }
+        }catch(ProgramException e){
+            throw new ProgramException("Runtime error at line " + program.lines[pc / Op.WIDTH] + ": " + e.getMessage());
+        }finally{
+            out.flush();
+        }
+    }
+
+    private int readInt() throws IOException{
+        String word = word();
+        try{
+            return Integer.parseInt(word);
+        }catch(NumberFormatException e){
+            throw new ProgramException("expecting an int, read '" + word + "'");
+        }
+    }
+
+    private float readFloat() throws IOException{
+        String word = word();
+        try{
+            return Float.parseFloat(word);
+        }catch(NumberFormatException e){
+            throw new ProgramException("expecting a float, read '" + word + "'");
+        }
+    }
+
+    // Next whitespace-separated word of the input, as ISO-8859-1 like the source.
+    private String word() throws IOException{
+        int c = next();
+        while(c >= 0 && Character.isWhitespace(c)) c = next();
+        if(c < 0) throw new ProgramException("no more input to read");
+
+        int length = 0;
+        while(c >= 0 && !Character.isWhitespace(c)){
+            if(length == word.length) word = Arrays.copyOf(word, length * 2);
+            word[length++] = (char) c;
+            c = next();
+        }
+        return new String(word, 0, length);
+    }
+
+    private int next() throws IOException{
+        if(inputPosition == inputLength){
+            // The read may block until the user answers what was written so far.
+            out.flush();
+            inputLength = in.read(input);
+            inputPosition = 0;
+            if(inputLength <= 0){
+                inputLength = 0;
+                return -1;
+            }
+        }
+        return input[inputPosition++] & 0xFF;
+    }
+}
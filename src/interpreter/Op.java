@@ -0,0 +1,81 @@
+package interpreter;
+
+// Instruction set of the register interpreter. Every instruction is four ints: opcode, a, b, c.
+// Registers live in three banks (int/boolean, float, string) and the opcode says which bank each operand is in.
+// Jump targets are positions in the code array.
+final class Op {
+
+    static final int WIDTH = 4;
+
+    static final int HALT = 0;
+
+    // Loads: d = constant; FCONST holds the float bits, SCONST an index into the string pool.
+    static final int ICONST = 1;
+    static final int FCONST = 2;
+    static final int SCONST = 3;
+
+    // d = a
+    static final int IMOV = 4;
+    static final int FMOV = 5;
+    static final int SMOV = 6;
+
+    // d = a op b
+    static final int IADD = 7;
+    static final int ISUB = 8;
+    static final int IMUL = 9;
+    static final int IDIV = 10;   // float d = int a / int b
+    static final int FADD = 11;
+    static final int FSUB = 12;
+    static final int FMUL = 13;
+    static final int FDIV = 14;
+    static final int SCAT = 15;
+    static final int AND = 16;
+    static final int OR = 17;
+
+    // d = op a
+    static final int INEG = 18;
+    static final int FNEG = 19;
+    static final int NOT = 20;
+
+    // int d = a rel b, in the order EQ, NE, LT, GE, GT, LE.
+    static final int IEQ = 21;
+    static final int FEQ = 27;
+    static final int SEQ = 33;
+    static final int SNE = 34;
+
+    // Jumps to c when a rel b, same relation order: compare-and-branch superinstructions.
+    static final int IJEQ = 35;
+    static final int FJEQ = 41;
+    static final int SJEQ = 47;
+    static final int SJNE = 48;
+
+    // JMP jumps to a; JT and JF jump to b when the int register a is true or false.
+    static final int JMP = 49;
+    static final int JT = 50;
+    static final int JF = 51;
+
+    // read(d) / write(a)
+    static final int READI = 52;
+    static final int READF = 53;
+    static final int READS = 54;
+    static final int WRITEI = 55;
+    static final int WRITEF = 56;
+    static final int WRITES = 57;
+    static final int WRITEB = 58;
+
+    static final String[] NAMES = {
+        "halt", "iconst", "fconst", "sconst", "imov", "fmov", "smov",
+        "iadd", "isub", "imul", "idiv", "fadd", "fsub", "fmul", "fdiv", "scat", "and", "or",
+        "ineg", "fneg", "not",
+        "ieq", "ine", "ilt", "ige", "igt", "ile",
+        "feq", "fne", "flt", "fge", "fgt", "fle",
+        "seq", "sne",
+        "ijeq", "ijne", "ijlt", "ijge", "ijgt", "ijle",
+        "fjeq", "fjne", "fjlt", "fjge", "fjgt", "fjle",
+        "sjeq", "sjne",
+        "jmp", "jt", "jf",
+        "readi", "readf", "reads", "writei", "writef", "writes", "writeb"
+    };
+
+    private Op(){}
+}
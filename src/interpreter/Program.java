@@ -0,0 +1,36 @@
+package interpreter;
+
+// A program translated for the Interpreter: code plus the sizes of the register banks it uses.
+public final class Program {
+
+    final int[] code;
+    final int[] lines;
+    final String[] strings;
+    final int intRegisters;
+    final int floatRegisters;
+    final int stringRegisters;
+
+    Program(int[] code, int[] lines, String[] strings, int intRegisters, int floatRegisters, int stringRegisters){
+        this.code = code;
+        this.lines = lines;
+        this.strings = strings;
+        this.intRegisters = intRegisters;
+        this.floatRegisters = floatRegisters;
+        this.stringRegisters = stringRegisters;
+    }
+
+    public int instructions(){
+        return code.length / Op.WIDTH;
+    }
+
+    // One instruction per line: position, source line, mnemonic and operands.
+    public String disassemble(){
+        StringBuilder out = new StringBuilder();
+        for(int pc = 0; pc < code.length; pc += Op.WIDTH){
+            out.append(String.format("%5d  line %-4d %-7s %d, %d, %d", pc, lines[pc / Op.WIDTH], Op.NAMES[code[pc]],
+                                     code[pc + 1], code[pc + 2], code[pc + 3]));
+            out.append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package interpreter;
+
+// The running program failed, e.g. read found no more input or input that is not a number.
+public class ProgramException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProgramException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,487 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lexical.SymbolTable;
+import lexical.TokenType;
+import semantic.Type;
+import syntactic.Ast;
+import syntactic.NodeKind;
+
+// Translates a checked Ast into a register Program.
+//
+// Variable v lives in register offset(v) of the bank of its type. Constants get registers of their own after
+// the variables, loaded once before the first statement, so no constant is materialized inside a loop.
+// Temporaries follow and are released as soon as the instruction that reads them is emitted.
+public final class Translator {
+
+    private static final int INTS = 0;
+    private static final int FLOATS = 1;
+    private static final int STRINGS = 2;
+
+    private final Ast ast;
+    private final SymbolTable st;
+
+    private int[] code = new int[256];
+    private int[] lines = new int[64];
+    private int length;
+    private int line;
+
+    private final List<String> strings = new ArrayList<String>();
+    private final Map<Object, Integer> constants = new HashMap<Object, Integer>();
+
+    // Next free register of each bank and the most registers ever used.
+    private final int[] top = new int[3];
+    private final int[] size = new int[3];
+
+    private Translator(Ast ast, SymbolTable st){
+        this.ast = ast;
+        this.st = st;
+    }
+
+    public static Program translate(Ast ast, SymbolTable st){
+        if(ast == null || ast.root() == Ast.NONE) throw new IllegalArgumentException("No program to translate");
+        return new Translator(ast, st).program();
+    }
+
+    private Program program(){
+        int root = ast.root();
+        int[] nodes = reachable(root);
+
+        int variables = 0;
+        for(int node : nodes){
+            if(ast.kind(node) == NodeKind.VARIABLE) variables = Math.max(variables, st.offsetOf(ast.symbol(node)) + 1);
+        }
+        Arrays.fill(top, variables);
+        Arrays.fill(size, variables);
+
+        for(int node : nodes){
+            switch(ast.kind(node)){
+                case INT_CONST: constant(INTS, ast.intValue(node), Op.ICONST, ast.intValue(node)); break;
+                case REAL_CONST: constant(FLOATS, ast.floatValue(node), Op.FCONST, ast.value(node)); break;
+                case LITERAL:
+                    // Pooled only the first time the text is seen.
+                    String text = ast.literal(node);
+                    if(!constants.containsKey(STRINGS + ":" + text)) constant(STRINGS, text, Op.SCONST, pool(text));
+                break;
+                case BOOL_CONST: constant(INTS, ast.value(node), Op.ICONST, ast.value(node)); break;
+                default:
+            }
+        }
+
+        for(int child = ast.firstChild(root); child != Ast.NONE; child = ast.nextSibling(child)){
+            if(ast.kind(child) == NodeKind.STMT_LIST) statements(child);
+        }
+        emit(Op.HALT, 0, 0, 0);
+
+        return new Program(Arrays.copyOf(code, length), Arrays.copyOf(lines, length / Op.WIDTH),
+                           strings.toArray(new String[0]), size[INTS], size[FLOATS], size[STRINGS]);
+    }
+
+    // The nodes of the tree under root in source order, without those constant folding detached from it. Walked
+    // with an explicit stack, since statements nest deeper than the Java stack allows.
+    private int[] reachable(int root){
+        int[] nodes = new int[ast.size()];
+        int count = 0;
+        int[] pending = new int[64];
+        int depth = 0;
+        pending[depth++] = root;
+
+        while(depth > 0){
+            int node = pending[--depth];
+            nodes[count++] = node;
+
+            // Children are pushed first to last and reversed, so the first one is visited next.
+            int from = depth;
+            for(int child = ast.firstChild(node); child != Ast.NONE; child = ast.nextSibling(child)){
+                if(depth == pending.length) pending = Arrays.copyOf(pending, depth * 2);
+                pending[depth++] = child;
+            }
+            for(int i = from, j = depth - 1; i < j; i++, j--){
+                int swap = pending[i];
+                pending[i] = pending[j];
+                pending[j] = swap;
+            }
+        }
+        return Arrays.copyOf(nodes, count);
+    }
+
+    private void constant(int bank, Object value, int op, int operand){
+        Object key = bank + ":" + value;
+        if(constants.containsKey(key)) return;
+
+        int register = allocate(bank);
+        constants.put(key, register);
+        emit(op, register, operand, 0);
+    }
+
+    private int constantRegister(int bank, Object value){
+        return constants.get(bank + ":" + value);
+    }
+
+    private int pool(String text){
+        strings.add(text);
+        return strings.size() - 1;
+    }
+
+    private static int bank(Type type){
+        return type == Type.FLOAT ? FLOATS : type == Type.STRING ? STRINGS : INTS;
+    }
+
+    private int allocate(int bank){
+        int register = top[bank]++;
+        if(top[bank] > size[bank]) size[bank] = top[bank];
+        return register;
+    }
+
+    // Position of the instruction emitted next.
+    private int here(){
+        return length;
+    }
+
+    private int emit(int op, int a, int b, int c){
+        if(length + Op.WIDTH > code.length) code = Arrays.copyOf(code, code.length * 2);
+        if(length / Op.WIDTH == lines.length) lines = Arrays.copyOf(lines, lines.length * 2);
+
+        int position = length;
+        code[length++] = op;
+        code[length++] = a;
+        code[length++] = b;
+        code[length++] = c;
+        lines[position / Op.WIDTH] = line;
+        return position;
+    }
+
+    // Points the jump operand at position + operand to here().
+    private void patch(int position, int operand){
+        code[position + operand] = here();
+    }
+
+    // Jump instructions waiting for their target: the position of each and the index of its target operand.
+    private static final class Jumps {
+        int[] positions = new int[4];
+        int[] operands = new int[4];
+        int count;
+
+        void add(int position, int operand){
+            if(count == positions.length){
+                positions = Arrays.copyOf(positions, count * 2);
+                operands = Arrays.copyOf(operands, count * 2);
+            }
+            positions[count] = position;
+            operands[count] = operand;
+            count++;
+        }
+    }
+
+    // Statements, expressions and conditions nest as deep as the parser allows, which is bounded by the heap and
+    // not by the thread stack, so they are translated from an explicit stack of tasks instead of by recursion.
+    // A task is an action with a node, an int and a Jumps; the tasks of a node are pushed last to first.
+    // Evaluated registers go to a stack of results, and the temporaries in use before an expression to a stack
+    // of marks, to be released once the instruction reading its operands is emitted.
+    private static final int STATEMENTS = 0;      // node is a statement or NONE, followed by its siblings
+    private static final int EXPRESSION = 1;      // node into register value, or anywhere when value is -1
+    private static final int OPERATION = 2;       // node, its operands evaluated, into register value or anywhere
+    private static final int BRANCH = 3;          // jumps taken when node evaluates to value != 0
+    private static final int BRANCH_VALUE = 4;    // jumps taken when node, evaluated, is value != 0
+    private static final int COMPARE = 5;         // jumps taken when the relation of node, evaluated, is value != 0
+    private static final int ASSIGN = 6;
+    private static final int WRITE = 7;
+    private static final int ELSE = 8;            // after the then branch of IF node that skipped to jumps
+    private static final int PATCH = 9;           // jumps to here()
+    private static final int LOOP = 10;           // jumps to value
+    private static final int LINE = 11;           // value
+
+    private int[] actions = new int[64];
+    private int[] nodes = new int[64];
+    private int[] values = new int[64];
+    private Jumps[] jumpLists = new Jumps[64];
+    private int tasks;
+
+    private int[] results = new int[16];
+    private int resultCount;
+    private int[] marks = new int[48];
+    private int markCount;
+
+    private void push(int action, int node, int value, Jumps jumps){
+        if(tasks == actions.length){
+            actions = Arrays.copyOf(actions, tasks * 2);
+            nodes = Arrays.copyOf(nodes, tasks * 2);
+            values = Arrays.copyOf(values, tasks * 2);
+            jumpLists = Arrays.copyOf(jumpLists, tasks * 2);
+        }
+        actions[tasks] = action;
+        nodes[tasks] = node;
+        values[tasks] = value;
+        jumpLists[tasks] = jumps;
+        tasks++;
+    }
+
+    private void result(int register){
+        if(resultCount == results.length) results = Arrays.copyOf(results, resultCount * 2);
+        results[resultCount++] = register;
+    }
+
+    private int popResult(){
+        return results[--resultCount];
+    }
+
+    private void mark(){
+        if(markCount == marks.length) marks = Arrays.copyOf(marks, markCount * 2);
+        System.arraycopy(top, 0, marks, markCount, 3);
+        markCount += 3;
+    }
+
+    private void release(){
+        markCount -= 3;
+        System.arraycopy(marks, markCount, top, 0, 3);
+    }
+
+    private void statements(int list){
+        push(STATEMENTS, ast.firstChild(list), 0, null);
+
+        while(tasks > 0){
+            tasks--;
+            int node = nodes[tasks];
+            int value = values[tasks];
+            Jumps jumps = jumpLists[tasks];
+            jumpLists[tasks] = null;
+
+            switch(actions[tasks]){
+                case STATEMENTS:
+                    if(node == Ast.NONE) break;
+                    push(STATEMENTS, ast.nextSibling(node), 0, null);
+                    statement(node);
+                break;
+                case EXPRESSION: expression(node, value); break;
+                case OPERATION: result(operation(node, value)); break;
+                case BRANCH: branch(node, jumps, value != 0); break;
+                case BRANCH_VALUE:{
+                    int register = popResult();
+                    release();
+                    jumps.add(emit(value != 0 ? Op.JT : Op.JF, register, 0, 0), 2);
+                }
+                break;
+                case COMPARE: compare(node, jumps, value != 0); break;
+                case ASSIGN:{
+                    int register = popResult();
+                    Type type = st.typeOf(ast.symbol(node));
+                    if(register != value) emit(type == Type.INT ? Op.IMOV : type == Type.FLOAT ? Op.FMOV : Op.SMOV, value, register, 0);
+                }
+                break;
+                case WRITE:{
+                    Type type = ast.type(ast.firstChild(node));
+                    int register = popResult();
+                    release();
+                    emit(type == Type.INT ? Op.WRITEI : type == Type.FLOAT ? Op.WRITEF : type == Type.STRING ? Op.WRITES : Op.WRITEB, register, 0, 0);
+                }
+                break;
+                case ELSE:{
+                    int end = emit(Op.JMP, 0, 0, 0);
+                    patchAll(jumps);
+                    Jumps last = new Jumps();
+                    last.add(end, 1);
+                    push(PATCH, Ast.NONE, 0, last);
+                    push(STATEMENTS, ast.firstChild(ast.nextSibling(ast.nextSibling(ast.firstChild(node)))), 0, null);
+                }
+                break;
+                case PATCH: patchAll(jumps); break;
+                case LINE: line = value; break;
+                case LOOP:
+                    for(int i = 0; i < jumps.count; i++) code[jumps.positions[i] + jumps.operands[i]] = value;
+                break;
+                default: throw new IllegalStateException("Bad task " + actions[tasks]);
+            }
+        }
+    }
+
+    private void statement(int node){
+        line = ast.line(node);
+        int first = ast.firstChild(node);
+
+        switch(ast.kind(node)){
+            case ASSIGN:{
+                int target = st.offsetOf(ast.symbol(node));
+                push(ASSIGN, node, target, null);
+                push(EXPRESSION, first, target, null);
+            }
+            break;
+            case IF:{
+                int then = ast.nextSibling(first);
+                int otherwise = ast.nextSibling(then);
+
+                Jumps skip = new Jumps();
+                push(otherwise == Ast.NONE ? PATCH : ELSE, node, 0, skip);
+                push(STATEMENTS, ast.firstChild(then), 0, null);
+                push(BRANCH, first, 0, skip);
+            }
+            break;
+            case DO:{
+                int condition = ast.nextSibling(first);
+                Jumps loop = new Jumps();
+                push(LOOP, Ast.NONE, here(), loop);
+                push(BRANCH, condition, 1, loop);
+                push(LINE, Ast.NONE, ast.line(condition), null);
+                push(STATEMENTS, ast.firstChild(first), 0, null);
+            }
+            break;
+            case READ:{
+                Type type = st.typeOf(ast.symbol(node));
+                emit(type == Type.INT ? Op.READI : type == Type.FLOAT ? Op.READF : Op.READS, st.offsetOf(ast.symbol(node)), 0, 0);
+            }
+            break;
+            case STMT_LIST:
+                push(STATEMENTS, first, 0, null);
+            break;
+            case WRITE:
+                mark();
+                push(WRITE, node, 0, null);
+                push(EXPRESSION, first, -1, null);
+            break;
+            default:
+                throw new IllegalArgumentException("Unexpected " + ast.kind(node) + " at line " + ast.line(node));
+        }
+    }
+
+    private void patchAll(Jumps jumps){
+        for(int i = 0; i < jumps.count; i++) patch(jumps.positions[i], jumps.operands[i]);
+    }
+
+    // Evaluates node into a register, pushed on the results: target when the last instruction can write there
+    // (target may be -1), the register of a variable or constant as is, or a fresh temporary.
+    private void expression(int node, int target){
+        switch(ast.kind(node)){
+            case IDENT: result(st.offsetOf(ast.symbol(node))); return;
+            case INT_CONST: result(constantRegister(INTS, ast.intValue(node))); return;
+            case REAL_CONST: result(constantRegister(FLOATS, ast.floatValue(node))); return;
+            case LITERAL: result(constantRegister(STRINGS, ast.literal(node))); return;
+            case BOOL_CONST: result(constantRegister(INTS, ast.value(node))); return;
+            default:
+        }
+
+        int first = ast.firstChild(node);
+        mark();
+        push(OPERATION, node, target, null);
+        if(ast.kind(node) == NodeKind.BINARY) push(EXPRESSION, ast.nextSibling(first), -1, null);
+        push(EXPRESSION, first, -1, null);
+    }
+
+    // The instruction of node, whose operands are on the results.
+    private int operation(int node, int target){
+        int first = ast.firstChild(node);
+        Type type = ast.type(node);
+        int b = ast.kind(node) == NodeKind.BINARY ? popResult() : 0;
+        int a = popResult();
+
+        // Operands are read before the result is written, so the result may reuse their temporaries.
+        release();
+        int d = target >= 0 ? target : allocate(bank(type));
+
+        if(ast.kind(node) == NodeKind.UNARY){
+            if(ast.operator(node) == TokenType.NOT) emit(Op.NOT, d, a, 0);
+            else emit(type == Type.FLOAT ? Op.FNEG : Op.INEG, d, a, 0);
+            return d;
+        }
+
+        Type operands = ast.type(first);
+        switch(ast.operator(node)){
+            case ADD: emit(operands == Type.STRING ? Op.SCAT : operands == Type.FLOAT ? Op.FADD : Op.IADD, d, a, b); break;
+            case SUB: emit(operands == Type.FLOAT ? Op.FSUB : Op.ISUB, d, a, b); break;
+            case MUL: emit(operands == Type.FLOAT ? Op.FMUL : Op.IMUL, d, a, b); break;
+            case DIV: emit(operands == Type.FLOAT ? Op.FDIV : Op.IDIV, d, a, b); break;
+            case AND: emit(Op.AND, d, a, b); break;
+            case OR: emit(Op.OR, d, a, b); break;
+            default:
+                int relation = relation(ast.operator(node));
+                if(operands == Type.STRING) emit(relation == 0 ? Op.SEQ : Op.SNE, d, a, b);
+                else emit((operands == Type.FLOAT ? Op.FEQ : Op.IEQ) + relation, d, a, b);
+        }
+        return d;
+    }
+
+    // Order of the relational opcodes; relation ^ 1 is the negated relation.
+    private static int relation(TokenType operator){
+        switch(operator){
+            case EQUALS: return 0;
+            case NOT_EQUALS: return 1;
+            case LOWER: return 2;
+            case GREATER_EQUAL: return 3;
+            case GREATER: return 4;
+            case LOWER_EQUAL: return 5;
+            default: throw new IllegalArgumentException("Not a relational operator: " + operator);
+        }
+    }
+
+    private static boolean relational(TokenType operator){
+        return operator == TokenType.EQUALS || operator == TokenType.NOT_EQUALS || operator == TokenType.LOWER ||
+               operator == TokenType.GREATER_EQUAL || operator == TokenType.GREATER || operator == TokenType.LOWER_EQUAL;
+    }
+
+    // Emits jumps taken when node evaluates to jumpIf and adds them to jumps for patching.
+    private void branch(int node, Jumps jumps, boolean jumpIf){
+        int first = ast.firstChild(node);
+
+        if(ast.kind(node) == NodeKind.UNARY && ast.operator(node) == TokenType.NOT){
+            push(BRANCH, first, jumpIf ? 0 : 1, jumps);
+            return;
+        }
+
+        if(ast.kind(node) == NodeKind.BOOL_CONST){
+            if(ast.booleanValue(node) == jumpIf) jumps.add(emit(Op.JMP, 0, 0, 0), 1);
+            return;
+        }
+
+        TokenType operator = ast.kind(node) == NodeKind.BINARY ? ast.operator(node) : null;
+        int second = operator == null ? Ast.NONE : ast.nextSibling(first);
+
+        if(operator == TokenType.AND || operator == TokenType.OR){
+            if((operator == TokenType.AND) == jumpIf){
+                Jumps skip = new Jumps();
+                push(PATCH, Ast.NONE, 0, skip);
+                push(BRANCH, second, jumpIf ? 1 : 0, jumps);
+                push(BRANCH, first, jumpIf ? 0 : 1, skip);
+            }else{
+                push(BRANCH, second, jumpIf ? 1 : 0, jumps);
+                push(BRANCH, first, jumpIf ? 1 : 0, jumps);
+            }
+            return;
+        }
+
+        mark();
+
+        if(operator == null || !relational(operator)){
+            push(BRANCH_VALUE, node, jumpIf ? 1 : 0, jumps);
+            push(EXPRESSION, node, -1, null);
+            return;
+        }
+
+        push(COMPARE, node, jumpIf ? 1 : 0, jumps);
+        push(EXPRESSION, second, -1, null);
+        push(EXPRESSION, first, -1, null);
+    }
+
+    // The jumps of branch for a relation, whose operands are on the results.
+    private void compare(int node, Jumps jumps, boolean jumpIf){
+        Type operands = ast.type(ast.firstChild(node));
+        int b = popResult();
+        int a = popResult();
+        release();
+
+        int relation = relation(ast.operator(node));
+        if(operands == Type.FLOAT && !jumpIf){
+            // A comparison with NaN is false both ways, so "not a < b" cannot become "a >= b".
+            int taken = emit(Op.FJEQ + relation, a, b, 0);
+            jumps.add(emit(Op.JMP, 0, 0, 0), 1);
+            patch(taken, 3);
+            return;
+        }
+
+        if(!jumpIf) relation ^= 1;
+        if(operands == Type.STRING) jumps.add(emit(relation == 0 ? Op.SJEQ : Op.SJNE, a, b, 0), 3);
+        else if(operands == Type.FLOAT) jumps.add(emit(Op.FJEQ + relation, a, b, 0), 3);
+        else jumps.add(emit(Op.IJEQ + relation, a, b, 0), 3);
+    }
+}
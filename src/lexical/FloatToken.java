@@ -9,6 +9,10 @@ public class FloatToken extends Token {
         this.value = value;
     }
 
+    public float getValue(){
+        return value;
+    }
+
     @Override
     public String toString(){
         return super.toString() + " [" +Float.toString(value)+ "]";
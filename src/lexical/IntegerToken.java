@@ -9,6 +9,10 @@ public class IntegerToken extends Token {
         this.value = value;
     }
 
+    public int getValue(){
+        return value;
+    }
+
     @Override
     public String toString(){
         return super.toString() + " [" +Integer.toString(value)+ "]";
@@ -1,270 +1,223 @@
 package lexical;
 
 import java.io.EOFException;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PushbackInputStream;
 
-public class LexicalAnalysis {
+// Scanner driven by the tables in LexerTables, generated by lexical.dfa.LexerGenerator from grammar.ebnf.
+public class LexicalAnalysis implements TokenSource {
 
-    private PushbackInputStream file;
+    // Powers of ten that are exact in single precision, so mantissa / 10^n rounds like Float.parseFloat.
+    private static final float[] FLOAT_POW10 = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final long FLOAT_EXACT_MANTISSA = 1L << 24;
+    private static final long MANTISSA_LIMIT = Long.MAX_VALUE / 10 - 9;
+
+    private static final int IDENTIFIER = TokenType.IDENTIFIER.ordinal();
+    private static final int INTEGER_CONST = TokenType.INTEGER_CONST.ordinal();
+    private static final int REAL_CONST = TokenType.REAL_CONST.ordinal();
+    private static final int LITERAL = TokenType.LITERAL.ordinal();
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private SourceBuffer input;
     private int lineCounter;
-    private int currentChar;
+    private LineIndex lines;
+    // Span of the token returned last, or of the input the last exception was thrown for.
+    private long tokenSpan = Span.NONE;
+    // One past the furthest offset the automaton has looked at, the end of the input counting as an offset;
+    // tokens scanned so far only depend on the source before it. See TokenStream.
+    int scanEnd;
+    // Null when identifiers are interned by the consumer of the tokens, see PipelinedLexer.
     public SymbolTable st;
 
     public LexicalAnalysis(String filePath, SymbolTable st) throws FileNotFoundException{
         this.lineCounter = 1;
-        this.currentChar = ' ';
         this.st = st;
 
         try{
-            this.file = new PushbackInputStream(new FileInputStream(filePath), 2);
+            this.input = SourceBuffer.open(filePath);
         }catch(Exception e){
             throw new FileNotFoundException(filePath);
         }
+        this.lines = new LineIndex(input);
     }
 
+    public LexicalAnalysis(SourceBuffer input, SymbolTable st){
+        this.lineCounter = 1;
+        this.st = st;
+        this.input = input;
+        this.lines = new LineIndex(input);
+    }
 
+    // Scans input from position as if line - 1 newlines had come before it. The LineIndex only gets the lines
+    // scanned from there.
+    public LexicalAnalysis(SourceBuffer input, SymbolTable st, int position, int line){
+        this.lineCounter = line;
+        this.st = st;
+        this.input = input;
+        this.lines = new LineIndex(input);
+        input.seek(position);
+    }
+
+
+    @Override
     public Token nextToken() throws EOFException{
+        final byte[] charClass = LexerTables.CHAR_CLASS;
+        final short[] transitions = LexerTables.TRANSITIONS;
+        final int[] accept = LexerTables.ACCEPT;
+        final int end = input.length();
+
+        while(true){
+            // The lexeme is never copied: it is the source range [start, acceptEnd).
+            int start = input.position();
+            int pos = start;
+            int state = LexerTables.START;
+            int acceptType = LexerTables.NONE;
+            int acceptEnd = start;
+
+            if(start >= end){
+                scanEnd = end + 1;
+                tokenSpan = Span.of(end, 0);
+                return Token.of(TokenType.END_OF_FILE);
+            }
+
+            // Longest match: run until the automaton dies, remembering the last accepting state.
+            while(pos < end){
+                int next = transitions[state * LexerTables.CLASS_COUNT + charClass[input.charAt(pos)]];
+                if(next < 0) break;
+
+                state = next;
+                pos++;
+                if(accept[state] != LexerTables.NONE){
+                    acceptType = accept[state];
+                    acceptEnd = pos;
+                }
+            }
+            if(pos >= scanEnd) scanEnd = pos + 1;
+
+            // Reported at the line the unterminated comment or literal starts on.
+            if(pos == end && accept[state] == LexerTables.NONE){
+                String message = "Unexpected END OF FILE at line " + getLineCounter() + " near '" +
+                                 near(start, pos) + "': " + TokenType.UNEXPECTED_EOF;
+                countLines(start, pos);
+                input.seek(pos);
+                tokenSpan = Span.of(start, pos - start);
+                throw new EOFException(message);
+            }
 
-        int state = 0;
-        final int ERROR = -10;
-        final int END = -15;
-        Token token = null;
-        String lexeme = new String("");
-
-        while(state != END && state != ERROR){
-            
-            this.currentChar = getc();
-            
-            //DEBUG:
-            //System.out.printf("  [%d, %d ('%c')]\n", state, currentChar, (char) currentChar);
-
-            switch(state){
-                case 0:
-                    if(currentChar == -1){
-                        token = new Token(TokenType.END_OF_FILE);
-                        state = END;
-                        break;
-                    }else if(currentChar == '\n'){
-                        this.lineCounter++;
-                        state = 0;
-                    }else if(currentChar == ' ' || (char) currentChar == '\t' ||
-                             currentChar == 13){
-                        state = 0;
-                    }else if(Character.isLetter(currentChar)){
-                        lexeme += (char) currentChar;
-                        state = 1;
-                    }else if(currentChar == '0'){
-                        lexeme += (char) currentChar;
-                        state = 2;
-                    }else if(Character.isDigit(currentChar)){
-                        lexeme += (char) currentChar;
-                        state = 3;
-                    }else if(currentChar == '\"'){
-                        //lexeme += (char) currentChar;
-                        state = 5;
-                    }else if(currentChar == '&'){
-                        lexeme += (char) currentChar;
-                        state = 6;
-                    }else if(currentChar == '/'){
-                        lexeme += (char) currentChar;
-                        state = 7;
-                    }else if(currentChar == '|'){
-                        lexeme += (char) currentChar;
-                        state = 11;
-                    }else if(currentChar == '<' || currentChar == '>' || 
-                             currentChar == '=' || currentChar == '!'){ 
-                        lexeme += (char) currentChar;
-                        state = 12;
-                    }else if(currentChar == '(' || currentChar == ')' || 
-                             currentChar == '{' || currentChar == '}' || 
-                             currentChar == ';' || currentChar == '+' || 
-                             currentChar == '-' || currentChar == '*' || currentChar == ','){
-                        lexeme += (char) currentChar;
-                        token = new Token(TokenType.getLexemeType(lexeme));
-                        state = END;
-                    }else{
-                        state = ERROR;
-                    }
-                break;
-                case 1:
-                    if(Character.isLetterOrDigit(currentChar) || currentChar == '_'){
-                        lexeme += (char) currentChar;
-                        state = 1;
-                    }else{
-                        unget(currentChar);
-                        TokenType type = TokenType.getLexemeType(lexeme);
-                        if(type != null){ //Verify if this token is a keyword.
-                            token = new Token(type);
-                        }else{
-                            type = TokenType.IDENTIFIER;
-                            token = new WordToken(type, lexeme);
-
-                            st.put((WordToken) token);
-                        }
-                        state = END;
-                    }
-                break;
-                case 2:
-                    if(currentChar == '.'){
-                        lexeme += (char) currentChar;
-                        state = 4;
-                    }else{
-                        unget(currentChar);
-                        token = new IntegerToken(Integer.parseInt(lexeme));
-                        state = END;
-                    }
-                break;
-                case 3:
-                    if(Character.isDigit(currentChar)){
-                        lexeme += (char) currentChar;
-                        state = 3;
-                    }else if(currentChar == '.'){
-                        lexeme += (char) currentChar;
-                        state = 4;
-                    }else{
-                        unget(currentChar);
-                        token = new IntegerToken(Integer.parseInt(lexeme));
-                        state = END;
-                    }
-                break;
-                case 4:
-                    if(Character.isDigit(currentChar)){
-                        lexeme += (char) currentChar;
-                        state = 4;
-                    }else{
-                        unget(currentChar);
-                        token = new FloatToken(Float.parseFloat(lexeme));
-                        state = END;
-                    }
-                break;
-                case 5:
-                    if(currentChar == '\"'){
-                        //lexeme += (char) currentChar;
-                        token = new WordToken(TokenType.LITERAL, lexeme);
-                        state = END;
-                    }else{
-                        lexeme += (char) currentChar;
-                        state = 5;
-                    }
-                
-                break;
-                case 6:
-                    if(currentChar == '&'){
-                        token = new Token(TokenType.AND);
-                        state = END;
-                    }else{
-                        unget(currentChar);
-                        state = ERROR;
-                    }
-                break;
-                case 7:
-                    if(currentChar == '*'){
-                        state = 9;
-                    }else if(currentChar == '/'){
-                        state = 8;
-                    }else{
-                        unget(currentChar);
-                        token = new Token(TokenType.DIV);
-                        state = END;
-                    }
-                break;
-                case 8:
-                    if(currentChar == '\n'){
-                        lexeme = "";
-                        this.lineCounter++;
-                        state = 0;
-                    }else{
-                        state = 8;
-                    }
-                break;
-                case 9:
-                    if(currentChar == '*'){
-                        state = 10;
-                    }else if(currentChar == '\n'){
-                        this.lineCounter++;
-                        state = 9;
-                    }else{
-                        state = 9;
-                    }
-                break;
-                case 10:
-                    if(currentChar == '/'){
-                        lexeme = "";
-                        state = 0;
-                    }else if(currentChar == '*'){
-                        state = 10;
-                    }else{
-                        state = 9;
-                    }
-                break;
-                case 11:
-                    if(currentChar == '|'){
-                        token = new Token(TokenType.OR);
-                        state = END;
-                    }else{
-                        unget(currentChar);
-                        state = ERROR;
-                    }
-                break;
-                case 12:
-                    if(currentChar == '='){
-                        lexeme += (char) currentChar;
-                        token = new Token(TokenType.getLexemeType(lexeme));
-                        state = END;
-                    }else{
-                        unget(currentChar);
-                        token = new Token(TokenType.getLexemeType(lexeme));
-                        state = END;
-                    }
-                break;
-                default:
-                    state = ERROR;
+            if(acceptType == LexerTables.NONE){
+                input.seek(Math.max(pos, start + 1));
+                tokenSpan = Span.of(start, Math.max(pos, start + 1) - start);
+                throw new RuntimeException("Unexpected Token at line " + getLineCounter() + " near '" +
+                                           near(start, Math.max(pos, start + 1)) + "': " + TokenType.INVALID_TOKEN);
             }
 
-            if(currentChar == -1 && state != END && state != ERROR){
-                token = new Token(TokenType.UNEXPECTED_EOF);
-                throw new EOFException("Unexpected END OF FILE at line " + getLineCounter() +" near '" + 
-                                       (lexeme.isEmpty() ? (char) currentChar : lexeme) + "': " + token.type);
-                
+            input.seek(acceptEnd);
+
+            if(acceptType == LexerTables.SKIP){
+                countLines(start, acceptEnd);
+                continue;
             }
 
+            tokenSpan = Span.of(start, acceptEnd - start);
+            return token(acceptType, start, acceptEnd - start);
         }
+    }
+
+    private Token token(int type, int start, int length){
+        if(type == IDENTIFIER){
+            int slot = LexerTables.keywordSlot(input, start, length);
+            String keyword = LexerTables.KEYWORD_LEXEMES[slot];
+            if(keyword != null && input.regionMatches(start, length, keyword)){ //Verify if this token is a keyword.
+                return Token.of(TYPES[LexerTables.KEYWORD_TYPES[slot]]);
+            }
 
-        if(state == END){
-            return token;
-        }else if(state == ERROR){
-            token = new Token(TokenType.INVALID_TOKEN);
-            throw new RuntimeException("Unexpected Token at line " + getLineCounter() +" near '" +
-                                       (lexeme.isEmpty() ? (char) currentChar : lexeme) + "': " + token.type);
+            if(st == null) return new WordToken(TokenType.IDENTIFIER, input, start, length);
+            return new WordToken(TokenType.IDENTIFIER, input, start, length, st.intern(input, start, length));
         }
-        
-        return null;
+
+        if(type == LITERAL) return new WordToken(TokenType.LITERAL, input, start + 1, length - 2);
+        if(type == INTEGER_CONST) return integerConstant(start, length);
+        if(type == REAL_CONST) return realConstant(start, length);
+
+        return Token.of(TYPES[type]);
     }
 
-    public void close() throws IOException{
-        file.close();
+    // Numeric constants are accumulated from the source range instead of parsing a copied String.
+    private Token integerConstant(int start, int length){
+        long value = 0;
+        for(int i = start; i < start + length; i++){
+            value = value * 10 + (input.charAt(i) - '0');
+            if(value > Integer.MAX_VALUE){
+                throw new RuntimeException("Integer constant out of range at line " + getLineCounter() + ": " +
+                                           input.substring(start, length));
+            }
+        }
+        return new IntegerToken((int) value);
     }
 
-    public int getc(){
-        try{
-            return file.read();
-        }catch(Exception e){
-            throw new RuntimeException("Unable to read file");
+    private Token realConstant(int start, int length){
+        long mantissa = 0;
+        int fractionDigits = -1;
+
+        for(int i = start; i < start + length; i++){
+            int c = input.charAt(i);
+            if(c == '.'){
+                fractionDigits = 0;
+            }else if(mantissa < MANTISSA_LIMIT){
+                mantissa = mantissa * 10 + (c - '0');
+                if(fractionDigits >= 0) fractionDigits++;
+            }else{
+                return new FloatToken(Float.parseFloat(input.substring(start, length)));
+            }
+        }
+
+        if(mantissa <= FLOAT_EXACT_MANTISSA && fractionDigits < FLOAT_POW10.length){
+            return new FloatToken((float) mantissa / FLOAT_POW10[fractionDigits]);
         }
+        return new FloatToken(Float.parseFloat(input.substring(start, length)));
     }
 
-    private void unget(int c){
-        try {
-            file.unread(c);
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to unget " + (char) c);
+    // Unterminated comments and literals can span the rest of the file; only their beginning is shown.
+    private String near(int start, int end){
+        final int MAX_NEAR = 32;
+        if(end - start <= MAX_NEAR) return input.substring(start, end - start);
+        return input.substring(start, MAX_NEAR) + "...";
+    }
+
+    private void countLines(int start, int end){
+        for(int i = start; i < end; i++){
+            if(input.charAt(i) == '\n'){
+                this.lineCounter++;
+                lines.add(i + 1);
+            }
         }
     }
 
+    public void close() throws IOException{
+        input.close();
+    }
+
+    // Where the next call to nextToken() starts scanning.
+    public int position(){
+        return input.position();
+    }
+
+    public int getc(){
+        return input.read();
+    }
+
+    @Override
     public int getLineCounter() {
         return lineCounter;
     }
-}
\ No newline at end of file
+
+    @Override
+    public long getTokenSpan(){
+        return tokenSpan;
+    }
+
+    @Override
+    public LineIndex getLineIndex(){
+        return lines;
+    }
+}
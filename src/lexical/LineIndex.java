@@ -0,0 +1,125 @@
+package lexical;
+
+import java.util.Arrays;
+
+// Offsets at which the lines of a source start, so the line and column of a token are only worked out, by
+// binary search, when a diagnostic shows them. LexicalAnalysis adds the newlines it skips as it scans;
+// scanners whose lexer runs on another thread fill theirs with scan() when it is asked for.
+public final class LineIndex {
+
+    // Longer lines are cut around the span in excerpts.
+    private static final int MAX_EXCERPT = 100;
+    private static final int BEFORE_SPAN = 40;
+
+    private final SourceBuffer source;
+    private int[] starts = new int[256];
+    private int count = 1;
+    private int scanned;
+
+    public LineIndex(SourceBuffer source){
+        this.source = source;
+    }
+
+    void add(int lineStart){
+        if(count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+        starts[count++] = lineStart;
+    }
+
+    // Adds the lines starting up to end, from where the last scan() stopped.
+    public void scan(int end){
+        end = Math.min(end, source.length());
+        for(int i = scanned; i < end; i++){
+            if(source.charAt(i) == '\n') add(i + 1);
+        }
+        scanned = Math.max(scanned, end);
+    }
+
+    // The index of source, which is this index's source with removed bytes at offset replaced by inserted.
+    LineIndex edited(SourceBuffer source, int offset, int removed, byte[] inserted){
+        LineIndex index = new LineIndex(source);
+        int kept = line(offset);
+        int added = 0;
+        for(byte b : inserted) if(b == '\n') added++;
+        int after = kept;
+        while(after < count && starts[after] <= offset + removed) after++;
+
+        index.starts = new int[Math.max(256, kept + added + count - after)];
+        System.arraycopy(starts, 0, index.starts, 0, kept);
+        index.count = kept;
+        for(int i = 0; i < inserted.length; i++){
+            if(inserted[i] == '\n') index.starts[index.count++] = offset + i + 1;
+        }
+        int delta = inserted.length - removed;
+        for(int i = after; i < count; i++) index.starts[index.count++] = starts[i] + delta;
+
+        index.scanned = source.length();
+        return index;
+    }
+
+    // message with the number after its first "at line " moved by lines, as when lines were inserted above it.
+    public static String movedLine(String message, int lines){
+        int at = message.indexOf("at line ");
+        if(at < 0) return message;
+
+        int from = at + "at line ".length();
+        int to = from;
+        while(to < message.length() && Character.isDigit(message.charAt(to))) to++;
+        if(to == from) return message;
+        return message.substring(0, from) + (Integer.parseInt(message.substring(from, to)) + lines) + message.substring(to);
+    }
+
+    public int line(int offset){
+        int low = 0;
+        int high = count - 1;
+        while(low < high){
+            int middle = (low + high + 1) >>> 1;
+            if(starts[middle] <= offset) low = middle;
+            else high = middle - 1;
+        }
+        return low + 1;
+    }
+
+    public int lineCount(){
+        return count;
+    }
+
+    // Offset of the first character of line, counting from 1.
+    public int lineStart(int line){
+        return starts[line - 1];
+    }
+
+    public int column(int offset){
+        return offset - starts[line(offset) - 1] + 1;
+    }
+
+    // The line holding the start of span with the span underlined, each indented by four spaces:
+    //
+    //     a = "text" + 1;
+    //         ^~~~~~
+    public String excerpt(long span){
+        int offset = Span.offset(span);
+        int lineStart = starts[line(offset) - 1];
+        int from = offset - lineStart > BEFORE_SPAN ? offset - BEFORE_SPAN : lineStart;
+
+        int to = from;
+        int limit = Math.min(source.length(), from + MAX_EXCERPT);
+        while(to < limit && source.charAt(to) != '\n') to++;
+        int end = to;
+        if(end > from && source.charAt(end - 1) == '\r') end--;
+
+        StringBuilder text = new StringBuilder("    ");
+        StringBuilder marker = new StringBuilder("    ");
+        if(from > lineStart){
+            text.append("...");
+            marker.append("   ");
+        }
+        text.append(source.substring(from, end - from));
+        if(to == limit && to < source.length() && source.charAt(to) != '\n') text.append("...");
+
+        for(int i = from; i < offset && i < end; i++) marker.append(source.charAt(i) == '\t' ? '\t' : ' ');
+        marker.append('^');
+        for(int i = offset + 1; i < Math.min(Span.end(span), end); i++) marker.append('~');
+
+        return text.append(System.lineSeparator()).append(marker).toString();
+    }
+}
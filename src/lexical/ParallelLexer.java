@@ -0,0 +1,319 @@
+package lexical;
+
+import java.io.EOFException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Lexes a large source in chunks on a ForkJoinPool while the parser consumes the tokens in order.
+//
+// A chunk is lexed speculatively, as if its first byte started a token. Between two tokens LexicalAnalysis
+// keeps nothing but its position and line counter, so once the real token stream and a speculative one call
+// nextToken() at the same position they produce the same tokens from there on, with line numbers a constant
+// apart. The previous chunk is lexed past the boundary until it gets there; when that position is not one the
+// speculation went through (the boundary fell inside a literal, a comment or a token the speculation read
+// differently), the chunk is lexed again from the right position and line, only until the two streams meet.
+//
+// Exceptions are kept in place of their token and rethrown as is. Their messages carry the line of the lexer
+// that threw them, so a speculative one is only used when its line numbers needed no shifting.
+// Identifiers are interned by the consumer, in source order, so symbol ids match those of a plain lexer.
+// The LineIndex is the consumer's own, filled from the source when it is asked for.
+//
+// close() must be called before the SourceBuffer is closed, whether or not the input was read to its end.
+public final class ParallelLexer implements TokenSource {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final SourceBuffer input;
+    private final SymbolTable st;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final LineIndex lineIndex;
+
+    // Speculative chunks handed to the pool, indexed by chunk number modulo their count.
+    private final CompletableFuture<?>[] inFlight;
+    private int nextSubmit;
+    private int nextChunk;
+    private volatile boolean closed;
+
+    // Tokens being served: chunk entries [index, limit), their lines shifted by offset.
+    private Chunk chunk;
+    private int index;
+    private int limit;
+    private int offset;
+    private int line = 1;
+    private long span = Span.NONE;
+    private boolean finished;
+
+    public ParallelLexer(SourceBuffer input, SymbolTable st){
+        this(input, st, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelLexer(SourceBuffer input, SymbolTable st, ForkJoinPool pool, int chunkSize){
+        if(chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        this.input = input;
+        this.st = st;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.lineIndex = new LineIndex(input);
+        this.chunkCount = Math.max(1, (int) ((input.length() + (long) chunkSize - 1) / chunkSize));
+        this.inFlight = new CompletableFuture<?>[Math.min(chunkCount, Math.max(2, 2 * pool.getParallelism()))];
+        this.chunk = Chunk.empty(0, 1);
+
+        while(nextSubmit < inFlight.length) submit();
+    }
+
+    @Override
+    public Token nextToken() throws EOFException{
+        while(index == limit){
+            if(finished) return Token.of(TokenType.END_OF_FILE);
+            nextSegment();
+        }
+
+        int i = index++;
+        line = chunk.lines[i] + offset;
+        span = chunk.spans[i];
+        Throwable error = chunk.errors == null ? null : chunk.errors[i];
+        Token token = chunk.tokens[i];
+        chunk.tokens[i] = null;
+
+        if(error == null){
+            if(token.getType() == TokenType.END_OF_FILE) finished = true;
+            else if(token.getType() == TokenType.IDENTIFIER) intern((WordToken) token);
+            return token;
+        }
+
+        if(error instanceof EOFException){
+            finished = true;
+            throw (EOFException) error;
+        }
+        throw (RuntimeException) error;
+    }
+
+    @Override
+    public int getLineCounter(){
+        return line;
+    }
+
+    @Override
+    public long getTokenSpan(){
+        return span;
+    }
+
+    @Override
+    public LineIndex getLineIndex(){
+        if(span >= 0) lineIndex.scan(Span.end(span));
+        return lineIndex;
+    }
+
+    // Stops the chunks still being lexed and waits for them; tokens not read yet are dropped.
+    public void close(){
+        closed = true;
+        for(int i = 0; i < inFlight.length; i++){
+            if(inFlight[i] == null) continue;
+            try{
+                inFlight[i].join();
+            }catch(CompletionException e){
+                // Nobody is going to read the chunk.
+            }
+            inFlight[i] = null;
+        }
+    }
+
+    private void intern(WordToken token){
+        token.setSymbolId(st.intern(input, token.getStart(), token.getLength()));
+    }
+
+    // Moves to the tokens after the current segment: the rest of a chunk a re-lex caught up with, or the next chunk.
+    private void nextSegment(){
+        if(chunk.next != null){
+            index = chunk.nextIndex;
+            offset = chunk.nextOffset;
+            chunk = chunk.next;
+            limit = chunk.size;
+            return;
+        }
+        if(chunk.complete){
+            finished = true;
+            return;
+        }
+
+        // Where the real token stream stands: the position of the next nextToken() call and its line.
+        int position = chunk.stop;
+        int stopLine = chunk.stopLine + offset;
+        Chunk speculative = take();
+
+        if(position >= speculative.end){
+            // A literal or comment spanning the whole chunk.
+            chunk = Chunk.empty(position, stopLine);
+            index = limit = offset = 0;
+            return;
+        }
+
+        int j = speculative.find(position);
+        if(j >= 0 && speculative.fits(j, stopLine)){
+            chunk = speculative;
+            index = j;
+            offset = stopLine - speculative.lineBefore(j);
+        }else{
+            chunk = lex(input.duplicate(), position, speculative.end, stopLine, speculative);
+            index = offset = 0;
+        }
+        limit = chunk.size;
+    }
+
+    private void submit(){
+        int start = nextSubmit * chunkSize;
+        // The last chunk runs to the end of the file.
+        int end = nextSubmit == chunkCount - 1 ? Integer.MAX_VALUE : start + chunkSize;
+        SourceBuffer source = input.duplicate();
+
+        inFlight[nextSubmit % inFlight.length] = CompletableFuture.supplyAsync(() -> lex(source, start, end, 1, null), pool);
+        nextSubmit++;
+    }
+
+    private Chunk take(){
+        int slot = nextChunk % inFlight.length;
+        CompletableFuture<?> future = inFlight[slot];
+        inFlight[slot] = null;
+        nextChunk++;
+        if(nextSubmit < chunkCount) submit();
+
+        try{
+            return (Chunk) future.join();
+        }catch(CompletionException e){
+            if(e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    // Lexes from start with the line counter at line until a call to nextToken() would start at end or later,
+    // or until it reaches a position of sync from where sync's tokens can be used instead.
+    private Chunk lex(SourceBuffer source, int start, int end, int line, Chunk sync){
+        LexicalAnalysis lexer = new LexicalAnalysis(source, null, start, line);
+        Chunk chunk = new Chunk(start, end, line);
+
+        while(true){
+            int position = lexer.position();
+            if(position >= end || (chunk.size & 1023) == 0 && closed){
+                chunk.stop = position;
+                chunk.stopLine = lexer.getLineCounter();
+                return chunk;
+            }
+            if(sync != null && chunk.size > 0){
+                int j = sync.find(position);
+                if(j >= 0 && sync.fits(j, lexer.getLineCounter())){
+                    chunk.next = sync;
+                    chunk.nextIndex = j;
+                    chunk.nextOffset = lexer.getLineCounter() - sync.lineBefore(j);
+                    return chunk;
+                }
+            }
+
+            try{
+                Token token = lexer.nextToken();
+                chunk.add(position, token, null, lexer.getLineCounter(), lexer.getTokenSpan());
+                if(token.getType() == TokenType.END_OF_FILE) break;
+            }catch(EOFException e){
+                chunk.add(position, null, e, lexer.getLineCounter(), lexer.getTokenSpan());
+                break;
+            }catch(RuntimeException e){
+                chunk.add(position, null, e, lexer.getLineCounter(), lexer.getTokenSpan());
+            }
+        }
+
+        chunk.complete = true;
+        chunk.stop = lexer.position();
+        chunk.stopLine = lexer.getLineCounter();
+        return chunk;
+    }
+
+    // The nextToken() calls of one lexer: where each started, what it returned or threw, its span and the line
+    // after it.
+    private static final class Chunk {
+        final int start;
+        final int end;
+        final int startLine;
+
+        int size;
+        int[] positions;
+        Token[] tokens;
+        int[] lines;
+        long[] spans;
+        Throwable[] errors;
+        int lastError = -1;
+
+        // Where the next call would have started, and its line; complete once END_OF_FILE or EOFException came.
+        int stop;
+        int stopLine;
+        boolean complete;
+
+        // Set when a re-lex met the speculative tokens of the chunk.
+        Chunk next;
+        int nextIndex;
+        int nextOffset;
+
+        Chunk(int start, int end, int startLine){
+            this.start = start;
+            this.end = end;
+            this.startLine = startLine;
+            this.positions = new int[64];
+            this.tokens = new Token[64];
+            this.lines = new int[64];
+            this.spans = new long[64];
+        }
+
+        static Chunk empty(int position, int line){
+            Chunk chunk = new Chunk(position, position, line);
+            chunk.stop = position;
+            chunk.stopLine = line;
+            return chunk;
+        }
+
+        void add(int position, Token token, Throwable error, int line, long span){
+            if(size == tokens.length){
+                int capacity = size * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                tokens = Arrays.copyOf(tokens, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                spans = Arrays.copyOf(spans, capacity);
+                if(errors != null) errors = Arrays.copyOf(errors, capacity);
+            }
+            if(error != null){
+                if(errors == null) errors = new Throwable[tokens.length];
+                errors[size] = error;
+                lastError = size;
+            }
+            positions[size] = position;
+            tokens[size] = token;
+            lines[size] = line;
+            spans[size] = span;
+            size++;
+        }
+
+        // The entry whose call started at position, or -1.
+        int find(int position){
+            int low = 0;
+            int high = size - 1;
+            while(low <= high){
+                int middle = (low + high) >>> 1;
+                if(positions[middle] < position) low = middle + 1;
+                else if(positions[middle] > position) high = middle - 1;
+                else return middle;
+            }
+            return -1;
+        }
+
+        int lineBefore(int entry){
+            return entry == 0 ? startLine : lines[entry - 1];
+        }
+
+        // Whether the entries from entry on can be served when the real stream is at line there.
+        boolean fits(int entry, int line){
+            return lastError < entry || line == lineBefore(entry);
+        }
+    }
+}
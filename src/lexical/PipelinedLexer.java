@@ -0,0 +1,209 @@
+package lexical;
+
+import java.io.EOFException;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs LexicalAnalysis on its own thread, ahead of the parser. Tokens go through a bounded
+// single-producer/single-consumer ring and are published in batches of BATCH, so the threads only meet
+// on a volatile index every few hundred tokens; a full ring stops the lexer until the parser catches up.
+//
+// Each slot carries the token, its span, the line the lexer was at after producing it, and the exception it
+// threw instead, if any, which nextToken() rethrows as is: diagnostics read exactly as with a plain lexer.
+// The LineIndex is the consumer's own, filled from the source when it is asked for.
+// Identifiers are interned by the consumer, so the SymbolTable is only ever used by the parser's thread.
+//
+// close() must be called before the SourceBuffer is closed, whether or not the input was read to its end.
+public final class PipelinedLexer implements TokenSource {
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH = 256;
+    // Spinning only helps when the other thread is running on another core.
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 1 << 10 : 0;
+    private static final long PARK_NANOS = 100_000;
+
+    private final Token[] tokens = new Token[CAPACITY];
+    private final int[] lines = new int[CAPACITY];
+    private final long[] spans = new long[CAPACITY];
+    private final Throwable[] errors = new Throwable[CAPACITY];
+
+    // Next slot to fill and next slot to read; only advanced in whole batches, except at the end.
+    private volatile long tail;
+    private volatile long head;
+    private volatile boolean producerWaiting;
+    private volatile boolean consumerWaiting;
+    private volatile boolean closed;
+    private volatile Thread consumer;
+
+    private final SourceBuffer input;
+    private final SymbolTable st;
+    private final Thread producer;
+    private final LineIndex lineIndex;
+
+    // Consumer side.
+    private long readIndex;
+    private long cachedTail;
+    private int line = 1;
+    private long span = Span.NONE;
+    private boolean finished;
+
+    public PipelinedLexer(SourceBuffer input, SymbolTable st){
+        this.input = input;
+        this.st = st;
+        this.lineIndex = new LineIndex(input);
+        this.producer = new Thread(this::produce, "pipelined-lexer");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @Override
+    public Token nextToken() throws EOFException{
+        if(finished) return Token.of(TokenType.END_OF_FILE);
+        if(readIndex == cachedTail) awaitTokens();
+
+        int slot = (int) (readIndex & MASK);
+        Token token = tokens[slot];
+        Throwable error = errors[slot];
+        line = lines[slot];
+        span = spans[slot];
+        tokens[slot] = null;
+        errors[slot] = null;
+
+        readIndex++;
+        if((readIndex & (BATCH - 1)) == 0) releaseSlots();
+
+        if(error == null){
+            if(token.getType() == TokenType.END_OF_FILE) finished = true;
+            else if(token.getType() == TokenType.IDENTIFIER) intern((WordToken) token);
+            return token;
+        }
+
+        if(error instanceof EOFException){
+            finished = true;
+            throw (EOFException) error;
+        }
+        if(error instanceof RuntimeException) throw (RuntimeException) error;
+
+        finished = true;
+        throw (Error) error;
+    }
+
+    @Override
+    public int getLineCounter(){
+        return line;
+    }
+
+    @Override
+    public long getTokenSpan(){
+        return span;
+    }
+
+    @Override
+    public LineIndex getLineIndex(){
+        if(span >= 0) lineIndex.scan(Span.end(span));
+        return lineIndex;
+    }
+
+    // Stops the lexer thread and waits for it; tokens not read yet are dropped.
+    public void close(){
+        closed = true;
+        LockSupport.unpark(producer);
+
+        boolean interrupted = false;
+        while(producer.isAlive()){
+            try{
+                producer.join();
+            }catch(InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void intern(WordToken token){
+        token.setSymbolId(st.intern(input, token.getStart(), token.getLength()));
+    }
+
+    private void awaitTokens(){
+        if(consumer == null) consumer = Thread.currentThread();
+        // Slots read so far are handed back first, or a lexer waiting for room would never get it.
+        releaseSlots();
+
+        for(int spins = 0; (cachedTail = tail) == readIndex; spins++){
+            if(spins < SPINS){
+                Thread.onSpinWait();
+                continue;
+            }
+            consumerWaiting = true;
+            if(tail == readIndex) LockSupport.parkNanos(this, PARK_NANOS);
+            consumerWaiting = false;
+        }
+    }
+
+    private void releaseSlots(){
+        head = readIndex;
+        if(producerWaiting) LockSupport.unpark(producer);
+    }
+
+    // Producer side: runs until END_OF_FILE, an unexpected end of file, an Error or close().
+    private void produce(){
+        LexicalAnalysis lexer = new LexicalAnalysis(input, null);
+        long writeIndex = 0;
+        long cachedHead = 0;
+
+        while(!closed){
+            if(writeIndex - cachedHead == CAPACITY){
+                publish(writeIndex);
+                cachedHead = awaitRoom(writeIndex);
+                if(closed) return;
+            }
+
+            int slot = (int) (writeIndex & MASK);
+            boolean last = false;
+            try{
+                Token token = lexer.nextToken();
+                tokens[slot] = token;
+                last = token.getType() == TokenType.END_OF_FILE;
+            }catch(EOFException e){
+                errors[slot] = e;
+                last = true;
+            }catch(RuntimeException e){
+                errors[slot] = e;
+            }catch(Error e){
+                errors[slot] = e;
+                last = true;
+            }
+            lines[slot] = lexer.getLineCounter();
+            spans[slot] = lexer.getTokenSpan();
+            writeIndex++;
+
+            if(last){
+                publish(writeIndex);
+                return;
+            }
+            if((writeIndex & (BATCH - 1)) == 0) publish(writeIndex);
+        }
+    }
+
+    private void publish(long writeIndex){
+        tail = writeIndex;
+        if(consumerWaiting){
+            Thread waiting = consumer;
+            if(waiting != null) LockSupport.unpark(waiting);
+        }
+    }
+
+    private long awaitRoom(long writeIndex){
+        long cachedHead;
+        for(int spins = 0; writeIndex - (cachedHead = head) == CAPACITY && !closed; spins++){
+            if(spins < SPINS){
+                Thread.onSpinWait();
+                continue;
+            }
+            producerWaiting = true;
+            if(writeIndex - head == CAPACITY && !closed) LockSupport.parkNanos(this, PARK_NANOS);
+            producerWaiting = false;
+        }
+        return cachedHead;
+    }
+}
@@ -0,0 +1,155 @@
+package lexical;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.zip.Checksum;
+
+public class SourceBuffer {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private ByteBuffer buffer;
+    private int limit;
+    private int cursor;
+
+    private SourceBuffer(ByteBuffer buffer){
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.cursor = 0;
+    }
+
+    public static SourceBuffer open(String filePath) throws IOException{
+        return open(Paths.get(filePath));
+    }
+
+    // Regular files are mapped in memory, anything else (pipes, stdin, devices) is read into a heap buffer.
+    public static SourceBuffer open(Path path) throws IOException{
+        if(!Files.isRegularFile(path)){
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+                return read(channel);
+            }
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) throw new IOException("File " + path + " is too large");
+            if(size == 0) return new SourceBuffer(ByteBuffer.allocate(0));
+
+            return new SourceBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    // Sources are ISO-8859-1: one byte per character, so lexemes can be compared and sliced by offset.
+    public static SourceBuffer of(CharSequence text){
+        return wrap(text.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    public static SourceBuffer wrap(byte[] bytes){
+        return new SourceBuffer(ByteBuffer.wrap(bytes));
+    }
+
+    // Covers the remaining bytes of buffer; its position and limit are left untouched.
+    public static SourceBuffer wrap(ByteBuffer buffer){
+        return new SourceBuffer(buffer.slice());
+    }
+
+    public static SourceBuffer read(ReadableByteChannel channel) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+        while(channel.read(buffer) >= 0){
+            if(!buffer.hasRemaining()){
+                if(buffer.capacity() == Integer.MAX_VALUE) throw new IOException("Input is too large");
+
+                ByteBuffer larger = ByteBuffer.allocate((int) Math.min(2L * buffer.capacity(), Integer.MAX_VALUE));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        buffer.flip();
+        return new SourceBuffer(buffer);
+    }
+
+    // Shares the bytes with a cursor of its own, so one source can be scanned from several threads.
+    public SourceBuffer duplicate(){
+        return new SourceBuffer(buffer.duplicate());
+    }
+
+    // Faults in every page of a mapped file now rather than while scanning, so reading is timed apart from lexing.
+    public void load(){
+        if(buffer instanceof MappedByteBuffer) ((MappedByteBuffer) buffer).load();
+    }
+
+    // Feeds the whole source to digest, wherever the cursor is.
+    public void digest(MessageDigest digest){
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(limit);
+        digest.update(view);
+    }
+
+    public void checksum(Checksum checksum){
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(limit);
+        checksum.update(view);
+    }
+
+    public int read(){
+        if(cursor >= limit){
+            cursor = limit + 1;
+            return -1;
+        }
+        return buffer.get(cursor++) & 0xFF;
+    }
+
+    // Steps the cursor back over the last character returned by read(), including END OF FILE.
+    public void rewind(){
+        cursor--;
+    }
+
+    public int charAt(int index){
+        return buffer.get(index) & 0xFF;
+    }
+
+    public String substring(int start, int length){
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    public boolean regionMatches(int start, int length, String s){
+        if(length != s.length()) return false;
+
+        for(int i = 0; i < length; i++){
+            if((buffer.get(start + i) & 0xFF) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public void seek(int position){
+        cursor = position;
+    }
+
+    public int position(){
+        return Math.min(cursor, limit);
+    }
+
+    public int length(){
+        return limit;
+    }
+
+    public void close(){
+        buffer = null;
+        limit = 0;
+        cursor = 0;
+    }
+}
@@ -0,0 +1,26 @@
+package lexical;
+
+// A source range packed in a long, offset in the high half and length in the low half, so positions can be
+// passed around and stored per token without an object. Negative means no position.
+public final class Span {
+
+    public static final long NONE = -1L;
+
+    public static long of(int offset, int length){
+        return (long) offset << 32 | length & 0xFFFFFFFFL;
+    }
+
+    public static int offset(long span){
+        return (int) (span >>> 32);
+    }
+
+    public static int length(long span){
+        return (int) span;
+    }
+
+    public static int end(long span){
+        return offset(span) + length(span);
+    }
+
+    private Span(){}
+}
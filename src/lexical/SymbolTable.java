@@ -2,54 +2,280 @@ package lexical;
 
 import semantic.Type;
 import semantic.Class;
-import java.util.HashMap;
+import java.util.Arrays;
 
 
+// Identifiers are interned to dense ids while lexing; every column is a primitive array indexed by id.
+//
+// The columns hold the innermost binding of every identifier, so a lookup costs the same at any nesting depth.
+// declare() inside a block starts a new binding of an identifier: the one it shadows is pushed on an undo log,
+// where the bindings of an identifier form a chain from the innermost out, and exitScope() pops the bindings of
+// the block back into the columns. Entering a block is O(1) and leaving it costs one pop per identifier it
+// declared, whatever the depth. Outside any block the columns are the global scope, as they always were.
 public class SymbolTable {
 
-    private class Columns{
-        //ST columns:
-        public Type type;
-        public Class idClass;
-        public int offset;
+    // Type and Class columns hold ordinals, UNDEFINED until the identifier is declared.
+    private static final byte UNDEFINED = -1;
 
-        public Columns(){
-            type = null;
-            idClass = null;
-            offset = 0;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final Type[] TYPES = Type.values();
+    private static final Class[] CLASSES = Class.values();
+
+    //ST columns:
+    private byte[] types;
+    private byte[] classes;
+    private int[] offsets;
+    // Depth of the block of the binding in the columns, 0 for the global scope.
+    private int[] scopes;
+
+    private String[] names;
+    private int[] hashes;
+    private int size;
+
+    // Open addressing: slot -> id + 1, 0 when empty.
+    private int[] slots;
+
+    // Shadowed bindings, innermost last, and where the log stood when each open block was entered.
+    private int[] logIds;
+    private byte[] logTypes;
+    private byte[] logClasses;
+    private int[] logOffsets;
+    private int[] logScopes;
+    private int logSize;
+    private int[] marks;
+    private int depth;
+
+    private long lookups;
+    private long probes;
+
+    public SymbolTable(){
+        types = new byte[INITIAL_CAPACITY];
+        classes = new byte[INITIAL_CAPACITY];
+        offsets = new int[INITIAL_CAPACITY];
+        scopes = new int[INITIAL_CAPACITY];
+        names = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
+        size = 0;
+
+        logIds = new int[INITIAL_CAPACITY];
+        logTypes = new byte[INITIAL_CAPACITY];
+        logClasses = new byte[INITIAL_CAPACITY];
+        logOffsets = new int[INITIAL_CAPACITY];
+        logScopes = new int[INITIAL_CAPACITY];
+        marks = new int[INITIAL_CAPACITY];
+    }
+
+    public int intern(SourceBuffer source, int start, int length){
+        int hash = 0;
+        for(int i = start; i < start + length; i++) hash = 31 * hash + source.charAt(i);
+
+        int mask = slots.length - 1;
+        lookups++;
+        for(int slot = mix(hash) & mask; ; slot = (slot + 1) & mask){
+            probes++;
+            int id = slots[slot] - 1;
+            if(id < 0) return add(source.substring(start, length), hash, slot);
+            if(hashes[id] == hash && source.regionMatches(start, length, names[id])) return id;
         }
     }
 
-    private HashMap<String,Columns> symbolTable;
+    public int intern(String name){
+        int hash = name.hashCode();
 
-    public SymbolTable(){
-        symbolTable = new HashMap<String,Columns>();
+        int mask = slots.length - 1;
+        lookups++;
+        for(int slot = mix(hash) & mask; ; slot = (slot + 1) & mask){
+            probes++;
+            int id = slots[slot] - 1;
+            if(id < 0) return add(name, hash, slot);
+            if(hashes[id] == hash && names[id].equals(name)) return id;
+        }
+    }
+
+    private static int mix(int hash){
+        return hash ^ (hash >>> 16);
+    }
+
+    private int add(String name, int hash, int slot){
+        int id = size++;
+        if(id == names.length) grow();
+
+        names[id] = name;
+        hashes[id] = hash;
+        types[id] = UNDEFINED;
+        classes[id] = UNDEFINED;
+        offsets[id] = 0;
+        scopes[id] = 0;
+
+        if(size * 2 > slots.length){
+            rehash();
+        }else{
+            slots[slot] = id + 1;
+        }
+        return id;
+    }
+
+    private void grow(){
+        int capacity = names.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        classes = Arrays.copyOf(classes, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        scopes = Arrays.copyOf(scopes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+    }
+
+    private void rehash(){
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+
+        for(int id = 0; id < size; id++){
+            int slot = mix(hashes[id]) & mask;
+            while(slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // Forgets every declaration and leaves every block; the identifiers stay interned under the same ids.
+    public void undefineAll(){
+        Arrays.fill(types, 0, size, UNDEFINED);
+        Arrays.fill(classes, 0, size, UNDEFINED);
+        Arrays.fill(offsets, 0, size, 0);
+        Arrays.fill(scopes, 0, size, 0);
+        logSize = 0;
+        depth = 0;
+    }
+
+    public void enterScope(){
+        if(depth == marks.length) marks = Arrays.copyOf(marks, depth * 2);
+        marks[depth++] = logSize;
+    }
+
+    // Drops the bindings declared since the matching enterScope(), bringing back those they shadowed.
+    public void exitScope(){
+        if(depth == 0) throw new IllegalStateException("No scope to exit");
+
+        int mark = marks[--depth];
+        while(logSize > mark){
+            int i = --logSize;
+            int id = logIds[i];
+            types[id] = logTypes[i];
+            classes[id] = logClasses[i];
+            offsets[id] = logOffsets[i];
+            scopes[id] = logScopes[i];
+        }
+    }
+
+    // Blocks entered and not left; 0 in the global scope.
+    public int scopeDepth(){
+        return depth;
+    }
+
+    // Starts a binding of id in the current block, undefined until its type and class are set, shadowing any
+    // binding from an enclosing one. In the global scope, or for an identifier the block already declared, the
+    // binding is the one in place.
+    public void declare(int id){
+        if(depth == 0 || scopes[id] == depth) return;
+
+        if(logSize == logIds.length){
+            int capacity = logSize * 2;
+            logIds = Arrays.copyOf(logIds, capacity);
+            logTypes = Arrays.copyOf(logTypes, capacity);
+            logClasses = Arrays.copyOf(logClasses, capacity);
+            logOffsets = Arrays.copyOf(logOffsets, capacity);
+            logScopes = Arrays.copyOf(logScopes, capacity);
+        }
+        int i = logSize++;
+        logIds[i] = id;
+        logTypes[i] = types[id];
+        logClasses[i] = classes[id];
+        logOffsets[i] = offsets[id];
+        logScopes[i] = scopes[id];
+
+        types[id] = UNDEFINED;
+        classes[id] = UNDEFINED;
+        offsets[id] = 0;
+        scopes[id] = depth;
+    }
+
+    // Whether declaring id here would redeclare it rather than shadow it.
+    public boolean isDeclaredInScope(int id){
+        return depth == 0 ? isDefined(id) : scopes[id] == depth;
+    }
+
+    // Calls to intern() and slots they inspected; probes / lookups near 1 means few collisions.
+    public long lookups(){
+        return lookups;
+    }
+
+    public long probes(){
+        return probes;
+    }
+
+    public String getName(int id){
+        return names[id];
+    }
+
+    public boolean isDefined(int id){
+        return classes[id] != UNDEFINED || types[id] != UNDEFINED;
+    }
+
+    public Type typeOf(int id){
+        return types[id] == UNDEFINED ? null : TYPES[types[id]];
+    }
+
+    public Class classOf(int id){
+        return classes[id] == UNDEFINED ? null : CLASSES[classes[id]];
+    }
+
+    public int offsetOf(int id){
+        return offsets[id];
+    }
+
+    public void setType(int id, Type type){
+        types[id] = (byte) type.ordinal();
+    }
+
+    public void setClass(int id, Class idClass){
+        classes[id] = (byte) idClass.ordinal();
+    }
+
+    public void setOffset(int id, int offset){
+        offsets[id] = offset;
+    }
+
+    private int idOf(WordToken token){
+        return token.getSymbolId() >= 0 ? token.getSymbolId() : intern(token.getLexeme());
     }
 
     public void put(WordToken token){
-        if(symbolTable.get(token.getLexeme()) == null) symbolTable.put(token.getLexeme(), new Columns());
+        idOf(token);
+    }
+
+    public void declare(WordToken token){
+        declare(idOf(token));
     }
 
     public void updateType(WordToken token, Type type){
-        Columns info = symbolTable.get(token.getLexeme());
-        info.type = type;
-        symbolTable.replace(token.getLexeme(), info);
+        setType(idOf(token), type);
     }
 
     public void updateClass(WordToken token, Class idClass){
-        Columns info = symbolTable.get(token.getLexeme());
-        info.idClass = idClass;
-        symbolTable.replace(token.getLexeme(), info);
+        setClass(idOf(token), idClass);
     }
 
     public Type getType(WordToken token){
-        Columns c = symbolTable.get(token.getLexeme());
-        return c.type;
+        return typeOf(idOf(token));
     }
 
     public Class getClass(WordToken token){
-        Columns c = symbolTable.get(token.getLexeme());
-        return c.idClass;
+        return classOf(idOf(token));
     }
 
 }
@@ -2,12 +2,23 @@ package lexical;
 
 public class Token {
     
-    protected TokenType type;
+    protected final TokenType type;
+
+    // Tokens without payload are immutable, so a single instance per TokenType is shared.
+    private static final Token[] SHARED = new Token[TokenType.values().length];
+
+    static{
+        for(TokenType type : TokenType.values()) SHARED[type.ordinal()] = new Token(type);
+    }
 
     public Token(TokenType type){
         this.type = type;
     }
 
+    public static Token of(TokenType type){
+        return SHARED[type.ordinal()];
+    }
+
     public TokenType getType() {
         return type;
     }
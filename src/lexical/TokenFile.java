@@ -0,0 +1,300 @@
+package lexical;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// The tokens of a source in a file, so tools can read them without lexing: write() lexes a source once,
+// open() maps the file and reads the tokens in place, and reader() serves them to a parser as a TokenSource.
+//
+// Every nextToken() call of LexicalAnalysis is one entry, exceptions included: its TokenType ordinal (an
+// exception is UNEXPECTED_EOF when it was an EOFException, INVALID_TOKEN otherwise), its span, the line counter
+// after it and a payload. The payload of identifiers, literals and exceptions is a string number, of constants
+// their raw int or float bits. Identifier names, literal contents and exception messages are stored once each,
+// in ISO-8859-1 like the source. Big-endian layout, every column starting at a multiple of its width:
+//
+//     int magic, version, source length, source CRC32C, entry count, string count, string bytes, 0
+//     long spans[entries]
+//     int lines[entries]
+//     int payloads[entries]
+//     int stringStarts[strings + 1]
+//     byte types[entries]
+//     byte strings[string bytes]
+public final class TokenFile {
+
+    private static final int MAGIC = 0x544F4B53; // "TOKS"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final ByteBuffer buffer;
+    private final int sourceLength;
+    private final int sourceChecksum;
+    private final int size;
+    private final int stringCount;
+    private final int lines;
+    private final int payloads;
+    private final int stringStarts;
+    private final int types;
+    // The string bytes, for WordTokens to slice their lexemes from.
+    private final SourceBuffer strings;
+
+    private TokenFile(ByteBuffer buffer) throws IOException{
+        if(buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) throw new IOException("Not a token file");
+        if(buffer.getInt(4) != VERSION) throw new IOException("Unsupported token file version " + buffer.getInt(4));
+
+        this.buffer = buffer;
+        this.sourceLength = buffer.getInt(8);
+        this.sourceChecksum = buffer.getInt(12);
+        this.size = buffer.getInt(16);
+        this.stringCount = buffer.getInt(20);
+        int stringBytes = buffer.getInt(24);
+
+        this.lines = HEADER + 8 * size;
+        this.payloads = lines + 4 * size;
+        this.stringStarts = payloads + 4 * size;
+        this.types = stringStarts + 4 * (stringCount + 1);
+        int stringsAt = types + size;
+        if(size < 0 || stringCount < 0 || stringBytes < 0 || (long) stringsAt + stringBytes != buffer.limit()){
+            throw new IOException("Truncated token file");
+        }
+        this.strings = SourceBuffer.wrap(buffer.duplicate().position(stringsAt));
+    }
+
+    public static TokenFile open(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            if(channel.size() > Integer.MAX_VALUE) throw new IOException("File " + path + " is too large");
+            return new TokenFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Lexes source from its start and writes its tokens to path; the cursor of source is left at its end.
+    public static void write(SourceBuffer source, Path path) throws IOException{
+        Writer writer = new Writer(source);
+        writer.lex();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer out = writer.encode();
+            while(out.hasRemaining()) channel.write(out);
+        }
+    }
+
+    // Whether the tokens are those of source, as far as its length and checksum tell.
+    public boolean matches(SourceBuffer source){
+        return source.length() == sourceLength && checksum(source) == sourceChecksum;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public TokenType type(int entry){
+        return TYPES[buffer.get(types + entry)];
+    }
+
+    public long span(int entry){
+        return buffer.getLong(HEADER + 8 * entry);
+    }
+
+    // The line counter after the entry, as LexicalAnalysis.getLineCounter() had it.
+    public int line(int entry){
+        return buffer.getInt(lines + 4 * entry);
+    }
+
+    public int intValue(int entry){
+        return payload(entry);
+    }
+
+    public float floatValue(int entry){
+        return Float.intBitsToFloat(payload(entry));
+    }
+
+    // The name of an identifier, the contents of a literal or the message of an exception.
+    public String text(int entry){
+        int string = payload(entry);
+        return strings.substring(stringStart(string), stringStart(string + 1) - stringStart(string));
+    }
+
+    private int payload(int entry){
+        return buffer.getInt(payloads + 4 * entry);
+    }
+
+    private int stringStart(int string){
+        return buffer.getInt(stringStarts + 4 * string);
+    }
+
+    // Serves the tokens from the first, interning identifiers in st. source is the source the file was written
+    // from, for the LineIndex; it is not read otherwise.
+    public Reader reader(SourceBuffer source, SymbolTable st){
+        if(source.length() != sourceLength) throw new IllegalArgumentException("The tokens are not those of this source");
+        return new Reader(source, st);
+    }
+
+    public final class Reader implements TokenSource {
+
+        private final SymbolTable st;
+        private final LineIndex lineIndex;
+        // Symbol id of each string interned so far, -1 before; every name is interned once.
+        private final int[] symbolIds;
+
+        private int next;
+        private int line = 1;
+        private long span = Span.NONE;
+
+        private Reader(SourceBuffer source, SymbolTable st){
+            this.st = st;
+            this.lineIndex = new LineIndex(source);
+            this.symbolIds = new int[stringCount];
+            Arrays.fill(symbolIds, -1);
+        }
+
+        @Override
+        public Token nextToken() throws EOFException{
+            if(next == size) return Token.of(TokenType.END_OF_FILE);
+
+            int entry = next++;
+            line = line(entry);
+            span = span(entry);
+
+            TokenType type = type(entry);
+            switch(type){
+                case IDENTIFIER:
+                    int string = payload(entry);
+                    int start = stringStart(string);
+                    int length = stringStart(string + 1) - start;
+                    if(symbolIds[string] < 0) symbolIds[string] = st.intern(strings, start, length);
+                    return new WordToken(TokenType.IDENTIFIER, strings, start, length, symbolIds[string]);
+                case LITERAL:
+                    string = payload(entry);
+                    return new WordToken(TokenType.LITERAL, strings, stringStart(string), stringStart(string + 1) - stringStart(string));
+                case INTEGER_CONST:
+                    return new IntegerToken(intValue(entry));
+                case REAL_CONST:
+                    return new FloatToken(floatValue(entry));
+                case UNEXPECTED_EOF:
+                    throw new EOFException(text(entry));
+                case INVALID_TOKEN:
+                    throw new RuntimeException(text(entry));
+                default:
+                    return Token.of(type);
+            }
+        }
+
+        @Override
+        public int getLineCounter(){
+            return line;
+        }
+
+        @Override
+        public long getTokenSpan(){
+            return span;
+        }
+
+        @Override
+        public LineIndex getLineIndex(){
+            if(span >= 0) lineIndex.scan(Span.end(span));
+            return lineIndex;
+        }
+    }
+
+    private static int checksum(SourceBuffer source){
+        CRC32C crc = new CRC32C();
+        source.checksum(crc);
+        return (int) crc.getValue();
+    }
+
+    // The entries of a source as LexicalAnalysis scans it, and its strings.
+    private static final class Writer {
+        private final SourceBuffer source;
+        private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        private final StringBuilder strings = new StringBuilder();
+        private int[] stringStarts = new int[64];
+        private int stringCount;
+
+        private int size;
+        private byte[] types = new byte[1024];
+        private long[] spans = new long[1024];
+        private int[] lines = new int[1024];
+        private int[] payloads = new int[1024];
+
+        Writer(SourceBuffer source){
+            this.source = source;
+        }
+
+        void lex(){
+            LexicalAnalysis lexer = new LexicalAnalysis(source, null, 0, 1);
+            while(true){
+                try{
+                    Token token = lexer.nextToken();
+                    add(token.getType(), payload(token), lexer);
+                    if(token.getType() == TokenType.END_OF_FILE) return;
+                }catch(EOFException e){
+                    add(TokenType.UNEXPECTED_EOF, string(e.getMessage()), lexer);
+                }catch(RuntimeException e){
+                    add(TokenType.INVALID_TOKEN, string(e.getMessage()), lexer);
+                }
+            }
+        }
+
+        private int payload(Token token){
+            switch(token.getType()){
+                case IDENTIFIER:
+                case LITERAL: return string(((WordToken) token).getLexeme());
+                case INTEGER_CONST: return ((IntegerToken) token).getValue();
+                case REAL_CONST: return Float.floatToRawIntBits(((FloatToken) token).getValue());
+                default: return 0;
+            }
+        }
+
+        private int string(String text){
+            Integer id = stringIds.get(text);
+            if(id != null) return id;
+
+            if(stringCount == stringStarts.length) stringStarts = Arrays.copyOf(stringStarts, stringCount * 2);
+            stringStarts[stringCount] = strings.length();
+            strings.append(text);
+            stringIds.put(text, stringCount);
+            return stringCount++;
+        }
+
+        private void add(TokenType type, int payload, LexicalAnalysis lexer){
+            if(size == types.length){
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                spans = Arrays.copyOf(spans, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                payloads = Arrays.copyOf(payloads, capacity);
+            }
+            types[size] = (byte) type.ordinal();
+            spans[size] = lexer.getTokenSpan();
+            lines[size] = lexer.getLineCounter();
+            payloads[size] = payload;
+            size++;
+        }
+
+        ByteBuffer encode(){
+            byte[] bytes = strings.toString().getBytes(StandardCharsets.ISO_8859_1);
+            long length = HEADER + 17L * size + 4L * (stringCount + 1) + bytes.length;
+            if(length > Integer.MAX_VALUE) throw new IllegalStateException("Too many tokens for a token file");
+
+            ByteBuffer out = ByteBuffer.allocate((int) length);
+            out.putInt(MAGIC).putInt(VERSION).putInt(source.length()).putInt(checksum(source))
+               .putInt(size).putInt(stringCount).putInt(bytes.length).putInt(0);
+            out.asLongBuffer().put(spans, 0, size);
+            out.position(out.position() + 8 * size);
+            out.asIntBuffer().put(lines, 0, size).put(payloads, 0, size).put(stringStarts, 0, stringCount).put(bytes.length);
+            out.position(out.position() + 4 * (2 * size + stringCount + 1));
+            out.put(types, 0, size).put(bytes);
+            return out.flip();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package lexical;
+
+import java.io.EOFException;
+
+// What the parser needs from a scanner. LexicalAnalysis is the only scanner; decorators add to it.
+public interface TokenSource {
+
+    Token nextToken() throws EOFException;
+
+    // Line of the last character scanned.
+    int getLineCounter();
+
+    // Span of the token returned last, or of the input the last exception was thrown for; see Span.
+    long getTokenSpan();
+
+    // Lines of the source up to the token returned last.
+    LineIndex getLineIndex();
+}
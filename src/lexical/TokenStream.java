@@ -0,0 +1,410 @@
+package lexical;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// The tokens of a source that is edited in place, kept so that an edit only re-lexes around it.
+//
+// Each nextToken() call of a LexicalAnalysis over the source is an entry: where the call started, the token
+// or exception it produced, its span, the line after it and how far the automaton had looked by then.
+// Between calls LexicalAnalysis keeps nothing but its position and line, so the entries whose automaton
+// never looked at the edited bytes stay valid. Lexing restarts at the first entry that did, and stops at the
+// first call starting where an entry after the edit started: from there the old entries are reused with
+// their offsets and lines moved. Exceptions carry their line in the message, so the ones that move are
+// thrown again with the message moved as well.
+//
+// Identifiers are interned into the SymbolTable as they are scanned; the symbols of removed tokens stay.
+public final class TokenStream {
+
+    private final SymbolTable st;
+    // The source is text[0, length). Edits move its tail within the array, which is grown with room to spare,
+    // so tokens take their lexemes as soon as they are lexed.
+    private byte[] text;
+    private int length;
+    private LineIndex lines;
+
+    private final Entries entries;
+
+    // Entries [changedFrom, changedTo) are the ones the last edit re-lexed; the ones after moved by entryShift.
+    private int changedFrom;
+    private int changedTo;
+    private int entryShift;
+
+    public TokenStream(byte[] text, SymbolTable st){
+        this.st = st;
+        this.text = Arrays.copyOf(text, text.length + text.length / 2);
+        this.length = text.length;
+
+        SourceBuffer source = SourceBuffer.wrap(ByteBuffer.wrap(this.text, 0, length));
+        this.lines = new LineIndex(source);
+        lines.scan(length);
+
+        this.entries = new Entries(Math.max(64, length / 4));
+        lex(source, 0, 1, entries, -1, 0);
+        this.changedTo = entries.size;
+    }
+
+    public int length(){
+        return length;
+    }
+
+    public LineIndex getLineIndex(){
+        return lines;
+    }
+
+    public int size(){
+        return entries.size;
+    }
+
+    public int changedFrom(){
+        return changedFrom;
+    }
+
+    public int changedTo(){
+        return changedTo;
+    }
+
+    public int entryShift(){
+        return entryShift;
+    }
+
+    // Replaces the removed bytes at offset with inserted.
+    public void edit(int offset, int removed, byte[] inserted){
+        if(offset < 0 || removed < 0 || offset > length - removed){
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") of a " + length + " byte source");
+        }
+
+        int delta = inserted.length - removed;
+        if(length + delta > text.length) text = Arrays.copyOf(text, length + delta + (length + delta) / 2);
+        System.arraycopy(text, offset + removed, text, offset + inserted.length, length - offset - removed);
+        System.arraycopy(inserted, 0, text, offset, inserted.length);
+        length += delta;
+
+        SourceBuffer source = SourceBuffer.wrap(ByteBuffer.wrap(text, 0, length));
+        LineIndex editedLines = lines.edited(source, offset, removed, inserted);
+
+        // The last entry looked at the end of the input, so some entry always reaches the edit.
+        int first = entries.firstScanning(offset);
+        Entries relexed = new Entries(64);
+        int resume = lex(source, entries.position(first), entries.lineBefore(first), relexed, offset + inserted.length, delta);
+
+        int lineDelta = resume < 0 ? 0 : relexed.lineBefore(relexed.size) - entries.lineBefore(resume);
+        entries.splice(first, relexed, resume, delta, lineDelta);
+
+        changedFrom = first;
+        changedTo = first + relexed.size;
+        entryShift = resume < 0 ? 0 : changedTo - resume;
+        lines = editedLines;
+    }
+
+    // Lexes into into from position until END_OF_FILE. After the edit, that is from editEnd on, it stops at a
+    // call starting where one of the current entries started delta bytes earlier, and returns that entry.
+    private int lex(SourceBuffer source, int position, int line, Entries into, int editEnd, int delta){
+        LexicalAnalysis lexer = new LexicalAnalysis(source, st, position, line);
+        into.startLine = line;
+
+        while(true){
+            int call = lexer.position();
+            if(editEnd >= 0 && call >= editEnd){
+                int j = entries.find(call - delta);
+                if(j >= 0) return j;
+            }
+
+            try{
+                Token token = lexer.nextToken();
+                if(token instanceof WordToken) ((WordToken) token).detach(st);
+                into.add(call, token, null, lexer.getLineCounter(), lexer.getTokenSpan(), lexer.scanEnd);
+                if(token.getType() == TokenType.END_OF_FILE) return -1;
+            }catch(EOFException e){
+                into.add(call, null, e, lexer.getLineCounter(), lexer.getTokenSpan(), lexer.scanEnd);
+                return -1;
+            }catch(RuntimeException e){
+                into.add(call, null, e, lexer.getLineCounter(), lexer.getTokenSpan(), lexer.scanEnd);
+            }
+        }
+    }
+
+    // The entry of the token whose span holds offset, its end included, or -1. Errors have no token.
+    public int entryAt(int offset){
+        int low = 0;
+        int high = entries.size - 1;
+        while(low < high){
+            int middle = (low + high + 1) >>> 1;
+            if(Span.offset(entries.span(middle)) <= offset) low = middle;
+            else high = middle - 1;
+        }
+        long span = entries.span(low);
+        if(offset < Span.offset(span) || offset > Span.end(span) || entries.token(low) == null) return -1;
+        return low;
+    }
+
+    // Null for an entry that threw.
+    public Token token(int entry){
+        return entries.token(entry);
+    }
+
+    public long span(int entry){
+        return entries.span(entry);
+    }
+
+    public Reader reader(int entry){
+        return new Reader(entry);
+    }
+
+    // Replays the entries from a given one on, as the lexer produced them.
+    public final class Reader implements TokenSource {
+        private int next;
+        private int line;
+        private long span = Span.NONE;
+
+        private Reader(int entry){
+            this.next = entry;
+            this.line = entries.lineBefore(entry);
+        }
+
+        @Override
+        public Token nextToken() throws EOFException{
+            if(next >= entries.size) return Token.of(TokenType.END_OF_FILE);
+
+            int i = next++;
+            line = entries.line(i);
+            span = entries.span(i);
+
+            Throwable error = entries.error(i);
+            if(error == null) return entries.token(i);
+            if(error instanceof EOFException) throw (EOFException) error;
+            throw (RuntimeException) error;
+        }
+
+        @Override
+        public int getLineCounter(){
+            return line;
+        }
+
+        @Override
+        public long getTokenSpan(){
+            return span;
+        }
+
+        @Override
+        public LineIndex getLineIndex(){
+            return lines;
+        }
+
+        // The entry read last.
+        public int entry(){
+            return next - 1;
+        }
+    }
+
+    // The entries in a gap buffer. Entries [0, gapStart) are stored at their index; the others after the gap,
+    // from gapEnd on, with offsetBase taken from their offsets and lineBase from their lines, so an edit moves
+    // all of them by changing the bases. Only the entries between one edit and the next cross the gap.
+    private static final class Entries {
+        int size;
+        int gapStart;
+        int gapEnd;
+        int offsetBase;
+        int lineBase;
+        int startLine = 1;
+
+        int[] positions;
+        Token[] tokens;
+        Throwable[] errors;
+        long[] spans;
+        int[] lines;
+        // Running maximum of LexicalAnalysis.scanEnd, so it can be binary searched.
+        int[] scanEnds;
+        // The line an exception's message was written for, the line after the call then.
+        int[] thrownLines;
+
+        Entries(int capacity){
+            positions = new int[capacity];
+            tokens = new Token[capacity];
+            errors = new Throwable[capacity];
+            spans = new long[capacity];
+            lines = new int[capacity];
+            scanEnds = new int[capacity];
+            thrownLines = new int[capacity];
+            gapEnd = capacity;
+        }
+
+        // Adds an entry at the gap.
+        void add(int position, Token token, Throwable error, int line, long span, int scanEnd){
+            if(gapStart == gapEnd) grow();
+
+            int i = gapStart++;
+            positions[i] = position;
+            tokens[i] = token;
+            errors[i] = error;
+            spans[i] = span;
+            lines[i] = line;
+            thrownLines[i] = line;
+            scanEnds[i] = i > 0 ? Math.max(scanEnds[i - 1], scanEnd) : scanEnd;
+            size++;
+        }
+
+        private void grow(){
+            int capacity = positions.length * 2;
+            int tail = positions.length - gapEnd;
+            int end = capacity - tail;
+
+            positions = grown(positions, capacity, end);
+            tokens = grown(tokens, new Token[capacity], end);
+            errors = grown(errors, new Throwable[capacity], end);
+            spans = grown(spans, capacity, end);
+            lines = grown(lines, capacity, end);
+            scanEnds = grown(scanEnds, capacity, end);
+            thrownLines = grown(thrownLines, capacity, end);
+            gapEnd = end;
+        }
+
+        private int[] grown(int[] array, int capacity, int end){
+            int[] copy = Arrays.copyOf(array, capacity);
+            System.arraycopy(array, gapEnd, copy, end, array.length - gapEnd);
+            return copy;
+        }
+
+        private long[] grown(long[] array, int capacity, int end){
+            long[] copy = Arrays.copyOf(array, capacity);
+            System.arraycopy(array, gapEnd, copy, end, array.length - gapEnd);
+            return copy;
+        }
+
+        private <T> T[] grown(T[] array, T[] copy, int end){
+            System.arraycopy(array, 0, copy, 0, gapStart);
+            System.arraycopy(array, gapEnd, copy, end, array.length - gapEnd);
+            return copy;
+        }
+
+        private int slot(int entry){
+            return entry < gapStart ? entry : entry + gapEnd - gapStart;
+        }
+
+        int position(int entry){
+            return entry < gapStart ? positions[entry] : positions[slot(entry)] + offsetBase;
+        }
+
+        long span(int entry){
+            return entry < gapStart ? spans[entry] : spans[slot(entry)] + ((long) offsetBase << 32);
+        }
+
+        int line(int entry){
+            return entry < gapStart ? lines[entry] : lines[slot(entry)] + lineBase;
+        }
+
+        int scanEnd(int entry){
+            return entry < gapStart ? scanEnds[entry] : scanEnds[slot(entry)] + offsetBase;
+        }
+
+        Token token(int entry){
+            return tokens[slot(entry)];
+        }
+
+        // The exception, its message moved to the entry's line if that moved since.
+        Throwable error(int entry){
+            int i = slot(entry);
+            if(errors[i] == null) return null;
+
+            int line = line(entry);
+            if(thrownLines[i] != line){
+                String message = LineIndex.movedLine(errors[i].getMessage(), line - thrownLines[i]);
+                errors[i] = errors[i] instanceof EOFException ? new EOFException(message) : new RuntimeException(message);
+                thrownLines[i] = line;
+            }
+            return errors[i];
+        }
+
+        int lineBefore(int entry){
+            return entry == 0 ? startLine : line(entry - 1);
+        }
+
+        // The entry whose call started at position, or -1.
+        int find(int position){
+            int low = 0;
+            int high = size - 1;
+            while(low <= high){
+                int middle = (low + high) >>> 1;
+                int at = position(middle);
+                if(at < position) low = middle + 1;
+                else if(at > position) high = middle - 1;
+                else return middle;
+            }
+            return -1;
+        }
+
+        // The first entry whose automaton looked at offset.
+        int firstScanning(int offset){
+            int low = 0;
+            int high = size - 1;
+            while(low < high){
+                int middle = (low + high) >>> 1;
+                if(scanEnd(middle) > offset) high = middle;
+                else low = middle + 1;
+            }
+            return low;
+        }
+
+        // Moves the gap to entry, converting the entries that cross it.
+        private void moveGap(int entry){
+            long spanBase = (long) offsetBase << 32;
+            while(gapStart > entry){
+                gapStart--;
+                gapEnd--;
+                move(gapStart, gapEnd);
+                positions[gapEnd] -= offsetBase;
+                spans[gapEnd] -= spanBase;
+                lines[gapEnd] -= lineBase;
+                scanEnds[gapEnd] -= offsetBase;
+            }
+            while(gapStart < entry){
+                move(gapEnd, gapStart);
+                positions[gapStart] += offsetBase;
+                spans[gapStart] += spanBase;
+                lines[gapStart] += lineBase;
+                scanEnds[gapStart] += offsetBase;
+                gapStart++;
+                gapEnd++;
+            }
+        }
+
+        private void move(int from, int to){
+            if(from == to) return;
+            positions[to] = positions[from];
+            tokens[to] = tokens[from];
+            errors[to] = errors[from];
+            spans[to] = spans[from];
+            lines[to] = lines[from];
+            scanEnds[to] = scanEnds[from];
+            thrownLines[to] = thrownLines[from];
+            tokens[from] = null;
+            errors[from] = null;
+        }
+
+        // Replaces entries [from, resume) with relexed and moves the ones from resume on by delta bytes and
+        // lineDelta lines. Without resume, the entries from from on are replaced.
+        void splice(int from, Entries relexed, int resume, int delta, int lineDelta){
+            moveGap(from);
+
+            int removed = resume < 0 ? size - from : resume - from;
+            for(int i = gapEnd; i < gapEnd + removed; i++){
+                tokens[i] = null;
+                errors[i] = null;
+            }
+            gapEnd += removed;
+            size -= removed;
+            offsetBase += delta;
+            lineBase += lineDelta;
+
+            for(int i = 0; i < relexed.size; i++){
+                add(relexed.positions[i], relexed.tokens[i], relexed.errors[i], relexed.lines[i], relexed.spans[i], relexed.scanEnds[i]);
+                thrownLines[gapStart - 1] = relexed.thrownLines[i];
+            }
+
+            // Keep scanEnds a running maximum past the relexed entries.
+            int previous = gapStart > 0 ? scanEnds[gapStart - 1] : 0;
+            for(int i = gapEnd; i < positions.length && scanEnds[i] + offsetBase < previous; i++) scanEnds[i] = previous - offsetBase;
+        }
+    }
+}
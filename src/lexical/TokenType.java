@@ -59,12 +59,14 @@ public enum TokenType {
     
     final String lexeme;
 
+    private static final TokenType[] VALUES = values();
+
     private TokenType(String lex){
         this.lexeme = lex;
     }
 
     public static TokenType getLexemeType(String lexeme){
-        for (TokenType type : TokenType.values()){
+        for (TokenType type : VALUES){
             if(type.lexeme.equals(lexeme)){
                 return type;
             }
@@ -4,17 +4,68 @@ public class WordToken extends Token {
     
     private String lexeme;
 
+    // Source range of the lexeme, only turned into a String when getLexeme() is called.
+    private SourceBuffer source;
+    private int start;
+    private int length;
+
+    // Id of the identifier in the SymbolTable it was interned in, -1 for literals.
+    private int symbolId;
+
     public WordToken(TokenType type, String literal){
         super(type);
         this.lexeme = literal;
+        this.start = 0;
+        this.length = literal.length();
+        this.symbolId = -1;
+    }
+
+    public WordToken(TokenType type, SourceBuffer source, int start, int length){
+        this(type, source, start, length, -1);
+    }
+
+    public WordToken(TokenType type, SourceBuffer source, int start, int length, int symbolId){
+        super(type);
+        this.source = source;
+        this.start = start;
+        this.length = length;
+        this.symbolId = symbolId;
     }
 
     @Override
     public String toString(){
-        return super.toString() + " [" +lexeme+ "]";
+        return super.toString() + " [" +getLexeme()+ "]";
     }
 
     public String getLexeme(){
+        if(lexeme == null){
+            lexeme = source.substring(start, length);
+            source = null;
+        }
         return lexeme;
     }
+
+    // Drops the reference to the source, which may change afterwards; an identifier shares its name with st.
+    void detach(SymbolTable st){
+        if(source == null) return;
+        lexeme = symbolId >= 0 ? st.getName(symbolId) : source.substring(start, length);
+        source = null;
+    }
+
+    public int getStart(){
+        return start;
+    }
+
+    public int getLength(){
+        return length;
+    }
+
+    public int getSymbolId(){
+        return symbolId;
+    }
+
+    // For identifiers scanned without a SymbolTable.
+    void setSymbolId(int symbolId){
+        this.symbolId = symbolId;
+    }
 }
@@ -0,0 +1,191 @@
+package lexical.dfa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Deterministic automaton over bytes, built by subset construction and minimized by partition refinement.
+// State 0 is the start state; DEAD marks a missing transition.
+class Dfa {
+
+    static final int DEAD = -1;
+
+    int[][] next;
+    int[] accept;
+
+    // Byte -> character class, filled by computeClasses().
+    int[] charClass;
+    int classCount;
+
+    private Dfa(int[][] next, int[] accept){
+        this.next = next;
+        this.accept = accept;
+    }
+
+    int size(){
+        return next.length;
+    }
+
+    static Dfa fromNfa(Nfa nfa){
+        List<int[]> rows = new ArrayList<int[]>();
+        List<Integer> accepts = new ArrayList<Integer>();
+        Map<BitSet, Integer> ids = new HashMap<BitSet, Integer>();
+        ArrayDeque<BitSet> pending = new ArrayDeque<BitSet>();
+
+        BitSet first = new BitSet();
+        first.set(nfa.start);
+        first = closure(nfa, first);
+        ids.put(first, 0);
+        rows.add(null);
+        accepts.add(acceptOf(nfa, first));
+        pending.add(first);
+
+        while(!pending.isEmpty()){
+            BitSet set = pending.poll();
+            int[] row = new int[256];
+
+            for(int b = 0; b < 256; b++){
+                BitSet moved = new BitSet();
+                for(int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)){
+                    BitSet on = nfa.bytes.get(s);
+                    if(on != null && on.get(b)) moved.set(nfa.target.get(s));
+                }
+
+                if(moved.isEmpty()){
+                    row[b] = DEAD;
+                    continue;
+                }
+
+                moved = closure(nfa, moved);
+                Integer id = ids.get(moved);
+                if(id == null){
+                    id = rows.size();
+                    ids.put(moved, id);
+                    rows.add(null);
+                    accepts.add(acceptOf(nfa, moved));
+                    pending.add(moved);
+                }
+                row[b] = id;
+            }
+            rows.set(ids.get(set), row);
+        }
+
+        int[] accept = new int[accepts.size()];
+        for(int i = 0; i < accept.length; i++) accept[i] = accepts.get(i);
+        return new Dfa(rows.toArray(new int[0][]), accept);
+    }
+
+    private static BitSet closure(Nfa nfa, BitSet set){
+        BitSet result = (BitSet) set.clone();
+        ArrayDeque<Integer> stack = new ArrayDeque<Integer>();
+        for(int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) stack.push(s);
+
+        while(!stack.isEmpty()){
+            for(int e : nfa.epsilon.get(stack.pop())){
+                if(!result.get(e)){
+                    result.set(e);
+                    stack.push(e);
+                }
+            }
+        }
+        return result;
+    }
+
+    // The rule added first to the NFA has priority.
+    private static int acceptOf(Nfa nfa, BitSet set){
+        int best = Nfa.NO_ACCEPT;
+        for(int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)){
+            int a = nfa.accept.get(s);
+            if(a != Nfa.NO_ACCEPT && (best == Nfa.NO_ACCEPT || a < best)) best = a;
+        }
+        return best;
+    }
+
+    // Moore's algorithm: split blocks of states until equal blocks have equal accepts and equal successors.
+    Dfa minimize(){
+        int n = size();
+        int[] block = new int[n];
+        int blocks = refine(block, n, s -> new int[]{accept[s]});
+
+        while(true){
+            final int[] current = block.clone();
+            int[] refined = new int[n];
+            int count = refine(refined, n, s -> {
+                int[] key = new int[257];
+                key[0] = current[s];
+                for(int b = 0; b < 256; b++) key[b + 1] = next[s][b] == DEAD ? DEAD : current[next[s][b]];
+                return key;
+            });
+
+            block = refined;
+            if(count == blocks) break;
+            blocks = count;
+        }
+
+        int[][] minNext = new int[blocks][];
+        int[] minAccept = new int[blocks];
+        for(int s = 0; s < n; s++){
+            int b = block[s];
+            if(minNext[b] != null) continue;
+
+            minNext[b] = new int[256];
+            for(int c = 0; c < 256; c++) minNext[b][c] = next[s][c] == DEAD ? DEAD : block[next[s][c]];
+            minAccept[b] = accept[s];
+        }
+        return new Dfa(minNext, minAccept);
+    }
+
+    private interface Signature {
+        int[] of(int state);
+    }
+
+    // Numbers blocks in order of first appearance, so the start state stays in block 0.
+    private static int refine(int[] block, int n, Signature signature){
+        Map<List<Integer>, Integer> ids = new HashMap<List<Integer>, Integer>();
+        for(int s = 0; s < n; s++){
+            List<Integer> key = new ArrayList<Integer>();
+            for(int v : signature.of(s)) key.add(v);
+
+            Integer id = ids.get(key);
+            if(id == null){
+                id = ids.size();
+                ids.put(key, id);
+            }
+            block[s] = id;
+        }
+        return ids.size();
+    }
+
+    // Bytes whose columns are identical in every state share a character class.
+    void computeClasses(){
+        charClass = new int[256];
+        Map<List<Integer>, Integer> ids = new HashMap<List<Integer>, Integer>();
+
+        for(int b = 0; b < 256; b++){
+            List<Integer> column = new ArrayList<Integer>();
+            for(int s = 0; s < size(); s++) column.add(next[s][b]);
+
+            Integer id = ids.get(column);
+            if(id == null){
+                id = ids.size();
+                ids.put(column, id);
+            }
+            charClass[b] = id;
+        }
+        classCount = ids.size();
+    }
+
+    int[] classRow(int state){
+        int[] row = new int[classCount];
+        for(int b = 0; b < 256; b++) row[charClass[b]] = next[state][b];
+        return row;
+    }
+
+    @Override
+    public String toString(){
+        return size() + " states, " + classCount + " character classes";
+    }
+}
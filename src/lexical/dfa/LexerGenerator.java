@@ -0,0 +1,269 @@
+package lexical.dfa;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lexical.TokenType;
+
+// Builds the tables behind LexicalAnalysis from the token patterns at the bottom of grammar.ebnf
+// plus the lexemes of TokenType, and writes them as src/lexical/LexerTables.java.
+//
+// Usage: java lexical.dfa.LexerGenerator [grammar.ebnf] [src/lexical/LexerTables.java]
+public class LexerGenerator {
+
+    private static final String NEWLINE = "\r\n";
+
+    // Definitions of grammar.ebnf written in prose instead of a pattern.
+    private static final Map<String, String> PROSE = Map.of(
+        "caractere", "[^\"\\n]"
+    );
+
+    // Skipped input, not described by grammar.ebnf.
+    private static final String[] SKIP = {
+        "[ \\t\\r\\n]+",
+        "\"//\" [^\\n]*",
+        "\"/*\" ( [^*] | \"*\"+ [^*/] )* \"*\"+ \"/\""
+    };
+
+    private static final int NONE = -1;
+    private static final int SKIPPED = -2;
+
+    private final Map<String, Pattern> definitions = new LinkedHashMap<String, Pattern>();
+    private final List<Integer> ruleCodes = new ArrayList<Integer>();
+    private final List<TokenType> keywords = new ArrayList<TokenType>();
+
+    private Dfa dfa;
+    private int keywordSeed;
+    private String[] keywordLexemes;
+    private TokenType[] keywordTypes;
+
+    public static void main(String[] args) throws IOException{
+        Path grammar = Paths.get(args.length > 0 ? args[0] : "grammar.ebnf");
+        Path output = Paths.get(args.length > 1 ? args[1] : "src/lexical/LexerTables.java");
+
+        LexerGenerator generator = new LexerGenerator();
+        generator.readDefinitions(Files.readAllLines(grammar, StandardCharsets.UTF_8));
+        generator.build();
+
+        Files.write(output, generator.emit().getBytes(StandardCharsets.UTF_8));
+        System.out.println(output + ": " + generator.dfa + ", " + generator.keywordLexemes.length + " keyword slots");
+    }
+
+    // Token patterns are the "#name → pattern" lines; lines without an arrow continue the previous one.
+    private void readDefinitions(List<String> lines){
+        String name = null;
+        StringBuilder body = new StringBuilder();
+
+        for(String line : lines){
+            if(!line.startsWith("#")) continue;
+            line = line.substring(1);
+
+            int arrow = line.indexOf('→');
+            if(arrow >= 0){
+                if(name != null) define(name, body.toString());
+                name = line.substring(0, arrow).trim();
+                body.setLength(0);
+                body.append(line.substring(arrow + 1));
+            }else if(name != null){
+                body.append(' ').append(line);
+            }
+        }
+        if(name != null) define(name, body.toString());
+    }
+
+    private void define(String name, String body){
+        String pattern = PROSE.containsKey(name) ? PROSE.get(name) : body.trim();
+        definitions.put(name, PatternParser.parse(pattern));
+    }
+
+    private void build(){
+        Nfa nfa = new Nfa(definitions);
+        TokenType identifier = null;
+
+        // Rules in priority order: grammar.ebnf tokens, then TokenType symbols, then skipped input.
+        for(String name : definitions.keySet()){
+            TokenType type = tokenTypeOf(name);
+            if(type == null) continue;
+
+            nfa.addRule(new Pattern.Reference(name), ruleCodes.size());
+            ruleCodes.add(type.ordinal());
+            if(type == TokenType.IDENTIFIER) identifier = type;
+        }
+        if(identifier == null) throw new IllegalArgumentException("grammar.ebnf has no identifier pattern");
+
+        for(TokenType type : TokenType.values()){
+            String lexeme = type.getLexeme();
+            if(lexeme.isEmpty()) continue;
+
+            if(Character.isLetter(lexeme.charAt(0))){
+                keywords.add(type);
+            }else{
+                nfa.addRule(Pattern.literal(lexeme), ruleCodes.size());
+                ruleCodes.add(type.ordinal());
+            }
+        }
+
+        for(String skip : SKIP){
+            nfa.addRule(PatternParser.parse(skip), ruleCodes.size());
+            ruleCodes.add(SKIPPED);
+        }
+
+        dfa = Dfa.fromNfa(nfa).minimize();
+        for(int s = 0; s < dfa.size(); s++){
+            if(dfa.accept[s] != Nfa.NO_ACCEPT) dfa.accept[s] = ruleCodes.get(dfa.accept[s]);
+            else dfa.accept[s] = NONE;
+        }
+        dfa.computeClasses();
+
+        for(TokenType keyword : keywords){
+            if(run(keyword.getLexeme()) != TokenType.IDENTIFIER.ordinal()){
+                throw new IllegalArgumentException("Keyword '" + keyword.getLexeme() + "' is not an identifier");
+            }
+        }
+        buildKeywordTable();
+    }
+
+    private static TokenType tokenTypeOf(String name){
+        for(TokenType type : TokenType.values()){
+            if(type.name().equals(name.toUpperCase())) return type;
+        }
+        return null;
+    }
+
+    private int run(String text){
+        int state = 0;
+        for(int i = 0; i < text.length() && state != Dfa.DEAD; i++) state = dfa.next[state][text.charAt(i)];
+        return state == Dfa.DEAD ? NONE : dfa.accept[state];
+    }
+
+    // Searches the smallest power-of-two table and seed that give every keyword its own slot.
+    private void buildKeywordTable(){
+        for(int size = Integer.highestOneBit(Math.max(1, keywords.size() - 1)) << 1; ; size <<= 1){
+            for(int seed = 1; seed < 1 << 20; seed++){
+                String[] lexemes = new String[size];
+                TokenType[] types = new TokenType[size];
+                boolean perfect = true;
+
+                for(TokenType keyword : keywords){
+                    int slot = slot(keyword.getLexeme(), seed, size);
+                    if(lexemes[slot] != null){
+                        perfect = false;
+                        break;
+                    }
+                    lexemes[slot] = keyword.getLexeme();
+                    types[slot] = keyword;
+                }
+
+                if(perfect){
+                    keywordSeed = seed;
+                    keywordLexemes = lexemes;
+                    keywordTypes = types;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Must match LexerTables.keywordSlot().
+    private static int slot(String lexeme, int seed, int size){
+        int h = seed;
+        for(int i = 0; i < lexeme.length(); i++) h = (h ^ lexeme.charAt(i)) * 0x01000193;
+        return (h ^ (h >>> 15)) & (size - 1);
+    }
+
+    private String emit(){
+        StringBuilder out = new StringBuilder();
+
+        line(out, "package lexical;");
+        line(out, "");
+        line(out, "// Generated by lexical.dfa.LexerGenerator from grammar.ebnf and TokenType. Do not edit.");
+        line(out, "// " + dfa);
+        line(out, "final class LexerTables {");
+        line(out, "");
+        line(out, "    static final int NONE = " + NONE + ";");
+        line(out, "    static final int SKIP = " + SKIPPED + ";");
+        line(out, "    static final int START = 0;");
+        line(out, "    static final int CLASS_COUNT = " + dfa.classCount + ";");
+        line(out, "");
+
+        line(out, "    // Byte -> character class.");
+        line(out, "    static final byte[] CHAR_CLASS = {");
+        for(int b = 0; b < 256; b += 16){
+            StringBuilder row = new StringBuilder("        ");
+            for(int i = b; i < b + 16; i++){
+                row.append(dfa.charClass[i]);
+                if(i < 255) row.append(i % 16 == 15 ? "," : ", ");
+            }
+            line(out, row.toString());
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    // TRANSITIONS[state * CLASS_COUNT + class] is the next state, or -1.");
+        line(out, "    static final short[] TRANSITIONS = {");
+        for(int s = 0; s < dfa.size(); s++){
+            StringBuilder row = new StringBuilder("        ");
+            int[] classRow = dfa.classRow(s);
+            for(int c = 0; c < classRow.length; c++){
+                row.append(classRow[c]);
+                if(c < classRow.length - 1) row.append(", ");
+                else if(s < dfa.size() - 1) row.append(",");
+            }
+            line(out, row.toString());
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    // Token accepted in each state: a TokenType ordinal, SKIP or NONE.");
+        line(out, "    static final int[] ACCEPT = {");
+        for(int s = 0; s < dfa.size(); s++){
+            line(out, "        " + acceptName(dfa.accept[s]) + (s < dfa.size() - 1 ? "," : ""));
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    // Perfect hash of the keywords, indexed by keywordSlot().");
+        line(out, "    static final int KEYWORD_SEED = " + keywordSeed + ";");
+        line(out, "    static final int KEYWORD_TABLE_SIZE = " + keywordLexemes.length + ";");
+        line(out, "    static final String[] KEYWORD_LEXEMES = {");
+        for(int i = 0; i < keywordLexemes.length; i++){
+            String lexeme = keywordLexemes[i] == null ? "null" : "\"" + keywordLexemes[i] + "\"";
+            line(out, "        " + lexeme + (i < keywordLexemes.length - 1 ? "," : ""));
+        }
+        line(out, "    };");
+        line(out, "    static final int[] KEYWORD_TYPES = {");
+        for(int i = 0; i < keywordTypes.length; i++){
+            String type = keywordTypes[i] == null ? "NONE" : "TokenType." + keywordTypes[i].name() + ".ordinal()";
+            line(out, "        " + type + (i < keywordTypes.length - 1 ? "," : ""));
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    static int keywordSlot(SourceBuffer source, int start, int length){");
+        line(out, "        int h = KEYWORD_SEED;");
+        line(out, "        for(int i = 0; i < length; i++) h = (h ^ source.charAt(start + i)) * 0x01000193;");
+        line(out, "        return (h ^ (h >>> 15)) & (KEYWORD_TABLE_SIZE - 1);");
+        line(out, "    }");
+        line(out, "");
+        line(out, "    private LexerTables(){}");
+        line(out, "}");
+
+        return out.toString();
+    }
+
+    private static String acceptName(int code){
+        if(code == NONE) return "NONE";
+        if(code == SKIPPED) return "SKIP";
+        return "TokenType." + TokenType.values()[code].name() + ".ordinal()";
+    }
+
+    private static void line(StringBuilder out, String text){
+        out.append(text).append(NEWLINE);
+    }
+}
@@ -0,0 +1,103 @@
+package lexical.dfa;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+// Thompson construction: every state has either epsilon moves or a single move on a set of bytes.
+class Nfa {
+
+    static final int NO_ACCEPT = -1;
+
+    final List<BitSet> bytes = new ArrayList<BitSet>();
+    final List<Integer> target = new ArrayList<Integer>();
+    final List<List<Integer>> epsilon = new ArrayList<List<Integer>>();
+    final List<Integer> accept = new ArrayList<Integer>();
+
+    final int start;
+
+    private final Map<String, Pattern> definitions;
+
+    Nfa(Map<String, Pattern> definitions){
+        this.definitions = definitions;
+        this.start = newState();
+    }
+
+    int size(){
+        return bytes.size();
+    }
+
+    // Adds a token rule; on ties the rule added first wins (see Dfa).
+    void addRule(Pattern pattern, int acceptCode){
+        int[] fragment = build(pattern, new ArrayList<String>());
+        epsilon.get(start).add(fragment[0]);
+        accept.set(fragment[1], acceptCode);
+    }
+
+    private int newState(){
+        bytes.add(null);
+        target.add(-1);
+        epsilon.add(new ArrayList<Integer>());
+        accept.add(NO_ACCEPT);
+        return bytes.size() - 1;
+    }
+
+    // Returns {entry, exit} of the fragment recognizing pattern.
+    private int[] build(Pattern pattern, List<String> expanding){
+        if(pattern instanceof Pattern.Bytes){
+            int in = newState();
+            int out = newState();
+            bytes.set(in, ((Pattern.Bytes) pattern).set);
+            target.set(in, out);
+            return new int[]{in, out};
+        }
+
+        if(pattern instanceof Pattern.Sequence){
+            int[] result = null;
+            for(Pattern item : ((Pattern.Sequence) pattern).items){
+                int[] fragment = build(item, expanding);
+                if(result == null){
+                    result = fragment;
+                }else{
+                    epsilon.get(result[1]).add(fragment[0]);
+                    result[1] = fragment[1];
+                }
+            }
+            return result;
+        }
+
+        if(pattern instanceof Pattern.Alternative){
+            int in = newState();
+            int out = newState();
+            for(Pattern option : ((Pattern.Alternative) pattern).options){
+                int[] fragment = build(option, expanding);
+                epsilon.get(in).add(fragment[0]);
+                epsilon.get(fragment[1]).add(out);
+            }
+            return new int[]{in, out};
+        }
+
+        if(pattern instanceof Pattern.Repeat){
+            Pattern.Repeat repeat = (Pattern.Repeat) pattern;
+            int in = newState();
+            int out = newState();
+            int[] fragment = build(repeat.item, expanding);
+            epsilon.get(in).add(fragment[0]);
+            if(repeat.min == 0) epsilon.get(in).add(out);
+            epsilon.get(fragment[1]).add(fragment[0]);
+            epsilon.get(fragment[1]).add(out);
+            return new int[]{in, out};
+        }
+
+        String name = ((Pattern.Reference) pattern).name;
+        Pattern definition = definitions.get(name);
+        if(definition == null) throw new IllegalArgumentException("Token pattern '" + name + "' is not defined");
+        if(expanding.contains(name)) throw new IllegalArgumentException("Token pattern '" + name + "' is recursive");
+
+        expanding.add(name);
+        int[] fragment = build(definition, expanding);
+        expanding.remove(expanding.size() - 1);
+        return fragment;
+    }
+}
@@ -0,0 +1,62 @@
+package lexical.dfa;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Regular expression tree read from the token patterns of grammar.ebnf.
+abstract class Pattern {
+
+    static final class Bytes extends Pattern {
+        final BitSet set;
+
+        Bytes(BitSet set){
+            this.set = set;
+        }
+    }
+
+    static final class Sequence extends Pattern {
+        final List<Pattern> items;
+
+        Sequence(List<Pattern> items){
+            this.items = items;
+        }
+    }
+
+    static final class Alternative extends Pattern {
+        final List<Pattern> options;
+
+        Alternative(List<Pattern> options){
+            this.options = options;
+        }
+    }
+
+    // min = 0 for "*" and "{ }", min = 1 for "+".
+    static final class Repeat extends Pattern {
+        final Pattern item;
+        final int min;
+
+        Repeat(Pattern item, int min){
+            this.item = item;
+            this.min = min;
+        }
+    }
+
+    static final class Reference extends Pattern {
+        final String name;
+
+        Reference(String name){
+            this.name = name;
+        }
+    }
+
+    static Pattern literal(String text){
+        List<Pattern> items = new ArrayList<Pattern>();
+        for(int i = 0; i < text.length(); i++){
+            BitSet set = new BitSet(256);
+            set.set(text.charAt(i));
+            items.add(new Bytes(set));
+        }
+        return items.size() == 1 ? items.get(0) : new Sequence(items);
+    }
+}
@@ -0,0 +1,176 @@
+package lexical.dfa;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Parses the notation used at the bottom of grammar.ebnf:
+//   alternative ::= sequence { "|" sequence }
+//   sequence    ::= item { item }
+//   item        ::= atom { "*" | "+" }
+//   atom        ::= name | quoted | digit | class | "(" alternative ")" | "{" alternative "}"
+// Quoted text is trimmed, so " _ " stands for '_', and typographic quotes stand for '"'.
+class PatternParser {
+
+    private final String text;
+    private int pos;
+
+    PatternParser(String text){
+        this.text = text;
+        this.pos = 0;
+    }
+
+    static Pattern parse(String text){
+        PatternParser parser = new PatternParser(text);
+        Pattern pattern = parser.alternative();
+        parser.skipSpaces();
+        if(parser.pos < text.length()) throw parser.error("unexpected '" + text.charAt(parser.pos) + "'");
+        return pattern;
+    }
+
+    private Pattern alternative(){
+        List<Pattern> options = new ArrayList<Pattern>();
+        options.add(sequence());
+
+        while(peek() == '|'){
+            pos++;
+            options.add(sequence());
+        }
+        return options.size() == 1 ? options.get(0) : new Pattern.Alternative(options);
+    }
+
+    private Pattern sequence(){
+        List<Pattern> items = new ArrayList<Pattern>();
+
+        int c = peek();
+        while(c != -1 && c != '|' && c != ')' && c != '}'){
+            items.add(item());
+            c = peek();
+        }
+        if(items.isEmpty()) throw error("empty pattern");
+        return items.size() == 1 ? items.get(0) : new Pattern.Sequence(items);
+    }
+
+    private Pattern item(){
+        Pattern atom = atom();
+
+        while(true){
+            int c = peekAdjacent();
+            if(c == '*'){
+                pos++;
+                atom = new Pattern.Repeat(atom, 0);
+            }else if(c == '+'){
+                pos++;
+                atom = new Pattern.Repeat(atom, 1);
+            }else{
+                return atom;
+            }
+        }
+    }
+
+    private Pattern atom(){
+        int c = peek();
+
+        if(c == '('){
+            pos++;
+            Pattern inner = alternative();
+            expect(')');
+            return inner;
+        }else if(c == '{'){
+            pos++;
+            Pattern inner = alternative();
+            expect('}');
+            return new Pattern.Repeat(inner, 0);
+        }else if(c == '"'){
+            pos++;
+            int end = text.indexOf('"', pos);
+            if(end < 0) throw error("unterminated quoted text");
+            String quoted = normalizeQuotes(text.substring(pos, end).trim());
+            pos = end + 1;
+            if(quoted.isEmpty()) throw error("empty quoted text");
+            return Pattern.literal(quoted);
+        }else if(c == '['){
+            pos++;
+            return new Pattern.Bytes(charClass());
+        }else if(c >= '0' && c <= '9'){
+            pos++;
+            return Pattern.literal(String.valueOf((char) c));
+        }else if(Character.isLetter(c)){
+            int start = pos;
+            while(pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) pos++;
+            return new Pattern.Reference(text.substring(start, pos));
+        }
+        throw error(c == -1 ? "unexpected end of pattern" : "unexpected '" + (char) c + "'");
+    }
+
+    // [A-Za-z], [^*/], [ \t\r\n]
+    private BitSet charClass(){
+        BitSet set = new BitSet(256);
+        boolean negated = false;
+
+        if(pos < text.length() && text.charAt(pos) == '^'){
+            negated = true;
+            pos++;
+        }
+
+        while(true){
+            if(pos >= text.length()) throw error("unterminated character class");
+            if(text.charAt(pos) == ']'){
+                pos++;
+                break;
+            }
+
+            int low = classChar();
+            int high = low;
+            if(pos + 1 < text.length() && text.charAt(pos) == '-' && text.charAt(pos + 1) != ']'){
+                pos++;
+                high = classChar();
+            }
+            if(high < low) throw error("bad range in character class");
+            set.set(low, high + 1);
+        }
+
+        if(negated) set.flip(0, 256);
+        return set;
+    }
+
+    private int classChar(){
+        char c = text.charAt(pos++);
+        if(c != '\\') return c;
+        if(pos >= text.length()) throw error("unterminated escape");
+
+        c = text.charAt(pos++);
+        switch(c){
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            default: return c;
+        }
+    }
+
+    private static String normalizeQuotes(String s){
+        return s.replace('“', '"').replace('”', '"');
+    }
+
+    private int peek(){
+        skipSpaces();
+        return pos < text.length() ? text.charAt(pos) : -1;
+    }
+
+    private int peekAdjacent(){
+        return pos < text.length() ? text.charAt(pos) : -1;
+    }
+
+    private void skipSpaces(){
+        while(pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private void expect(char c){
+        if(peek() != c) throw error("expecting '" + c + "'");
+        pos++;
+    }
+
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException("Bad token pattern \"" + text + "\" at " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,255 @@
+package lsp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The JSON of the language server protocol, read into Map (objects, in member order), List, String, Long or
+// Double, Boolean and null, and written from the same, with any other Number written as is.
+public final class Json {
+
+    private final String text;
+    private int pos;
+
+    private Json(String text){
+        this.text = text;
+    }
+
+    public static Object parse(String text){
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipSpaces();
+        if(json.pos < text.length()) throw json.error("unexpected '" + text.charAt(json.pos) + "' after the value");
+        return value;
+    }
+
+    public static String write(Object value){
+        StringBuilder out = new StringBuilder();
+        write(out, value);
+        return out.toString();
+    }
+
+    //   value ::= object | array | string | number | "true" | "false" | "null"
+    private Object value(){
+        skipSpaces();
+        if(pos == text.length()) throw error("unexpected end of input");
+
+        char c = text.charAt(pos);
+        switch(c){
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if(c == '-' || c >= '0' && c <= '9') return number();
+                throw error("unexpected '" + c + "'");
+        }
+    }
+
+    //   object ::= "{" [string ":" value {"," string ":" value}] "}"
+    private Map<String, Object> object(){
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        pos++;
+        if(peek() == '}'){
+            pos++;
+            return object;
+        }
+
+        while(true){
+            if(peek() != '"') throw error("expecting a member name");
+            String name = string();
+            if(peek() != ':') throw error("expecting ':'");
+            pos++;
+            object.put(name, value());
+
+            char c = peek();
+            pos++;
+            if(c == '}') return object;
+            if(c != ',') throw error("expecting ',' or '}'");
+        }
+    }
+
+    //   array ::= "[" [value {"," value}] "]"
+    private List<Object> array(){
+        List<Object> array = new ArrayList<Object>();
+        pos++;
+        if(peek() == ']'){
+            pos++;
+            return array;
+        }
+
+        while(true){
+            array.add(value());
+
+            char c = peek();
+            pos++;
+            if(c == ']') return array;
+            if(c != ',') throw error("expecting ',' or ']'");
+        }
+    }
+
+    private String string(){
+        pos++;
+        StringBuilder out = null;
+        int start = pos;
+
+        while(true){
+            if(pos == text.length()) throw error("unterminated string");
+            char c = text.charAt(pos);
+            if(c == '"'){
+                String value = out == null ? text.substring(start, pos) : out.append(text, start, pos).toString();
+                pos++;
+                return value;
+            }
+            if(c < ' ') throw error("control character in string");
+            if(c != '\\'){
+                pos++;
+                continue;
+            }
+
+            if(out == null) out = new StringBuilder();
+            out.append(text, start, pos);
+            if(pos + 1 == text.length()) throw error("unterminated string");
+            char escape = text.charAt(pos + 1);
+            pos += 2;
+            switch(escape){
+                case '"': out.append('"'); break;
+                case '\\': out.append('\\'); break;
+                case '/': out.append('/'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if(pos + 4 > text.length()) throw error("truncated \\u escape");
+                    try{
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    }catch(NumberFormatException e){
+                        throw error("bad \\u escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("bad escape '\\" + escape + "'");
+            }
+            start = pos;
+        }
+    }
+
+    //   number ::= ["-"] digits ["." digits] [("e" | "E") ["+" | "-"] digits]
+    private Object number(){
+        int start = pos;
+        boolean integral = true;
+
+        if(text.charAt(pos) == '-') pos++;
+        digits();
+        if(pos < text.length() && text.charAt(pos) == '.'){
+            pos++;
+            digits();
+            integral = false;
+        }
+        if(pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')){
+            pos++;
+            if(pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) pos++;
+            digits();
+            integral = false;
+        }
+
+        String number = text.substring(start, pos);
+        if(integral){
+            try{
+                return Long.parseLong(number);
+            }catch(NumberFormatException e){
+                // Too large for a long.
+            }
+        }
+        return Double.parseDouble(number);
+    }
+
+    private void digits(){
+        int start = pos;
+        while(pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') pos++;
+        if(pos == start) throw error("expecting a digit");
+    }
+
+    private Object literal(String word, Object value){
+        if(!text.startsWith(word, pos)) throw error("unexpected '" + text.charAt(pos) + "'");
+        pos += word.length();
+        return value;
+    }
+
+    private char peek(){
+        skipSpaces();
+        if(pos == text.length()) throw error("unexpected end of input");
+        return text.charAt(pos);
+    }
+
+    private void skipSpaces(){
+        while(pos < text.length()){
+            char c = text.charAt(pos);
+            if(c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException("Bad JSON at offset " + pos + ": " + message);
+    }
+
+    private static void write(StringBuilder out, Object value){
+        if(value == null){
+            out.append("null");
+        }else if(value instanceof String){
+            writeString(out, (String) value);
+        }else if(value instanceof Map){
+            out.append('{');
+            boolean first = true;
+            for(Map.Entry<?, ?> member : ((Map<?, ?>) value).entrySet()){
+                if(!first) out.append(',');
+                first = false;
+                writeString(out, member.getKey().toString());
+                out.append(':');
+                write(out, member.getValue());
+            }
+            out.append('}');
+        }else if(value instanceof List){
+            out.append('[');
+            boolean first = true;
+            for(Object element : (List<?>) value){
+                if(!first) out.append(',');
+                first = false;
+                write(out, element);
+            }
+            out.append(']');
+        }else if(value instanceof Number || value instanceof Boolean){
+            out.append(value);
+        }else{
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+        }
+    }
+
+    private static void writeString(StringBuilder out, String s){
+        out.append('"');
+        for(int i = 0; i < s.length(); i++){
+            char c = s.charAt(i);
+            switch(c){
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if(c < ' '){
+                        out.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,559 @@
+package lsp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lexical.LineIndex;
+import lexical.Span;
+import lexical.SymbolTable;
+import lexical.WordToken;
+import semantic.Class;
+import semantic.Type;
+import syntactic.Diagnostic;
+import syntactic.IncrementalAnalysis;
+
+// A Language Server Protocol server on stdin and stdout: diagnostics as documents change, the type of an
+// identifier on hover and the declaration of an identifier.
+//
+// Messages are read on the calling thread. Everything about a document's contents happens on a single analysis
+// thread: content changes are queued and applied by an IncrementalAnalysis, after which its diagnostics are
+// published. A change that comes within the debounce delay of the one before is analyzed after that delay,
+// together with whatever else comes meanwhile, so a burst costs one analysis per delay and still gets
+// diagnostics; any other change is analyzed at once. Hover and declaration requests first apply the changes
+// queued before them. Positions are in UTF-16 code units, as the protocol has them; sources are ISO-8859-1
+// with one byte per code unit, code units past ISO-8859-1 (both halves of a surrogate pair included) each
+// becoming a '?' so that offsets and positions still agree.
+//
+// Usage: java lsp.LanguageServer [--debounce MILLISECONDS]
+public final class LanguageServer {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 15;
+
+    // JSON-RPC error codes.
+    private static final int PARSE_ERROR = -32700;
+    private static final int INVALID_REQUEST = -32600;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INTERNAL_ERROR = -32603;
+    private static final int SERVER_NOT_INITIALIZED = -32002;
+
+    // DiagnosticSeverity.Error and TextDocumentSyncKind.Incremental.
+    private static final int ERROR = 1;
+    private static final int INCREMENTAL = 2;
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final long debounceMillis;
+    private final ScheduledThreadPoolExecutor analysis;
+
+    // Only used by the thread reading messages.
+    private final Map<String, Document> documents = new HashMap<String, Document>();
+    private boolean initialized;
+    private boolean shutdown;
+
+    public LanguageServer(InputStream in, OutputStream out, long debounceMillis){
+        this.in = new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(out);
+        this.debounceMillis = debounceMillis;
+        this.analysis = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.analysis.setRemoveOnCancelPolicy(true);
+    }
+
+    public static void main(String[] args){
+        long debounce = DEFAULT_DEBOUNCE_MILLIS;
+
+        for(int i = 0; i < args.length; i++){
+            String option = args[i];
+            String value = null;
+            int equals = option.indexOf('=');
+            if(option.startsWith("-") && equals > 0){
+                value = option.substring(equals + 1);
+                option = option.substring(0, equals);
+            }
+
+            if(option.equals("--debounce") && (value != null || i + 1 < args.length)){
+                debounce = Long.parseLong(value != null ? value : args[++i]);
+            }else{
+                System.err.println("Usage: java lsp.LanguageServer [--debounce MILLISECONDS]");
+                System.exit(1);
+            }
+        }
+
+        System.exit(new LanguageServer(System.in, System.out, debounce).run());
+    }
+
+    // Serves until the exit notification or the end of the input; the exit code is 0 after a shutdown request.
+    public int run(){
+        try{
+            String message;
+            while((message = read()) != null){
+                if(!handle(message)) break;
+            }
+        }catch(IOException e){
+            System.err.println("Language server: " + e.getMessage());
+        }catch(UncheckedIOException e){
+            // The client stopped reading.
+            System.err.println("Language server: " + e.getCause().getMessage());
+        }finally{
+            analysis.shutdownNow();
+        }
+        return shutdown ? 0 : 1;
+    }
+
+    // The content of the next message, null at the end of the input.
+    private String read() throws IOException{
+        int length = -1;
+
+        while(true){
+            String header = readHeader();
+            if(header == null) return null;
+            if(header.isEmpty()) break;
+
+            int colon = header.indexOf(':');
+            if(colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")){
+                try{
+                    length = Integer.parseInt(header.substring(colon + 1).trim());
+                }catch(NumberFormatException e){
+                    // Without the length the next message cannot be found either.
+                    throw new IOException("Bad Content-Length header: " + header);
+                }
+            }
+        }
+        if(length < 0) throw new IOException("Message without a Content-Length header");
+
+        byte[] content = new byte[length];
+        for(int read = 0; read < length; ){
+            int n = in.read(content, read, length - read);
+            if(n < 0) throw new IOException("End of input inside a message");
+            read += n;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private String readHeader() throws IOException{
+        StringBuilder header = new StringBuilder();
+        while(true){
+            int c = in.read();
+            if(c < 0) return header.length() == 0 ? null : header.toString();
+            if(c == '\n') break;
+            if(c != '\r') header.append((char) c);
+        }
+        return header.toString();
+    }
+
+    // False once the exit notification came.
+    private boolean handle(String content){
+        Object parsed;
+        try{
+            parsed = Json.parse(content);
+        }catch(IllegalArgumentException e){
+            sendError(null, PARSE_ERROR, e.getMessage());
+            return true;
+        }
+        if(!(parsed instanceof Map)){
+            sendError(null, INVALID_REQUEST, "A message must be a JSON object");
+            return true;
+        }
+
+        Map<?, ?> message = (Map<?, ?>) parsed;
+        Object id = message.get("id");
+        Object method = message.get("method");
+        // Responses: the server sends no requests.
+        if(!(method instanceof String)) return true;
+
+        Map<?, ?> params = message.get("params") instanceof Map ? (Map<?, ?>) message.get("params") : new HashMap<String, Object>();
+        try{
+            return dispatch((String) method, id, params);
+        }catch(UncheckedIOException e){
+            throw e;
+        }catch(RuntimeException e){
+            if(id != null) sendError(id, INTERNAL_ERROR, String.valueOf(e));
+            return true;
+        }
+    }
+
+    private boolean dispatch(String method, Object id, Map<?, ?> params){
+        if(method.equals("exit")) return false;
+        if(!initialized && !method.equals("initialize")){
+            if(id != null) sendError(id, SERVER_NOT_INITIALIZED, "The server is not initialized");
+            return true;
+        }
+
+        switch(method){
+            case "initialize":
+                initialized = true;
+                respond(id, capabilities());
+                break;
+            case "shutdown":
+                // Answered after the requests before it.
+                shutdown = true;
+                analysis.execute(() -> respond(id, null));
+                break;
+            case "textDocument/didOpen":
+                open(object(params, "textDocument"));
+                break;
+            case "textDocument/didChange":
+                change(object(params, "textDocument"), list(params, "contentChanges"));
+                break;
+            case "textDocument/didClose":
+                close(string(object(params, "textDocument"), "uri"));
+                break;
+            case "textDocument/hover":
+                onDocument(id, params, this::hover);
+                break;
+            case "textDocument/declaration":
+            case "textDocument/definition":
+                onDocument(id, params, this::declaration);
+                break;
+            default:
+                // Notifications nobody handles, like initialized and $/cancelRequest, are dropped.
+                if(id != null) sendError(id, METHOD_NOT_FOUND, "Unknown method " + method);
+        }
+        return true;
+    }
+
+    private Map<String, Object> capabilities(){
+        Map<String, Object> sync = new LinkedHashMap<String, Object>();
+        sync.put("openClose", true);
+        sync.put("change", INCREMENTAL);
+
+        Map<String, Object> capabilities = new LinkedHashMap<String, Object>();
+        capabilities.put("textDocumentSync", sync);
+        capabilities.put("hoverProvider", true);
+        capabilities.put("declarationProvider", true);
+        capabilities.put("definitionProvider", true);
+
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("capabilities", capabilities);
+        result.put("serverInfo", Map.of("name", "compiler"));
+        return result;
+    }
+
+    private void open(Map<?, ?> item){
+        String uri = string(item, "uri");
+        Document document = new Document(uri);
+        Document previous = documents.put(uri, document);
+        if(previous != null) cancel(previous);
+
+        Map<String, Object> whole = new HashMap<String, Object>();
+        whole.put("text", string(item, "text"));
+        document.queue(List.of(whole), number(item, "version"));
+        document.lastChange = System.nanoTime();
+        document.scheduled = analysis.schedule(() -> publish(document), 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void change(Map<?, ?> identifier, List<?> changes){
+        Document document = documents.get(string(identifier, "uri"));
+        if(document == null) return;
+
+        document.queue(changes, number(identifier, "version"));
+        long now = System.nanoTime();
+        boolean burst = now - document.lastChange < TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        document.lastChange = now;
+        // An analysis still to come applies this change too; putting it off could starve a long burst.
+        if(document.scheduled != null && !document.scheduled.isDone()) return;
+        document.scheduled = analysis.schedule(() -> publish(document), burst ? debounceMillis : 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void close(String uri){
+        Document document = documents.remove(uri);
+        if(document != null) cancel(document);
+    }
+
+    // Drops the document and clears its diagnostics, after whatever was queued for it before.
+    private void cancel(Document document){
+        if(document.scheduled != null) document.scheduled.cancel(false);
+        analysis.execute(() -> {
+            document.closed = true;
+            document.analysis = null;
+            send(notification("textDocument/publishDiagnostics", diagnostics(document.uri, null, new ArrayList<Object>())));
+        });
+    }
+
+    private interface Request {
+        Object answer(Document document, Map<?, ?> params);
+    }
+
+    // Answers on the analysis thread, once the changes sent before the request are applied.
+    private void onDocument(Object id, Map<?, ?> params, Request request){
+        Document document = documents.get(string(object(params, "textDocument"), "uri"));
+        if(document == null){
+            respond(id, null);
+            return;
+        }
+
+        analysis.execute(() -> {
+            try{
+                document.apply();
+                respond(id, document.closed ? null : request.answer(document, params));
+            }catch(UncheckedIOException e){
+                // Nothing more can be sent; the reading thread stops on its next write or at the end of the input.
+                throw e;
+            }catch(RuntimeException e){
+                sendError(id, INTERNAL_ERROR, String.valueOf(e));
+            }
+        });
+    }
+
+    private void publish(Document document){
+        try{
+            document.apply();
+            if(document.closed || document.version == document.published) return;
+
+            IncrementalAnalysis analysis = document.analysis;
+            LineIndex lines = analysis.getLineIndex();
+            List<Object> diagnostics = new ArrayList<Object>();
+            for(Diagnostic diagnostic : analysis.getDiagnostics()){
+                Map<String, Object> item = new LinkedHashMap<String, Object>();
+                if(diagnostic.getColumn() > 0){
+                    int start = lines.lineStart(diagnostic.getLine()) + diagnostic.getColumn() - 1;
+                    item.put("range", range(lines, start, Math.min(start + diagnostic.getLength(), analysis.length())));
+                }else{
+                    Map<String, Object> position = position(diagnostic.getLine() - 1, 0);
+                    item.put("range", range(position, position));
+                }
+                item.put("severity", ERROR);
+                item.put("source", "compiler");
+                item.put("message", diagnostic.getMessage());
+                diagnostics.add(item);
+            }
+
+            send(notification("textDocument/publishDiagnostics", diagnostics(document.uri, document.version, diagnostics)));
+            document.published = document.version;
+        }catch(UncheckedIOException e){
+            throw e;
+        }catch(RuntimeException e){
+            System.err.println("Language server: analysis of " + document.uri + " failed: " + e);
+        }
+    }
+
+    private Object hover(Document document, Map<?, ?> params){
+        IncrementalAnalysis analysis = document.analysis;
+        int entry = analysis.identifierAt(offset(analysis, object(params, "position")));
+        if(entry < 0) return null;
+
+        WordToken identifier = analysis.getIdentifier(entry);
+        SymbolTable st = analysis.getSymbolTable();
+        Class idClass = st.getClass(identifier);
+        Type idType = st.getType(identifier);
+
+        String text;
+        if(idClass == null) text = identifier.getLexeme() + " is not defined";
+        else if(idClass == Class.CLASS) text = "class " + identifier.getLexeme();
+        else text = idClass + " " + identifier.getLexeme() + ": " + idType;
+
+        Map<String, Object> contents = new LinkedHashMap<String, Object>();
+        contents.put("kind", "plaintext");
+        contents.put("value", text);
+
+        Map<String, Object> hover = new LinkedHashMap<String, Object>();
+        hover.put("contents", contents);
+        hover.put("range", range(analysis.getLineIndex(), analysis.getSpan(entry)));
+        return hover;
+    }
+
+    private Object declaration(Document document, Map<?, ?> params){
+        IncrementalAnalysis analysis = document.analysis;
+        int entry = analysis.identifierAt(offset(analysis, object(params, "position")));
+        if(entry < 0) return null;
+
+        long span = analysis.getDeclaration(analysis.getIdentifier(entry));
+        if(span == Span.NONE) return null;
+
+        Map<String, Object> location = new LinkedHashMap<String, Object>();
+        location.put("uri", document.uri);
+        location.put("range", range(analysis.getLineIndex(), span));
+        return location;
+    }
+
+    // A document as the analysis thread sees it, and the changes the reading thread queued for it.
+    private static final class Document {
+        final String uri;
+
+        // Guarded by the document.
+        private List<Object> changes = new ArrayList<Object>();
+        private long queuedVersion;
+
+        // Reading thread only.
+        ScheduledFuture<?> scheduled;
+        long lastChange;
+
+        // Analysis thread only: null until the document was first applied.
+        IncrementalAnalysis analysis;
+        long version;
+        long published = -1;
+        boolean closed;
+
+        Document(String uri){
+            this.uri = uri;
+        }
+
+        synchronized void queue(List<?> changes, long version){
+            this.changes.addAll(changes);
+            this.queuedVersion = version;
+        }
+
+        // Applies the queued changes to the analysis.
+        void apply(){
+            List<Object> changes;
+            synchronized(this){
+                if(this.changes.isEmpty()) return;
+                changes = this.changes;
+                this.changes = new ArrayList<Object>();
+                this.version = queuedVersion;
+            }
+            if(closed) return;
+
+            for(Object item : changes){
+                Map<?, ?> change = (Map<?, ?>) item;
+                String text = string(change, "text");
+                if(!(change.get("range") instanceof Map) || analysis == null){
+                    analysis = new IncrementalAnalysis(bytes(text));
+                    continue;
+                }
+
+                Map<?, ?> range = (Map<?, ?>) change.get("range");
+                int start = offset(analysis, object(range, "start"));
+                int end = Math.max(start, offset(analysis, object(range, "end")));
+                analysis.edit(start, end - start, bytes(text));
+            }
+        }
+    }
+
+    // One byte per UTF-16 code unit, unlike String.getBytes, which turns a surrogate pair into a single '?'.
+    private static byte[] bytes(String text){
+        byte[] bytes = new byte[text.length()];
+        for(int i = 0; i < bytes.length; i++){
+            char c = text.charAt(i);
+            bytes[i] = (byte) (c <= 0xFF ? c : '?');
+        }
+        return bytes;
+    }
+
+    // The offset of a Position, clamped to its line and to the document.
+    private static int offset(IncrementalAnalysis analysis, Map<?, ?> position){
+        LineIndex lines = analysis.getLineIndex();
+        int line = (int) number(position, "line") + 1;
+        int character = (int) number(position, "character");
+        if(line < 1) return 0;
+        if(line > lines.lineCount()) return analysis.length();
+
+        int start = lines.lineStart(line);
+        int end = line < lines.lineCount() ? lines.lineStart(line + 1) - 1 : analysis.length();
+        return start + Math.max(0, Math.min(character, end - start));
+    }
+
+    private static Map<String, Object> position(int line, int character){
+        Map<String, Object> position = new LinkedHashMap<String, Object>();
+        position.put("line", line);
+        position.put("character", character);
+        return position;
+    }
+
+    private static Map<String, Object> position(LineIndex lines, int offset){
+        return position(lines.line(offset) - 1, lines.column(offset) - 1);
+    }
+
+    private static Map<String, Object> range(Map<String, Object> start, Map<String, Object> end){
+        Map<String, Object> range = new LinkedHashMap<String, Object>();
+        range.put("start", start);
+        range.put("end", end);
+        return range;
+    }
+
+    private static Map<String, Object> range(LineIndex lines, int start, int end){
+        return range(position(lines, start), position(lines, end));
+    }
+
+    private static Map<String, Object> range(LineIndex lines, long span){
+        return range(lines, Span.offset(span), Span.end(span));
+    }
+
+    private static Map<String, Object> diagnostics(String uri, Object version, List<Object> diagnostics){
+        Map<String, Object> params = new LinkedHashMap<String, Object>();
+        params.put("uri", uri);
+        if(version != null) params.put("version", version);
+        params.put("diagnostics", diagnostics);
+        return params;
+    }
+
+    private static Map<String, Object> notification(String method, Object params){
+        Map<String, Object> message = new LinkedHashMap<String, Object>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", method);
+        message.put("params", params);
+        return message;
+    }
+
+    private void respond(Object id, Object result){
+        Map<String, Object> message = new LinkedHashMap<String, Object>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("result", result);
+        send(message);
+    }
+
+    private void sendError(Object id, int code, String text){
+        Map<String, Object> error = new LinkedHashMap<String, Object>();
+        error.put("code", code);
+        error.put("message", text);
+
+        Map<String, Object> message = new LinkedHashMap<String, Object>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("error", error);
+        send(message);
+    }
+
+    // Called from both threads. A failed write ends run() on the reading thread.
+    private synchronized void send(Map<String, Object> message){
+        byte[] content = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        try{
+            out.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Members of the protocol's messages; a missing or mistyped one is an error in the request.
+    private static Map<?, ?> object(Map<?, ?> object, String name){
+        Object value = object.get(name);
+        if(!(value instanceof Map)) throw new IllegalArgumentException("'" + name + "' must be an object");
+        return (Map<?, ?>) value;
+    }
+
+    private static List<?> list(Map<?, ?> object, String name){
+        Object value = object.get(name);
+        if(!(value instanceof List)) throw new IllegalArgumentException("'" + name + "' must be an array");
+        return (List<?>) value;
+    }
+
+    private static String string(Map<?, ?> object, String name){
+        Object value = object.get(name);
+        if(!(value instanceof String)) throw new IllegalArgumentException("'" + name + "' must be a string");
+        return (String) value;
+    }
+
+    private static long number(Map<?, ?> object, String name){
+        Object value = object.get(name);
+        if(!(value instanceof Number)) throw new IllegalArgumentException("'" + name + "' must be a number");
+        return ((Number) value).longValue();
+    }
+}
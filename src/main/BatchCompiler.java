@@ -0,0 +1,169 @@
+package main;
+
+import compiler.CompilationResult;
+import compiler.CompilationStats;
+import compiler.Compiler;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import syntactic.Diagnostic;
+
+// Compiles many independent programs in parallel and reports them in input order.
+// Files are read ahead on a small I/O pool and compiled on a work-stealing pool; at most WINDOW_PER_JOB
+// programs per worker are in flight, so memory stays bounded however many inputs there are.
+public class BatchCompiler {
+
+    private static final int WINDOW_PER_JOB = 4;
+    private static final int IO_THREADS = 4;
+
+    private final Compiler compiler;
+    private final int jobs;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final CompilationStats stats = new CompilationStats();
+
+    public BatchCompiler(Compiler compiler, int jobs, PrintStream out, PrintStream err){
+        this.compiler = compiler;
+        this.jobs = Math.max(1, jobs);
+        this.out = out;
+        this.err = err;
+    }
+
+    // Arguments are files, directories (every regular file below them, sorted) or @argfiles with one argument per line.
+    public static List<Path> expand(List<String> arguments) throws IOException{
+        List<Path> inputs = new ArrayList<Path>();
+        for(String argument : arguments){
+            if(argument.startsWith("@")){
+                List<String> lines = new ArrayList<String>();
+                for(String line : Files.readAllLines(Paths.get(argument.substring(1)), StandardCharsets.UTF_8)){
+                    line = line.trim();
+                    if(!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+                }
+                inputs.addAll(expand(lines));
+            }else{
+                Path path = Paths.get(argument);
+                if(Files.isDirectory(path)){
+                    try(Stream<Path> files = Files.walk(path)){
+                        inputs.addAll(files.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                    }
+                }else{
+                    inputs.add(path);
+                }
+            }
+        }
+        return inputs;
+    }
+
+    // Returns true when every input compiled without errors.
+    public boolean run(List<Path> inputs){
+        ExecutorService workers = Executors.newWorkStealingPool(jobs);
+        ExecutorService io = Executors.newFixedThreadPool(Math.min(IO_THREADS, jobs), runnable -> {
+            Thread thread = new Thread(runnable, "batch-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        boolean success = true;
+        ArrayDeque<CompletableFuture<Outcome>> window = new ArrayDeque<CompletableFuture<Outcome>>();
+        int windowSize = jobs * WINDOW_PER_JOB;
+
+        try{
+            for(Path input : inputs){
+                if(window.size() == windowSize) success &= report(window.poll().join());
+                window.add(submit(input, io, workers));
+            }
+            while(!window.isEmpty()) success &= report(window.poll().join());
+        }finally{
+            io.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        if(stats.units() > 0) err.print(stats.format());
+
+        return success;
+    }
+
+    private CompletableFuture<Outcome> submit(Path input, ExecutorService io, ExecutorService workers){
+        return CompletableFuture.supplyAsync(() -> read(input), io)
+                                .thenApplyAsync(outcome -> outcome.compile(compiler), workers);
+    }
+
+    // Files are read ahead on the I/O pool, so the read is timed here, on the thread doing it, and charged to
+    // the unit's statistics once it is reported.
+    private static Outcome read(Path input){
+        try{
+            long allocated = CompilationStats.allocatedBytes();
+            long start = System.nanoTime();
+            Outcome outcome = new Outcome(input, Files.readAllBytes(input));
+            outcome.readNanos = System.nanoTime() - start;
+            outcome.readAllocated = CompilationStats.allocatedBytes() - allocated;
+            return outcome;
+        }catch(NoSuchFileException e){
+            return new Outcome(input, "File " + input + " not found");
+        }catch(IOException e){
+            return new Outcome(input, "Could not read " + input + ": " + e.getMessage());
+        }
+    }
+
+    private boolean report(Outcome outcome){
+        if(outcome.failure != null){
+            err.println(outcome.failure);
+            return false;
+        }
+
+        for(Diagnostic diagnostic : outcome.result.getDiagnostics()){
+            err.println(outcome.path + ": " + diagnostic);
+        }
+        if(outcome.result.getStats() != null){
+            stats.add(outcome.result.getStats());
+            stats.addRead(outcome.readNanos, outcome.readAllocated);
+        }
+        if(outcome.result.isSuccess()) out.println(outcome.path + ": Semantic analysis completed with success!");
+        return outcome.result.isSuccess();
+    }
+
+    // One input on its way through the pipeline: its bytes once read, then its result.
+    private static final class Outcome {
+        final Path path;
+        byte[] source;
+        long readNanos;
+        long readAllocated;
+        CompilationResult result;
+        String failure;
+
+        Outcome(Path path, byte[] source){
+            this.path = path;
+            this.source = source;
+        }
+
+        Outcome(Path path, String failure){
+            this.path = path;
+            this.failure = failure;
+        }
+
+        // A compiler bug fails this input only, not the batch.
+        Outcome compile(Compiler compiler){
+            if(failure == null){
+                try{
+                    result = compiler.compile(source, path.toString());
+                }catch(RuntimeException e){
+                    failure = "Could not compile " + path + ": " + e;
+                }
+                source = null;
+            }
+            return this;
+        }
+    }
+}
@@ -1,18 +1,267 @@
 package main;
+import codegen.BytecodeGenerator;
+import codegen.CodeGenerationException;
+import codegen.ProgramLoader;
+import compiler.CompilationCache;
+import compiler.CompilationResult;
+import compiler.CompilationStats;
+import compiler.Compiler;
+import compiler.LexingMode;
+import interpreter.Interpreter;
+import interpreter.ProgramException;
+import interpreter.Translator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import lexical.SourceBuffer;
+import lexical.TokenFile;
+import syntactic.Diagnostic;
 import syntactic.SyntacticAnalysis;
 public class Main {
+
+    private static final long DEFAULT_CACHE_SIZE = 256L << 20;
+
     public static void main(String[] args) {
 
-        if (args.length < 1){
-            System.out.println("Usage: java Main [source code path]");
+        List<String> paths = new ArrayList<String>();
+        int maxErrors = SyntacticAnalysis.DEFAULT_MAX_ERRORS;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        String cacheDirectory = null;
+        long cacheSize = DEFAULT_CACHE_SIZE;
+        String classDirectory = null;
+        String tokensPath = null;
+        boolean run = false;
+        boolean interpret = false;
+        boolean verbose = false;
+        boolean stats = false;
+        LexingMode lexing = LexingMode.SEQUENTIAL;
+
+        for(int i = 0; i < args.length; i++){
+            String option = args[i];
+            String value = null;
+            int equals = option.indexOf('=');
+            if(option.startsWith("-") && equals > 0){
+                value = option.substring(equals + 1);
+                option = option.substring(0, equals);
+            }
+
+            switch(option){
+                case "--max-errors":
+                    maxErrors = positive(value != null ? value : argument(args, ++i));
+                break;
+                case "--jobs":
+                case "-j":
+                    jobs = positive(value != null ? value : argument(args, ++i));
+                break;
+                case "--cache":
+                    cacheDirectory = value != null ? value : argument(args, ++i);
+                break;
+                case "--cache-size":
+                    cacheSize = size(value != null ? value : argument(args, ++i));
+                break;
+                case "--emit-class":
+                    classDirectory = value != null ? value : argument(args, ++i);
+                break;
+                case "--emit-tokens":
+                    tokensPath = value != null ? value : argument(args, ++i);
+                break;
+                case "--run":
+                    run = true;
+                break;
+                case "--interpret":
+                    interpret = true;
+                break;
+                case "--verbose":
+                    verbose = true;
+                break;
+                case "--stats":
+                    stats = true;
+                break;
+                case "--pipeline":
+                    lexing = LexingMode.PIPELINED;
+                break;
+                case "--parallel-lex":
+                    lexing = LexingMode.PARALLEL;
+                break;
+                default:
+                    paths.add(args[i]);
+            }
+        }
+
+        if (paths.isEmpty()) usage();
+
+        String path = paths.get(0);
+        boolean isBatch = paths.size() > 1 || path.startsWith("@") || Files.isDirectory(Paths.get(path));
+        // Each of these acts on one program; a batch only reports diagnostics and --stats.
+        if(isBatch && (run || interpret || verbose || classDirectory != null || tokensPath != null)){
+            System.err.println("--run, --interpret, --verbose, --emit-class and --emit-tokens take a single source file");
+            usage();
+        }
+
+        boolean generate = run || interpret || classDirectory != null;
+        // --verbose reports on the folded tree, so it needs one too.
+        boolean buildAst = generate || verbose;
+        Compiler compiler = new Compiler(maxErrors, null, buildAst, stats, lexing);
+        if(cacheDirectory != null){
+            try{
+                compiler = new Compiler(maxErrors, new CompilationCache(Paths.get(cacheDirectory), cacheSize), buildAst, stats, lexing);
+            }catch(IOException e){
+                System.err.println("Could not open cache " + cacheDirectory + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if(isBatch){
+            batch(compiler, paths, jobs);
+            return;
+        }
+
+        Path source = Paths.get(path);
+        if(!Files.exists(source)){
+            System.err.println("File " + path + " not found");
             System.exit(1);
         }
 
-        String path = args[0];
-        
-        SyntacticAnalysis parser = new SyntacticAnalysis(path);
+        if(tokensPath != null) emitTokens(source, Paths.get(tokensPath));
 
-        parser.start();
+        CompilationResult result;
+        try{
+            result = compiler.compile(source);
+        }catch(IOException e){
+            System.err.println("Could not read " + path + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        for(Diagnostic diagnostic : result.getDiagnostics()){
+            System.err.println(diagnostic);
+        }
+        if(stats) printStats(result.getStats());
+
+        if(!result.isSuccess()) System.exit(1);
+        if(verbose && result.getAst() != null){
+            System.err.println("Constant folding eliminated " + result.getAst().eliminatedNodes() + " AST nodes");
+        }
+        if(!run && !interpret) System.out.println("Semantic analysis completed with success!");
+
+        if(interpret) interpret(result);
+        else if(generate) generate(result, source, classDirectory, run);
+
+    }
+
+    private static void generate(CompilationResult result, Path source, String classDirectory, boolean run){
+        String sourceFile = source.getFileName().toString();
+        try{
+            if(classDirectory != null){
+                String name = BytecodeGenerator.programName(result.getAst(), result.getSymbolTable());
+                byte[] bytes = BytecodeGenerator.generate(result.getAst(), result.getSymbolTable(), name, sourceFile);
+                Path directory = Paths.get(classDirectory);
+                Files.createDirectories(directory);
+                Files.write(directory.resolve(name + ".class"), bytes);
+            }
+            if(run) ProgramLoader.run(result.getAst(), result.getSymbolTable(), sourceFile);
+        }catch(ProgramException e){
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }catch(CodeGenerationException e){
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }catch(IOException e){
+            System.err.println("Could not write class file: " + e.getMessage());
+            System.exit(1);
+        }catch(Throwable e){
+            // Not a failure the program can have; show it like the JVM would.
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    // Tokens for tools that would rather not lex, see TokenFile.
+    private static void emitTokens(Path source, Path tokens){
+        SourceBuffer input = null;
+        try{
+            input = SourceBuffer.open(source);
+            TokenFile.write(input, tokens);
+        }catch(IOException e){
+            System.err.println("Could not write tokens to " + tokens + ": " + e.getMessage());
+            System.exit(1);
+        }finally{
+            if(input != null) input.close();
+        }
+    }
+
+    private static void interpret(CompilationResult result){
+        try{
+            new Interpreter(System.in, System.out).run(Translator.translate(result.getAst(), result.getSymbolTable()));
+        }catch(ProgramException e){
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }catch(IOException e){
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printStats(CompilationStats stats){
+        if(stats == null) System.err.println("No statistics: the result came from the cache");
+        else System.err.print(stats.format());
+    }
+
+    private static void batch(Compiler compiler, List<String> paths, int jobs){
+        List<Path> inputs;
+        try{
+            inputs = BatchCompiler.expand(paths);
+        }catch(IOException e){
+            System.err.println("Could not list inputs: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        BatchCompiler batch = new BatchCompiler(compiler, jobs, System.out, System.err);
+        if(!batch.run(inputs)) System.exit(1);
+    }
+
+    private static String argument(String[] args, int i){
+        if(i >= args.length) usage();
+        return args[i];
+    }
+
+    // A number of at least 1; anything else is a usage error.
+    private static int positive(String text){
+        try{
+            int value = Integer.parseInt(text);
+            if(value >= 1) return value;
+        }catch(NumberFormatException e){
+            // Reported below.
+        }
+        System.err.println("Expecting a positive number, got '" + text + "'");
+        usage();
+        return 0;
+    }
+
+    // Bytes, or a number followed by K, M or G.
+    private static long size(String text){
+        if(!text.isEmpty()){
+            char unit = Character.toUpperCase(text.charAt(text.length() - 1));
+            int shift = unit == 'K' ? 10 : unit == 'M' ? 20 : unit == 'G' ? 30 : 0;
+            String number = shift != 0 ? text.substring(0, text.length() - 1) : text;
+            try{
+                long value = Long.parseLong(number);
+                if(value >= 0 && value <= Long.MAX_VALUE >> shift) return value << shift;
+            }catch(NumberFormatException e){
+                // Reported below.
+            }
+        }
+        System.err.println("Expecting a size in bytes, K, M or G, got '" + text + "'");
+        usage();
+        return 0;
+    }
 
+    private static void usage(){
+        System.out.println("Usage: java Main [--max-errors N] [--jobs N] [--cache DIR] [--cache-size N[K|M|G]] [--emit-class DIR] [--emit-tokens FILE] [--run | --interpret] [--verbose] [--stats] [--pipeline | --parallel-lex] [source code path | directory | @argfile]...");
+        System.exit(1);
     }
 }
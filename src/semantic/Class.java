@@ -1,42 +1,19 @@
 package semantic;
 
-public class Class {
-    public static final int CLASS = 1;
-    public static final int VARIABLE = 2;
-    public static final int ERROR = -1;
+// Canonical identifier classes: compare with ==, never allocated while checking.
+public enum Class {
+    CLASS("class"),
+    VARIABLE("variable"),
+    ERROR("error");
 
-    private int idClass;
-    public Class(int idClass){
-        if(idClass >= 1 && idClass <= 2){
-            this.idClass = idClass;
-        }else{
-            this.idClass = ERROR;
-        }
-    }
-
-    public int getIdClass(){
-        return this.idClass;
-    }
-
-    @Override
-    public boolean equals(Object obj){
-        if(this == obj) return true;
-        if(!(obj instanceof Class)) return false;
-        
-        Class c = (Class) obj;
-        return this.idClass == c.getIdClass();
-    }
+    private final String name;
 
-    public boolean equals(int idClass){
-        return idClass == this.idClass;
+    private Class(String name){
+        this.name = name;
     }
 
     @Override
     public String toString(){
-        switch(this.idClass){
-            case CLASS: return "class";
-            case VARIABLE: return "variable";
-            default: return "error";
-        }
+        return name;
     }
 }
@@ -0,0 +1,157 @@
+package syntactic;
+
+import java.util.Arrays;
+import lexical.TokenType;
+import semantic.Type;
+
+// Abstract syntax tree in struct-of-arrays form: a node is an index into parallel primitive arrays,
+// so a program costs 22 bytes per node and no object per node. Children are linked in source order
+// through firstChild/nextSibling and NONE ends a list. Built by AstBuilder.
+public final class Ast {
+
+    public static final int NONE = -1;
+
+    private static final NodeKind[] KINDS = NodeKind.values();
+    private static final Type[] TYPES = Type.values();
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final byte[] kinds;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] tokens;
+    private final byte[] types;
+    private final int[] lines;
+    private final int[] values;
+    private final String[] literals;
+    private final int size;
+    private final int root;
+    private final int eliminated;
+
+    Ast(byte[] kinds, int[] firstChild, int[] nextSibling, int[] tokens, byte[] types, int[] lines, int[] values,
+        String[] literals, int size, int root, int eliminated){
+        this.kinds = kinds;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.tokens = tokens;
+        this.types = types;
+        this.lines = lines;
+        this.values = values;
+        this.literals = literals;
+        this.size = size;
+        this.root = root;
+        this.eliminated = eliminated;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // Nodes removed from the tree by constant folding while it was built.
+    public int eliminatedNodes(){
+        return eliminated;
+    }
+
+    // The PROGRAM node, or NONE when nothing could be parsed.
+    public int root(){
+        return root;
+    }
+
+    public NodeKind kind(int node){
+        return KINDS[kinds[node]];
+    }
+
+    public int firstChild(int node){
+        return firstChild[node];
+    }
+
+    public int nextSibling(int node){
+        return nextSibling[node];
+    }
+
+    public int childCount(int node){
+        int count = 0;
+        for(int child = firstChild[node]; child != NONE; child = nextSibling[child]) count++;
+        return count;
+    }
+
+    // NONE when node has no such child.
+    public int child(int node, int index){
+        int child = firstChild[node];
+        for(int i = 0; i < index && child != NONE; i++) child = nextSibling[child];
+        return child;
+    }
+
+    // Position of the node's main token (keyword, operator or operand) in the token stream.
+    public int token(int node){
+        return tokens[node];
+    }
+
+    public int line(int node){
+        return lines[node];
+    }
+
+    // Resolved type of an expression, declared type of a DECL; VOID for statements.
+    public Type type(int node){
+        return TYPES[types[node]];
+    }
+
+    public int value(int node){
+        return values[node];
+    }
+
+    public int symbol(int node){
+        return values[node];
+    }
+
+    public TokenType operator(int node){
+        return TOKEN_TYPES[values[node]];
+    }
+
+    public boolean booleanValue(int node){
+        return values[node] != 0;
+    }
+
+    public int intValue(int node){
+        return values[node];
+    }
+
+    public float floatValue(int node){
+        return Float.intBitsToFloat(values[node]);
+    }
+
+    public String literal(int node){
+        return literals[values[node]];
+    }
+
+    public void walk(AstVisitor visitor){
+        if(root != NONE) walk(root, visitor);
+    }
+
+    // Visits the subtree of start without recursion, so deeply nested programs cannot overflow the stack.
+    public void walk(int start, AstVisitor visitor){
+        int[] stack = new int[16];
+        int depth = 0;
+        int node = start;
+
+        while(true){
+            if(visitor.enter(this, node) && firstChild[node] != NONE){
+                if(depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+                stack[depth++] = node;
+                node = firstChild[node];
+                continue;
+            }
+            visitor.leave(this, node);
+
+            // Climb until a node with a next sibling; depth 0 means we are back at start.
+            while(true){
+                if(depth == 0) return;
+                if(nextSibling[node] != NONE){
+                    node = nextSibling[node];
+                    break;
+                }
+                node = stack[--depth];
+                visitor.leave(this, node);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package syntactic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lexical.TokenType;
+import semantic.Type;
+
+// Appends nodes to growable columns. Statements are built top-down with open()/close(): a node is
+// attached to the innermost open node as soon as it is opened. Expressions are built bottom-up with
+// leaf()/operator()/complete() and attached to the innermost open node once complete.
+public final class AstBuilder {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+    private int[] tokens = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+    private int root = Ast.NONE;
+    private int eliminated;
+
+    private final List<String> literals = new ArrayList<String>();
+
+    // Open nodes and their last child so far, innermost last.
+    private int[] open = new int[16];
+    private int[] lastChild = new int[16];
+    private int depth;
+
+    private int node(NodeKind kind, int token, int line, int value){
+        if(size == kinds.length) grow();
+
+        int node = size++;
+        kinds[node] = (byte) kind.ordinal();
+        firstChild[node] = Ast.NONE;
+        nextSibling[node] = Ast.NONE;
+        tokens[node] = token;
+        types[node] = (byte) Type.VOID.ordinal();
+        lines[node] = line;
+        values[node] = value;
+        return node;
+    }
+
+    private void grow(){
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        tokens = Arrays.copyOf(tokens, capacity);
+        types = Arrays.copyOf(types, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    public int open(NodeKind kind, int token, int line, int value){
+        int node = node(kind, token, line, value);
+        attach(node);
+
+        if(depth == open.length){
+            open = Arrays.copyOf(open, depth * 2);
+            lastChild = Arrays.copyOf(lastChild, depth * 2);
+        }
+        open[depth] = node;
+        lastChild[depth] = Ast.NONE;
+        depth++;
+        return node;
+    }
+
+    public void close(){
+        depth--;
+    }
+
+    public int depth(){
+        return depth;
+    }
+
+    // The innermost open node, or Ast.NONE.
+    public int innermost(){
+        return depth == 0 ? Ast.NONE : open[depth - 1];
+    }
+
+    // Closes every node opened after depth() returned depth, as when a statement is abandoned after a syntax error.
+    public void unwind(int depth){
+        this.depth = Math.min(this.depth, depth);
+    }
+
+    public int leaf(NodeKind kind, int token, int line, int value, Type type){
+        int node = node(kind, token, line, value);
+        types[node] = (byte) type.ordinal();
+        return node;
+    }
+
+    public int literal(String text, int token, int line){
+        literals.add(text);
+        return leaf(NodeKind.LITERAL, token, line, literals.size() - 1, Type.STRING);
+    }
+
+    // Operator node for a binary operator when left is given, for a prefix operator when left is NONE.
+    // Operators are created when they are read, before their right operand; see complete().
+    public int operator(TokenType operator, int token, int line, int left){
+        int node = node(left == Ast.NONE ? NodeKind.UNARY : NodeKind.BINARY, token, line, operator.ordinal());
+        firstChild[node] = left;
+        return node;
+    }
+
+    // Adds the last operand of an operator node and its resolved type. Returns the node that stands for the
+    // expression, which ConstantFolder may have replaced by a constant or one of the operands.
+    public int complete(int node, int operand, Type type){
+        int left = firstChild[node];
+        if(left == Ast.NONE) firstChild[node] = operand;
+        else nextSibling[left] = operand;
+
+        types[node] = (byte) type.ordinal();
+        return ConstantFolder.fold(this, node);
+    }
+
+    // Replaces a finished IF or DO node whose condition is constant by the statements that will run.
+    public void foldStatement(int node){
+        ConstantFolder.foldStatement(this, node);
+    }
+
+    // Nodes removed from the tree by ConstantFolder so far.
+    public int eliminated(){
+        return eliminated;
+    }
+
+    // Appends node as the last child of the innermost open node; the first node attached at depth 0 is the root.
+    public void attach(int node){
+        if(node == Ast.NONE) return;
+
+        if(depth == 0){
+            if(root == Ast.NONE) root = node;
+            return;
+        }
+
+        int parent = open[depth - 1];
+        int last = lastChild[depth - 1];
+        if(last == Ast.NONE) firstChild[parent] = node;
+        else nextSibling[last] = node;
+        lastChild[depth - 1] = node;
+    }
+
+    public void setType(int node, Type type){
+        types[node] = (byte) type.ordinal();
+    }
+
+    public void setValue(int node, int value){
+        values[node] = value;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // Column access for ConstantFolder.
+    NodeKind kind(int node){
+        return NodeKind.values()[kinds[node]];
+    }
+
+    int firstChild(int node){
+        return firstChild[node];
+    }
+
+    int nextSibling(int node){
+        return nextSibling[node];
+    }
+
+    void setNextSibling(int node, int sibling){
+        nextSibling[node] = sibling;
+    }
+
+    Type type(int node){
+        return Type.values()[types[node]];
+    }
+
+    int value(int node){
+        return values[node];
+    }
+
+    String literalText(int node){
+        return literals.get(values[node]);
+    }
+
+    // Turns node into a constant leaf; value is encoded as for the kind's value column.
+    void constant(int node, NodeKind kind, int value, Type type){
+        kinds[node] = (byte) kind.ordinal();
+        firstChild[node] = Ast.NONE;
+        nextSibling[node] = Ast.NONE;
+        values[node] = value;
+        types[node] = (byte) type.ordinal();
+    }
+
+    void constantLiteral(int node, String text){
+        literals.add(text);
+        constant(node, NodeKind.LITERAL, literals.size() - 1, Type.STRING);
+    }
+
+    void statementList(int node, int firstStatement){
+        kinds[node] = (byte) NodeKind.STMT_LIST.ordinal();
+        firstChild[node] = firstStatement;
+        values[node] = 0;
+    }
+
+    // Drops every node from size on; only the nodes of the expression being folded can be there.
+    void truncate(int size){
+        this.size = size;
+    }
+
+    void addEliminated(int count){
+        eliminated += count;
+    }
+
+    public Ast build(){
+        return new Ast(Arrays.copyOf(kinds, size), Arrays.copyOf(firstChild, size), Arrays.copyOf(nextSibling, size),
+                       Arrays.copyOf(tokens, size), Arrays.copyOf(types, size), Arrays.copyOf(lines, size),
+                       Arrays.copyOf(values, size), literals.toArray(new String[0]), size, root, eliminated);
+    }
+}
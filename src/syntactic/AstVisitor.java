@@ -0,0 +1,11 @@
+package syntactic;
+
+// Depth-first traversal of an Ast, see Ast.walk().
+public interface AstVisitor {
+
+    // Returns false to skip the children of node.
+    boolean enter(Ast ast, int node);
+
+    // Called for every entered node, after its children.
+    default void leave(Ast ast, int node){}
+}
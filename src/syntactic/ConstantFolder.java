@@ -0,0 +1,238 @@
+package syntactic;
+
+import java.util.Arrays;
+import lexical.TokenType;
+import semantic.Type;
+
+// Folds expressions while AstBuilder completes them, so constants never reach the backends as operator nodes.
+// Operands are already folded when their operator completes, so chains like 60 * 60 * 24 collapse one step at
+// a time. Results follow the runtime semantics of both backends: int arithmetic wraps, "/" always yields a float
+// and string == compares contents.
+final class ConstantFolder {
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private ConstantFolder(){}
+
+    static int fold(AstBuilder ast, int node){
+        if(ast.type(node) == Type.ERROR) return node;
+
+        int left = ast.firstChild(node);
+        int right = ast.nextSibling(left);
+        TokenType operator = TOKEN_TYPES[ast.value(node)];
+
+        if(ast.kind(node) == NodeKind.UNARY){
+            if(!isConstant(ast, left) || !unary(ast, node, operator, left)) return node;
+
+            // The operand is the only node after the operator.
+            ast.truncate(node + 1);
+            ast.addEliminated(1);
+            return node;
+        }
+
+        if(isConstant(ast, left) && isConstant(ast, right)){
+            // Nothing but the operator and the right operand follows a constant left operand, so the result
+            // can take the left operand's place and everything after it is dropped.
+            int target = left + 1 == node ? left : node;
+            if(!binary(ast, target, operator, left, right)) return node;
+
+            ast.truncate(target + 1);
+            ast.addEliminated(2);
+            return target;
+        }
+
+        if(isIdentity(ast, operator, right, false)){
+            // The operator and the right operand are the last nodes; the left operand stands for the expression.
+            ast.setNextSibling(left, Ast.NONE);
+            ast.truncate(node);
+            ast.addEliminated(2);
+            return left;
+        }
+
+        if(isIdentity(ast, operator, left, true)){
+            // The right operand was built after the operator, so the dropped nodes stay in the columns unreferenced.
+            ast.addEliminated(2);
+            return right;
+        }
+        return node;
+    }
+
+    // Replaces IF by the branch its constant condition selects, and DO by its body when the condition is false.
+    // Called for every statement, so only the nodes a fold drops are counted.
+    static void foldStatement(AstBuilder ast, int node){
+        if(ast.kind(node) == NodeKind.IF){
+            int condition = ast.firstChild(node);
+            if(condition == Ast.NONE || ast.kind(condition) != NodeKind.BOOL_CONST) return;
+
+            int then = ast.nextSibling(condition);
+            if(then == Ast.NONE) return;
+            int otherwise = ast.nextSibling(then);
+            int chosen = ast.value(condition) != 0 ? then : otherwise;
+
+            // The condition, the branch not taken and the list node of the one taken.
+            int dropped = count(ast, condition) + (chosen == then ? count(ast, otherwise) : count(ast, then));
+            if(chosen != Ast.NONE) dropped++;
+
+            ast.statementList(node, chosen == Ast.NONE ? Ast.NONE : ast.firstChild(chosen));
+            ast.addEliminated(dropped);
+        }else if(ast.kind(node) == NodeKind.DO){
+            int body = ast.firstChild(node);
+            if(body == Ast.NONE) return;
+
+            int condition = ast.nextSibling(body);
+            if(condition == Ast.NONE || ast.kind(condition) != NodeKind.BOOL_CONST || ast.value(condition) != 0) return;
+
+            // The condition and the list node of the body.
+            ast.statementList(node, ast.firstChild(body));
+            ast.addEliminated(count(ast, condition) + 1);
+        }
+    }
+
+    private static boolean isConstant(AstBuilder ast, int node){
+        if(node == Ast.NONE) return false;
+
+        switch(ast.kind(node)){
+            case INT_CONST:
+            case REAL_CONST:
+            case LITERAL:
+            case BOOL_CONST: return true;
+            default: return false;
+        }
+    }
+
+    // x + 0, x - 0 and x * 1 for ints; x - 0.0 and x * 1.0 for floats. x + 0.0 is not an identity (-0.0 + 0.0 is 0.0)
+    // and x / 1 is not one either, since "/" converts ints to float.
+    private static boolean isIdentity(AstBuilder ast, TokenType operator, int operand, boolean leftSide){
+        if(operand == Ast.NONE) return false;
+
+        if(ast.kind(operand) == NodeKind.INT_CONST){
+            int value = ast.value(operand);
+            if(operator == TokenType.ADD) return value == 0;
+            if(operator == TokenType.SUB) return value == 0 && !leftSide;
+            if(operator == TokenType.MUL) return value == 1;
+        }else if(ast.kind(operand) == NodeKind.REAL_CONST){
+            float value = Float.intBitsToFloat(ast.value(operand));
+            if(operator == TokenType.SUB) return value == 0.0f && !leftSide;
+            if(operator == TokenType.MUL) return value == 1.0f;
+        }
+        return false;
+    }
+
+    private static boolean unary(AstBuilder ast, int target, TokenType operator, int operand){
+        switch(ast.kind(operand)){
+            case INT_CONST:
+                if(operator != TokenType.SUB) return false;
+                ast.constant(target, NodeKind.INT_CONST, -ast.value(operand), Type.INT);
+                return true;
+            case REAL_CONST:
+                if(operator != TokenType.SUB) return false;
+                ast.constant(target, NodeKind.REAL_CONST, Float.floatToRawIntBits(-floatOf(ast, operand)), Type.FLOAT);
+                return true;
+            case BOOL_CONST:
+                if(operator != TokenType.NOT) return false;
+                ast.constant(target, NodeKind.BOOL_CONST, ast.value(operand) ^ 1, Type.BOOLEAN);
+                return true;
+            default: return false;
+        }
+    }
+
+    // Writes the result into target, which may be the left operand itself: both operands are read first.
+    private static boolean binary(AstBuilder ast, int target, TokenType operator, int left, int right){
+        NodeKind kind = ast.kind(left);
+        if(ast.kind(right) != kind) return false;
+
+        switch(kind){
+            case INT_CONST: return integer(ast, target, operator, ast.value(left), ast.value(right));
+            case REAL_CONST: return floating(ast, target, operator, floatOf(ast, left), floatOf(ast, right));
+            case LITERAL: return string(ast, target, operator, ast.literalText(left), ast.literalText(right));
+            case BOOL_CONST: return bool(ast, target, operator, ast.value(left) != 0, ast.value(right) != 0);
+            default: return false;
+        }
+    }
+
+    private static boolean integer(AstBuilder ast, int target, TokenType operator, int a, int b){
+        switch(operator){
+            case ADD: ast.constant(target, NodeKind.INT_CONST, a + b, Type.INT); return true;
+            case SUB: ast.constant(target, NodeKind.INT_CONST, a - b, Type.INT); return true;
+            case MUL: ast.constant(target, NodeKind.INT_CONST, a * b, Type.INT); return true;
+            case DIV: return floating(ast, target, operator, (float) a, (float) b);
+            default: return relation(ast, target, operator, Integer.compare(a, b), false);
+        }
+    }
+
+    private static boolean floating(AstBuilder ast, int target, TokenType operator, float a, float b){
+        switch(operator){
+            case ADD: return floatConstant(ast, target, a + b);
+            case SUB: return floatConstant(ast, target, a - b);
+            case MUL: return floatConstant(ast, target, a * b);
+            case DIV: return floatConstant(ast, target, a / b);
+            default: return relation(ast, target, operator, a < b ? -1 : a > b ? 1 : 0, a != a || b != b);
+        }
+    }
+
+    private static boolean string(AstBuilder ast, int target, TokenType operator, String a, String b){
+        switch(operator){
+            case ADD: ast.constantLiteral(target, a + b); return true;
+            case EQUALS: return boolConstant(ast, target, a.equals(b));
+            case NOT_EQUALS: return boolConstant(ast, target, !a.equals(b));
+            default: return false;
+        }
+    }
+
+    private static boolean bool(AstBuilder ast, int target, TokenType operator, boolean a, boolean b){
+        switch(operator){
+            case AND: return boolConstant(ast, target, a && b);
+            case OR: return boolConstant(ast, target, a || b);
+            case EQUALS: return boolConstant(ast, target, a == b);
+            case NOT_EQUALS: return boolConstant(ast, target, a != b);
+            default: return false;
+        }
+    }
+
+    // Every comparison with NaN is false except !=.
+    private static boolean relation(AstBuilder ast, int target, TokenType operator, int comparison, boolean unordered){
+        switch(operator){
+            case EQUALS: return boolConstant(ast, target, !unordered && comparison == 0);
+            case NOT_EQUALS: return boolConstant(ast, target, unordered || comparison != 0);
+            case LOWER: return boolConstant(ast, target, !unordered && comparison < 0);
+            case LOWER_EQUAL: return boolConstant(ast, target, !unordered && comparison <= 0);
+            case GREATER: return boolConstant(ast, target, !unordered && comparison > 0);
+            case GREATER_EQUAL: return boolConstant(ast, target, !unordered && comparison >= 0);
+            default: return false;
+        }
+    }
+
+    private static boolean floatConstant(AstBuilder ast, int target, float value){
+        ast.constant(target, NodeKind.REAL_CONST, Float.floatToRawIntBits(value), Type.FLOAT);
+        return true;
+    }
+
+    private static boolean boolConstant(AstBuilder ast, int target, boolean value){
+        ast.constant(target, NodeKind.BOOL_CONST, value ? 1 : 0, Type.BOOLEAN);
+        return true;
+    }
+
+    private static float floatOf(AstBuilder ast, int node){
+        return Float.intBitsToFloat(ast.value(node));
+    }
+
+    // Nodes of the subtree rooted at node, 0 for NONE. Walked with an explicit stack, since statements nest
+    // deeper than the Java stack allows.
+    private static int count(AstBuilder ast, int node){
+        if(node == Ast.NONE) return 0;
+
+        int count = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = node;
+        while(top > 0){
+            int current = stack[--top];
+            count++;
+            for(int child = ast.firstChild(current); child != Ast.NONE; child = ast.nextSibling(child)){
+                if(top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = child;
+            }
+        }
+        return count;
+    }
+}
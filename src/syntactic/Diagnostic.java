@@ -0,0 +1,64 @@
+package syntactic;
+
+import lexical.Span;
+
+// A lexical, syntactic or semantic error; the message already carries its position. Errors found at a token
+// also have its column and length and an excerpt of the source line with the token underlined.
+public class Diagnostic {
+
+    private final int line;
+    private final int column;
+    private final int length;
+    private final String message;
+    private final String excerpt;
+    // Kept for IncrementalAnalysis, which moves diagnostics along with the source after an edit.
+    private final long span;
+
+    public Diagnostic(int line, String message){
+        this(line, 0, 0, message, "");
+    }
+
+    public Diagnostic(int line, int column, int length, String message, String excerpt){
+        this(line, column, length, message, excerpt, Span.NONE);
+    }
+
+    Diagnostic(int line, int column, int length, String message, String excerpt, long span){
+        this.line = line;
+        this.column = column;
+        this.length = length;
+        this.message = message;
+        this.excerpt = excerpt;
+        this.span = span;
+    }
+
+    public int getLine(){
+        return line;
+    }
+
+    // 1 for the first character of the line, 0 when the diagnostic has no position in the line.
+    public int getColumn(){
+        return column;
+    }
+
+    public int getLength(){
+        return length;
+    }
+
+    public String getMessage(){
+        return message;
+    }
+
+    // Empty when there is no column.
+    public String getExcerpt(){
+        return excerpt;
+    }
+
+    long span(){
+        return span;
+    }
+
+    @Override
+    public String toString(){
+        return excerpt.isEmpty() ? message : message + System.lineSeparator() + excerpt;
+    }
+}
@@ -0,0 +1,235 @@
+package syntactic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lexical.LineIndex;
+import lexical.Span;
+import lexical.SymbolTable;
+import lexical.Token;
+import lexical.TokenStream;
+import lexical.TokenType;
+import lexical.WordToken;
+
+// Keeps the analysis of a source that is being edited, as an editor would, and redoes only what an edit affects.
+//
+// The tokens are kept in a TokenStream, which re-lexes around the edit. The parser takes a checkpoint before
+// every statement; an edit resumes parsing from the last one before the first re-lexed token, and stops at the first one after the re-lexed tokens whose state is that of an old checkpoint at the
+// same token: from there on the old diagnostics still hold, moved along with the source. An edit that reaches
+// the class name or the declarations is analyzed again from the start.
+//
+// Unlike Compiler there is no limit on the number of errors, which would make the diagnostics after an edit
+// depend on those before it. Nor is there an AST.
+public final class IncrementalAnalysis {
+
+    // Thrown by the checkpoint listener once the parse has caught up with the previous one.
+    private static final class CaughtUpException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        // The old checkpoint the parse reached.
+        final int checkpoint;
+
+        CaughtUpException(int checkpoint){
+            super(null, null, false, false);
+            this.checkpoint = checkpoint;
+        }
+    }
+
+    private final SymbolTable st;
+    private final TokenStream tokens;
+
+    private List<Diagnostic> diagnostics;
+    private List<SyntacticAnalysis.Checkpoint> checkpoints;
+    // Span of the declaration of every declared symbol. Declarations come before the first checkpoint, so
+    // only a full analysis changes them.
+    private Map<Integer, Long> declarations;
+
+    public IncrementalAnalysis(CharSequence text){
+        this(text.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    public IncrementalAnalysis(byte[] text){
+        this.st = new SymbolTable();
+        this.tokens = new TokenStream(text, st);
+        analyze();
+    }
+
+    public List<Diagnostic> getDiagnostics(){
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    // Also holds the identifiers of removed tokens.
+    public SymbolTable getSymbolTable(){
+        return st;
+    }
+
+    public int length(){
+        return tokens.length();
+    }
+
+    public LineIndex getLineIndex(){
+        return tokens.getLineIndex();
+    }
+
+    // The entry of the identifier at offset or just before it, as when the cursor is at its end; -1 if there is none.
+    public int identifierAt(int offset){
+        int entry = tokens.entryAt(offset);
+        if(!isIdentifier(entry) && offset > 0) entry = tokens.entryAt(offset - 1);
+        return isIdentifier(entry) ? entry : -1;
+    }
+
+    private boolean isIdentifier(int entry){
+        return entry >= 0 && tokens.token(entry).getType() == TokenType.IDENTIFIER;
+    }
+
+    public WordToken getIdentifier(int entry){
+        Token token = tokens.token(entry);
+        return token instanceof WordToken ? (WordToken) token : null;
+    }
+
+    public long getSpan(int entry){
+        return tokens.span(entry);
+    }
+
+    // Span.NONE when the identifier is not declared.
+    public long getDeclaration(WordToken identifier){
+        Long span = declarations.get(identifier.getSymbolId());
+        return span == null ? Span.NONE : span;
+    }
+
+    public List<Diagnostic> edit(int offset, int removed, CharSequence inserted){
+        return edit(offset, removed, inserted.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    // Replaces the removed characters at offset with inserted and returns the diagnostics of the edited source.
+    public List<Diagnostic> edit(int offset, int removed, byte[] inserted){
+        int oldLines = tokens.getLineIndex().line(tokens.length());
+        tokens.edit(offset, removed, inserted);
+        LineIndex lines = tokens.getLineIndex();
+
+        // The last checkpoint whose token was not lexed again.
+        int from = before(checkpoints, tokens.changedFrom());
+        if(from < 0){
+            st.undefineAll();
+            analyze();
+            return getDiagnostics();
+        }
+
+        SyntacticAnalysis.Checkpoint start = checkpoints.get(from);
+        List<SyntacticAnalysis.Checkpoint> oldCheckpoints = checkpoints;
+        List<Diagnostic> oldDiagnostics = diagnostics;
+        checkpoints = new ArrayList<SyntacticAnalysis.Checkpoint>(oldCheckpoints.subList(0, from + 1));
+        diagnostics = new ArrayList<Diagnostic>(oldDiagnostics.subList(0, start.diagnostics));
+
+        // Excerpts of the edited line show the edit.
+        int lineStart = offset - lines.column(offset) + 1;
+        for(int i = 0; i < diagnostics.size(); i++){
+            Diagnostic diagnostic = diagnostics.get(i);
+            long span = diagnostic.span();
+            if(span >= 0 && Span.offset(span) >= lineStart){
+                diagnostics.set(i, new Diagnostic(diagnostic.getLine(), diagnostic.getColumn(), diagnostic.getLength(),
+                                                  diagnostic.getMessage(), lines.excerpt(span), span));
+            }
+        }
+
+        // Tokens from changedTo on are the old ones from changedTo - shift on.
+        int kept = diagnostics.size();
+        int changedTo = tokens.changedTo();
+        int shift = tokens.entryShift();
+        TokenStream.Reader reader = tokens.reader(start.entry);
+        SyntacticAnalysis parser = new SyntacticAnalysis(reader, st, Integer.MAX_VALUE);
+        parser.onCheckpoint(checkpoint -> {
+            checkpoint.entry = reader.entry();
+            checkpoint.diagnostics += kept;
+            if(checkpoint.entry >= changedTo){
+                int old = find(oldCheckpoints, checkpoint.entry - shift);
+                if(old >= 0 && oldCheckpoints.get(old).sameState(checkpoint)) throw new CaughtUpException(old);
+            }
+            checkpoints.add(checkpoint);
+        });
+
+        try{
+            parser.resume(start);
+            diagnostics.addAll(parser.getDiagnostics());
+        }catch(CaughtUpException e){
+            diagnostics.addAll(parser.getDiagnostics());
+
+            int delta = inserted.length - removed;
+            int lineDelta = lines.line(tokens.length()) - oldLines;
+            int editEnd = offset + inserted.length;
+
+            int caughtUp = oldCheckpoints.get(e.checkpoint).diagnostics;
+            int diagnosticShift = diagnostics.size() - caughtUp;
+            for(int i = caughtUp; i < oldDiagnostics.size(); i++){
+                diagnostics.add(moved(oldDiagnostics.get(i), delta, lineDelta, editEnd, lines));
+            }
+            for(int i = e.checkpoint; i < oldCheckpoints.size(); i++){
+                SyntacticAnalysis.Checkpoint checkpoint = oldCheckpoints.get(i);
+                checkpoint.entry += shift;
+                checkpoint.diagnostics += diagnosticShift;
+                checkpoints.add(checkpoint);
+            }
+        }
+        return getDiagnostics();
+    }
+
+    // The last checkpoint taken before entry, or -1.
+    private static int before(List<SyntacticAnalysis.Checkpoint> checkpoints, int entry){
+        int low = 0;
+        int high = checkpoints.size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(checkpoints.get(middle).entry < entry) low = middle + 1;
+            else high = middle;
+        }
+        return low - 1;
+    }
+
+    // The checkpoint taken at entry, or -1.
+    private static int find(List<SyntacticAnalysis.Checkpoint> checkpoints, int entry){
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        while(low <= high){
+            int middle = (low + high) >>> 1;
+            int at = checkpoints.get(middle).entry;
+            if(at < entry) low = middle + 1;
+            else if(at > entry) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+
+    // A diagnostic after the edit, moved delta characters and lineDelta lines. The message carries the line. Column
+    // and excerpt stay unless the line starts inside the edit or before it.
+    private static Diagnostic moved(Diagnostic diagnostic, int delta, int lineDelta, int editEnd, LineIndex lines){
+        int line = diagnostic.getLine() + lineDelta;
+        String message = lineDelta == 0 ? diagnostic.getMessage() : LineIndex.movedLine(diagnostic.getMessage(), lineDelta);
+
+        long span = diagnostic.span();
+        if(span < 0) return new Diagnostic(line, diagnostic.getColumn(), diagnostic.getLength(), message, diagnostic.getExcerpt(), span);
+
+        span += (long) delta << 32;
+        int offset = Span.offset(span);
+        if(offset - diagnostic.getColumn() + 1 > editEnd){
+            return new Diagnostic(line, diagnostic.getColumn(), diagnostic.getLength(), message, diagnostic.getExcerpt(), span);
+        }
+        return new Diagnostic(line, lines.column(offset), diagnostic.getLength(), message, lines.excerpt(span), span);
+    }
+
+    private void analyze(){
+        checkpoints = new ArrayList<SyntacticAnalysis.Checkpoint>();
+        declarations = new HashMap<Integer, Long>();
+        TokenStream.Reader reader = tokens.reader(0);
+        SyntacticAnalysis parser = new SyntacticAnalysis(reader, st, Integer.MAX_VALUE);
+        parser.onCheckpoint(checkpoint -> {
+            checkpoint.entry = reader.entry();
+            checkpoints.add(checkpoint);
+        });
+        parser.onDeclaration((identifier, span) -> declarations.put(identifier.getSymbolId(), span));
+        parser.analyze();
+        diagnostics = new ArrayList<Diagnostic>(parser.getDiagnostics());
+    }
+}
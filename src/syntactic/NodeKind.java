@@ -0,0 +1,21 @@
+package syntactic;
+
+// Kinds of AST nodes; what the value column of a node holds depends on its kind.
+public enum NodeKind {
+    PROGRAM,      // value: symbol id of the class; children: DECL..., STMT_LIST
+    DECL,         // type: declared type; children: VARIABLE...
+    VARIABLE,     // value: symbol id
+    STMT_LIST,    // children: statements; also a statement itself where ConstantFolder replaced an IF or DO
+    ASSIGN,       // value: symbol id of the target; children: expression
+    IF,           // children: condition, STMT_LIST [, STMT_LIST of the else branch]
+    DO,           // children: STMT_LIST, condition
+    READ,         // value: symbol id
+    WRITE,        // children: expression
+    BINARY,       // value: operator TokenType ordinal; children: left, right
+    UNARY,        // value: operator TokenType ordinal; children: operand
+    IDENT,        // value: symbol id
+    INT_CONST,    // value: the constant
+    REAL_CONST,   // value: Float.floatToRawIntBits of the constant
+    LITERAL,      // value: index of the text in the literal pool
+    BOOL_CONST    // value: 1 for true, 0 for false; only produced by ConstantFolder
+}
@@ -0,0 +1,427 @@
+package syntactic;
+
+import lexical.TokenType;
+
+// Generated by syntactic.ll.ParserGenerator from grammar.ebnf and TokenType. Do not edit.
+// 33 nonterminals, 62 productions, LL(1)
+final class ParserTables {
+
+    // Symbols below TERMINALS are TokenType ordinals.
+    static final int TERMINALS = 44;
+    static final int NONTERMINALS = 33;
+
+    // Nonterminals.
+    static final int PROGRAM = 44;
+    static final int DECL_LIST = 45;
+    static final int DECL = 46;
+    static final int IDENT_LIST = 47;
+    static final int TYPE = 48;
+    static final int BODY = 49;
+    static final int STMT_LIST = 50;
+    static final int STMT = 51;
+    static final int ASSIGN_STMT = 52;
+    static final int IF_STMT = 53;
+    static final int ELSE_STMT = 54;
+    static final int CONDITION = 55;
+    static final int DO_STMT = 56;
+    static final int DO_SUFFIX = 57;
+    static final int READ_STMT = 58;
+    static final int WRITE_STMT = 59;
+    static final int WRITABLE = 60;
+    static final int EXPRESSION = 61;
+    static final int EXPR_PRIME = 62;
+    static final int SIMPLE_EXPR = 63;
+    static final int SIMPLE_EXPR_PRIME = 64;
+    static final int TERM = 65;
+    static final int TERM_PRIME = 66;
+    static final int FACTOR_A = 67;
+    static final int FACTOR = 68;
+    static final int RELOP = 69;
+    static final int ADDOP = 70;
+    static final int MULOP = 71;
+    static final int CONSTANT = 72;
+    static final int PROGRAM_OPTION = 73;
+    static final int DECL_LIST_REPEAT = 74;
+    static final int IDENT_LIST_REPEAT = 75;
+    static final int STMT_LIST_REPEAT = 76;
+    static final int START = PROGRAM;
+
+    // Productions.
+    static final int PROGRAM_0 = 0; // program ::= "class" identifier program-option body
+    static final int DECL_LIST_0 = 1; // decl-list ::= decl ";" decl-list-repeat
+    static final int DECL_0 = 2; // decl ::= type ident-list
+    static final int IDENT_LIST_0 = 3; // ident-list ::= identifier ident-list-repeat
+    static final int TYPE_0 = 4; // type ::= "int"
+    static final int TYPE_1 = 5; // type ::= "string"
+    static final int TYPE_2 = 6; // type ::= "float"
+    static final int BODY_0 = 7; // body ::= "{" stmt-list "}"
+    static final int STMT_LIST_0 = 8; // stmt-list ::= stmt ";" stmt-list-repeat
+    static final int STMT_0 = 9; // stmt ::= assign-stmt
+    static final int STMT_1 = 10; // stmt ::= if-stmt
+    static final int STMT_2 = 11; // stmt ::= do-stmt
+    static final int STMT_3 = 12; // stmt ::= read-stmt
+    static final int STMT_4 = 13; // stmt ::= write-stmt
+    static final int ASSIGN_STMT_0 = 14; // assign-stmt ::= identifier "=" simple-expr
+    static final int IF_STMT_0 = 15; // if-stmt ::= "if" "(" condition ")" "{" stmt-list "}" else-stmt
+    static final int ELSE_STMT_0 = 16; // else-stmt ::= "else" "{" stmt-list "}"
+    static final int ELSE_STMT_1 = 17; // else-stmt ::= λ
+    static final int CONDITION_0 = 18; // condition ::= expression
+    static final int DO_STMT_0 = 19; // do-stmt ::= "do" "{" stmt-list "}" do-suffix
+    static final int DO_SUFFIX_0 = 20; // do-suffix ::= "while" "(" condition ")"
+    static final int READ_STMT_0 = 21; // read-stmt ::= "read" "(" identifier ")"
+    static final int WRITE_STMT_0 = 22; // write-stmt ::= "write" "(" writable ")"
+    static final int WRITABLE_0 = 23; // writable ::= simple-expr
+    static final int EXPRESSION_0 = 24; // expression ::= simple-expr expr-prime
+    static final int EXPR_PRIME_0 = 25; // expr-prime ::= relop simple-expr
+    static final int EXPR_PRIME_1 = 26; // expr-prime ::= λ
+    static final int SIMPLE_EXPR_0 = 27; // simple-expr ::= term simple-expr-prime
+    static final int SIMPLE_EXPR_PRIME_0 = 28; // simple-expr-prime ::= addop term simple-expr-prime
+    static final int SIMPLE_EXPR_PRIME_1 = 29; // simple-expr-prime ::= λ
+    static final int TERM_0 = 30; // term ::= factor-a term-prime
+    static final int TERM_PRIME_0 = 31; // term-prime ::= mulop factor-a term-prime
+    static final int TERM_PRIME_1 = 32; // term-prime ::= λ
+    static final int FACTOR_A_0 = 33; // factor-a ::= factor
+    static final int FACTOR_A_1 = 34; // factor-a ::= "!" factor
+    static final int FACTOR_A_2 = 35; // factor-a ::= "-" factor
+    static final int FACTOR_0 = 36; // factor ::= identifier
+    static final int FACTOR_1 = 37; // factor ::= constant
+    static final int FACTOR_2 = 38; // factor ::= "(" expression ")"
+    static final int RELOP_0 = 39; // relop ::= ">"
+    static final int RELOP_1 = 40; // relop ::= ">="
+    static final int RELOP_2 = 41; // relop ::= "<"
+    static final int RELOP_3 = 42; // relop ::= "<="
+    static final int RELOP_4 = 43; // relop ::= "!="
+    static final int RELOP_5 = 44; // relop ::= "=="
+    static final int ADDOP_0 = 45; // addop ::= "+"
+    static final int ADDOP_1 = 46; // addop ::= "-"
+    static final int ADDOP_2 = 47; // addop ::= "||"
+    static final int MULOP_0 = 48; // mulop ::= "*"
+    static final int MULOP_1 = 49; // mulop ::= "/"
+    static final int MULOP_2 = 50; // mulop ::= "&&"
+    static final int CONSTANT_0 = 51; // constant ::= integer-const
+    static final int CONSTANT_1 = 52; // constant ::= literal
+    static final int CONSTANT_2 = 53; // constant ::= real-const
+    static final int PROGRAM_OPTION_0 = 54; // program-option ::= decl-list
+    static final int PROGRAM_OPTION_1 = 55; // program-option ::= λ
+    static final int DECL_LIST_REPEAT_0 = 56; // decl-list-repeat ::= decl ";" decl-list-repeat
+    static final int DECL_LIST_REPEAT_1 = 57; // decl-list-repeat ::= λ
+    static final int IDENT_LIST_REPEAT_0 = 58; // ident-list-repeat ::= "," identifier ident-list-repeat
+    static final int IDENT_LIST_REPEAT_1 = 59; // ident-list-repeat ::= λ
+    static final int STMT_LIST_REPEAT_0 = 60; // stmt-list-repeat ::= stmt ";" stmt-list-repeat
+    static final int STMT_LIST_REPEAT_1 = 61; // stmt-list-repeat ::= λ
+
+    static final int[] LHS = {
+        PROGRAM,
+        DECL_LIST,
+        DECL,
+        IDENT_LIST,
+        TYPE,
+        TYPE,
+        TYPE,
+        BODY,
+        STMT_LIST,
+        STMT,
+        STMT,
+        STMT,
+        STMT,
+        STMT,
+        ASSIGN_STMT,
+        IF_STMT,
+        ELSE_STMT,
+        ELSE_STMT,
+        CONDITION,
+        DO_STMT,
+        DO_SUFFIX,
+        READ_STMT,
+        WRITE_STMT,
+        WRITABLE,
+        EXPRESSION,
+        EXPR_PRIME,
+        EXPR_PRIME,
+        SIMPLE_EXPR,
+        SIMPLE_EXPR_PRIME,
+        SIMPLE_EXPR_PRIME,
+        TERM,
+        TERM_PRIME,
+        TERM_PRIME,
+        FACTOR_A,
+        FACTOR_A,
+        FACTOR_A,
+        FACTOR,
+        FACTOR,
+        FACTOR,
+        RELOP,
+        RELOP,
+        RELOP,
+        RELOP,
+        RELOP,
+        RELOP,
+        ADDOP,
+        ADDOP,
+        ADDOP,
+        MULOP,
+        MULOP,
+        MULOP,
+        CONSTANT,
+        CONSTANT,
+        CONSTANT,
+        PROGRAM_OPTION,
+        PROGRAM_OPTION,
+        DECL_LIST_REPEAT,
+        DECL_LIST_REPEAT,
+        IDENT_LIST_REPEAT,
+        IDENT_LIST_REPEAT,
+        STMT_LIST_REPEAT,
+        STMT_LIST_REPEAT
+    };
+
+    static final int[][] RHS = {
+        {TokenType.CLASS.ordinal(), TokenType.IDENTIFIER.ordinal(), PROGRAM_OPTION, BODY},
+        {DECL, TokenType.SEMI_COLON.ordinal(), DECL_LIST_REPEAT},
+        {TYPE, IDENT_LIST},
+        {TokenType.IDENTIFIER.ordinal(), IDENT_LIST_REPEAT},
+        {TokenType.INT.ordinal()},
+        {TokenType.STRING.ordinal()},
+        {TokenType.FLOAT.ordinal()},
+        {TokenType.OPEN_CUR.ordinal(), STMT_LIST, TokenType.CLOSE_CUR.ordinal()},
+        {STMT, TokenType.SEMI_COLON.ordinal(), STMT_LIST_REPEAT},
+        {ASSIGN_STMT},
+        {IF_STMT},
+        {DO_STMT},
+        {READ_STMT},
+        {WRITE_STMT},
+        {TokenType.IDENTIFIER.ordinal(), TokenType.ASSIGN.ordinal(), SIMPLE_EXPR},
+        {TokenType.IF.ordinal(), TokenType.OPEN_PAR.ordinal(), CONDITION, TokenType.CLOSE_PAR.ordinal(), TokenType.OPEN_CUR.ordinal(), STMT_LIST, TokenType.CLOSE_CUR.ordinal(), ELSE_STMT},
+        {TokenType.ELSE.ordinal(), TokenType.OPEN_CUR.ordinal(), STMT_LIST, TokenType.CLOSE_CUR.ordinal()},
+        {},
+        {EXPRESSION},
+        {TokenType.DO.ordinal(), TokenType.OPEN_CUR.ordinal(), STMT_LIST, TokenType.CLOSE_CUR.ordinal(), DO_SUFFIX},
+        {TokenType.WHILE.ordinal(), TokenType.OPEN_PAR.ordinal(), CONDITION, TokenType.CLOSE_PAR.ordinal()},
+        {TokenType.READ.ordinal(), TokenType.OPEN_PAR.ordinal(), TokenType.IDENTIFIER.ordinal(), TokenType.CLOSE_PAR.ordinal()},
+        {TokenType.WRITE.ordinal(), TokenType.OPEN_PAR.ordinal(), WRITABLE, TokenType.CLOSE_PAR.ordinal()},
+        {SIMPLE_EXPR},
+        {SIMPLE_EXPR, EXPR_PRIME},
+        {RELOP, SIMPLE_EXPR},
+        {},
+        {TERM, SIMPLE_EXPR_PRIME},
+        {ADDOP, TERM, SIMPLE_EXPR_PRIME},
+        {},
+        {FACTOR_A, TERM_PRIME},
+        {MULOP, FACTOR_A, TERM_PRIME},
+        {},
+        {FACTOR},
+        {TokenType.NOT.ordinal(), FACTOR},
+        {TokenType.SUB.ordinal(), FACTOR},
+        {TokenType.IDENTIFIER.ordinal()},
+        {CONSTANT},
+        {TokenType.OPEN_PAR.ordinal(), EXPRESSION, TokenType.CLOSE_PAR.ordinal()},
+        {TokenType.GREATER.ordinal()},
+        {TokenType.GREATER_EQUAL.ordinal()},
+        {TokenType.LOWER.ordinal()},
+        {TokenType.LOWER_EQUAL.ordinal()},
+        {TokenType.NOT_EQUALS.ordinal()},
+        {TokenType.EQUALS.ordinal()},
+        {TokenType.ADD.ordinal()},
+        {TokenType.SUB.ordinal()},
+        {TokenType.OR.ordinal()},
+        {TokenType.MUL.ordinal()},
+        {TokenType.DIV.ordinal()},
+        {TokenType.AND.ordinal()},
+        {TokenType.INTEGER_CONST.ordinal()},
+        {TokenType.LITERAL.ordinal()},
+        {TokenType.REAL_CONST.ordinal()},
+        {DECL_LIST},
+        {},
+        {DECL, TokenType.SEMI_COLON.ordinal(), DECL_LIST_REPEAT},
+        {},
+        {TokenType.COMMA.ordinal(), TokenType.IDENTIFIER.ordinal(), IDENT_LIST_REPEAT},
+        {},
+        {STMT, TokenType.SEMI_COLON.ordinal(), STMT_LIST_REPEAT},
+        {}
+    };
+
+    // TABLE[(nonterminal - TERMINALS) * TERMINALS + terminal] is the production to expand, or -1 for an
+    // unexpected token. Entries outside FIRST/FOLLOW hold the λ or only production of the nonterminal.
+    static final short[] TABLE = {
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, // program
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, // decl-list
+        2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, // decl
+        3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, // ident-list
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 4, 6, 5, -1, -1, -1, -1, -1, -1, -1, -1, -1, // type
+        7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, // body
+        8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, 8, // stmt-list
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 10, -1, 11, -1, -1, -1, -1, -1, -1, -1, 12, 13, 9, -1, -1, -1, // stmt
+        14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, // assign-stmt
+        15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, // if-stmt
+        17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 16, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, 17, // else-stmt
+        18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, // condition
+        19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, // do-stmt
+        20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, 20, // do-suffix
+        21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, // read-stmt
+        22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, // write-stmt
+        23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, 23, // writable
+        24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, // expression
+        26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 25, 25, 25, 25, 25, 25, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, 26, // expr-prime
+        27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, // simple-expr
+        29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 28, 29, 29, 29, 29, 29, 29, 28, 28, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, 29, // simple-expr-prime
+        30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, // term
+        32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 31, 32, 32, 32, 32, 32, 32, 32, 32, 32, 31, 31, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, 32, // term-prime
+        -1, -1, -1, -1, -1, -1, -1, 33, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 35, -1, -1, 34, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 33, 33, 33, 33, // factor-a
+        -1, -1, -1, -1, -1, -1, -1, 38, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 36, 37, 37, 37, // factor
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 41, 39, 42, 40, 44, 43, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, // relop
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 47, -1, -1, -1, -1, -1, -1, 45, 46, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, // addop
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 50, -1, -1, -1, -1, -1, -1, -1, -1, -1, 48, 49, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, // mulop
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 51, 53, 52, // constant
+        55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 55, 54, 54, 54, 55, 55, 55, 55, 55, 55, 55, 55, 55, // program-option
+        57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 57, 56, 56, 56, 57, 57, 57, 57, 57, 57, 57, 57, 57, // decl-list-repeat
+        59, 59, 59, 59, 59, 58, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, 59, // ident-list-repeat
+        61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 60, 61, 60, 61, 61, 61, 61, 61, 61, 61, 60, 60, 60, 61, 61, 61 // stmt-list-repeat
+    };
+
+    // Terminal sets of each nonterminal, bit i for TokenType ordinal i.
+    static final long[] FIRST = {
+        0x0000000008000000L, // program: "class"
+        0x0000000700000000L, // decl-list: "int" "float" "string"
+        0x0000000700000000L, // decl: "int" "float" "string"
+        0x0000010000000000L, // ident-list: identifier
+        0x0000000700000000L, // type: "int" "float" "string"
+        0x0000000000000200L, // body: "{"
+        0x000001C050000000L, // stmt-list: "if" "do" "read" "write" identifier
+        0x000001C050000000L, // stmt: "if" "do" "read" "write" identifier
+        0x0000010000000000L, // assign-stmt: identifier
+        0x0000000010000000L, // if-stmt: "if"
+        0x0000000020000000L, // else-stmt: "else"
+        0x00000F0004800080L, // condition: "(" "-" "!" identifier integer-const real-const literal
+        0x0000000040000000L, // do-stmt: "do"
+        0x0000000080000000L, // do-suffix: "while"
+        0x0000004000000000L, // read-stmt: "read"
+        0x0000008000000000L, // write-stmt: "write"
+        0x00000F0004800080L, // writable: "(" "-" "!" identifier integer-const real-const literal
+        0x00000F0004800080L, // expression: "(" "-" "!" identifier integer-const real-const literal
+        0x00000000003F0000L, // expr-prime: "<" ">" "<=" ">=" "==" "!="
+        0x00000F0004800080L, // simple-expr: "(" "-" "!" identifier integer-const real-const literal
+        0x0000000000C08000L, // simple-expr-prime: "||" "+" "-"
+        0x00000F0004800080L, // term: "(" "-" "!" identifier integer-const real-const literal
+        0x0000000003004000L, // term-prime: "&&" "*" "/"
+        0x00000F0004800080L, // factor-a: "(" "-" "!" identifier integer-const real-const literal
+        0x00000F0000000080L, // factor: "(" identifier integer-const real-const literal
+        0x00000000003F0000L, // relop: "<" ">" "<=" ">=" "==" "!="
+        0x0000000000C08000L, // addop: "||" "+" "-"
+        0x0000000003004000L, // mulop: "&&" "*" "/"
+        0x00000E0000000000L, // constant: integer-const real-const literal
+        0x0000000700000000L, // program-option: "int" "float" "string"
+        0x0000000700000000L, // decl-list-repeat: "int" "float" "string"
+        0x0000000000000020L, // ident-list-repeat: ","
+        0x000001C050000000L // stmt-list-repeat: "if" "do" "read" "write" identifier
+    };
+
+    static final long[] FOLLOW = {
+        0x0000000000000004L, // program: end-of-file
+        0x0000000000000200L, // decl-list: "{"
+        0x0000000000000008L, // decl: ";"
+        0x0000000000000008L, // ident-list: ";"
+        0x0000010000000000L, // type: identifier
+        0x0000000000000004L, // body: end-of-file
+        0x0000000000000400L, // stmt-list: "}"
+        0x0000000000000008L, // stmt: ";"
+        0x0000000000000008L, // assign-stmt: ";"
+        0x0000000000000008L, // if-stmt: ";"
+        0x0000000000000008L, // else-stmt: ";"
+        0x0000000000000100L, // condition: ")"
+        0x0000000000000008L, // do-stmt: ";"
+        0x0000000000000008L, // do-suffix: ";"
+        0x0000000000000008L, // read-stmt: ";"
+        0x0000000000000008L, // write-stmt: ";"
+        0x0000000000000100L, // writable: ")"
+        0x0000000000000100L, // expression: ")"
+        0x0000000000000100L, // expr-prime: ")"
+        0x00000000003F0108L, // simple-expr: ";" ")" "<" ">" "<=" ">=" "==" "!="
+        0x00000000003F0108L, // simple-expr-prime: ";" ")" "<" ">" "<=" ">=" "==" "!="
+        0x0000000000FF8108L, // term: ";" ")" "||" "<" ">" "<=" ">=" "==" "!=" "+" "-"
+        0x0000000000FF8108L, // term-prime: ";" ")" "||" "<" ">" "<=" ">=" "==" "!=" "+" "-"
+        0x0000000003FFC108L, // factor-a: ";" ")" "&&" "||" "<" ">" "<=" ">=" "==" "!=" "+" "-" "*" "/"
+        0x0000000003FFC108L, // factor: ";" ")" "&&" "||" "<" ">" "<=" ">=" "==" "!=" "+" "-" "*" "/"
+        0x00000F0004800080L, // relop: "(" "-" "!" identifier integer-const real-const literal
+        0x00000F0004800080L, // addop: "(" "-" "!" identifier integer-const real-const literal
+        0x00000F0004800080L, // mulop: "(" "-" "!" identifier integer-const real-const literal
+        0x0000000003FFC108L, // constant: ";" ")" "&&" "||" "<" ">" "<=" ">=" "==" "!=" "+" "-" "*" "/"
+        0x0000000000000200L, // program-option: "{"
+        0x0000000000000200L, // decl-list-repeat: "{"
+        0x0000000000000008L, // ident-list-repeat: ";"
+        0x0000000000000400L // stmt-list-repeat: "}"
+    };
+
+    static final boolean[] NULLABLE = {
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        true,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        true,
+        false,
+        true,
+        false,
+        true,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        true,
+        true,
+        true,
+        true
+    };
+
+    static final String[] NAMES = {
+        "program",
+        "decl-list",
+        "decl",
+        "ident-list",
+        "type",
+        "body",
+        "stmt-list",
+        "stmt",
+        "assign-stmt",
+        "if-stmt",
+        "else-stmt",
+        "condition",
+        "do-stmt",
+        "do-suffix",
+        "read-stmt",
+        "write-stmt",
+        "writable",
+        "expression",
+        "expr-prime",
+        "simple-expr",
+        "simple-expr-prime",
+        "term",
+        "term-prime",
+        "factor-a",
+        "factor",
+        "relop",
+        "addop",
+        "mulop",
+        "constant",
+        "program-option",
+        "decl-list-repeat",
+        "ident-list-repeat",
+        "stmt-list-repeat"
+    };
+
+    private ParserTables(){}
+}
@@ -1,47 +1,123 @@
 package syntactic;
+import java.io.EOFException;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import lexical.FloatToken;
+import lexical.IntegerToken;
 import lexical.LexicalAnalysis;
+import lexical.LineIndex;
+import lexical.Span;
 import lexical.SymbolTable;
 import lexical.Token;
+import lexical.TokenSource;
 import lexical.TokenType;
 import lexical.WordToken;
 import semantic.Class;
 import semantic.Type;
 
 public class SyntacticAnalysis {
-    
-    private LexicalAnalysis lexical;
+
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
+    // Unwinds to the nearest statement or declaration after a syntax error (panic mode).
+    private static final class SyncException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SyncException(){
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class TooManyErrorsException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TooManyErrorsException(){
+            super(null, null, false, false);
+        }
+    }
+
+    private static final SyncException SYNC = new SyncException();
+    private static final TooManyErrorsException TOO_MANY_ERRORS = new TooManyErrorsException();
+
+    private TokenSource lexical;
     private Token previous;
     private Token current;
     private SymbolTable st;
 
-    public SyntacticAnalysis(String filePath){
+    private final List<Diagnostic> diagnostics;
+    private final int maxErrors;
+    private long consumedTokens;
+    private long lastSyntaxError;
+    private int currentLine;
+    private int previousLine;
+    // Spans of current and previous; diagnostics point at them or at the spans kept for operators and expressions.
+    private long currentSpan = Span.NONE;
+    private long previousSpan = Span.NONE;
+    private int variables;
+
+    // Only built when requested with buildAst(); lastNode is the expression parsed last.
+    private AstBuilder ast;
+    private int lastNode = Ast.NONE;
+
+    // Set by IncrementalAnalysis, which resumes parsing from these.
+    private Consumer<Checkpoint> checkpoints;
+    private Checkpoint lastCheckpoint;
+    private ObjLongConsumer<WordToken> declarations;
+
+    public SyntacticAnalysis(String filePath) throws FileNotFoundException{
+        this(filePath, DEFAULT_MAX_ERRORS);
+    }
 
-        st = new SymbolTable();
-        try{
-            lexical = new LexicalAnalysis(filePath, st);
-        }catch(FileNotFoundException e){
-            System.err.println("File " + filePath + " not found\n" + e.getStackTrace());
-            System.exit(1);
-        }
-        
+    public SyntacticAnalysis(String filePath, int maxErrors) throws FileNotFoundException{
+        this(new SymbolTable(), filePath, maxErrors);
+    }
+
+    private SyntacticAnalysis(SymbolTable st, String filePath, int maxErrors) throws FileNotFoundException{
+        this(new LexicalAnalysis(filePath, st), st, maxErrors);
+    }
+
+    // The lexer must intern identifiers into st.
+    public SyntacticAnalysis(TokenSource lexical, SymbolTable st, int maxErrors){
+
+        this.diagnostics = new ArrayList<Diagnostic>();
+        this.maxErrors = Math.max(1, maxErrors);
+        this.lastSyntaxError = -1;
+
+        this.st = st;
+        this.lexical = lexical;
     }
 
+    // Lexical errors are reported and the lexer resumes after the offending input;
+    // a syntax error at the token that follows would only repeat them.
     private Token getToken(){
 
-        try{
-            return lexical.nextToken();
-        }catch(Exception e){
-            System.err.println(e.getMessage());
-            System.exit(1);
+        while(true){
+            try{
+                return lexical.nextToken();
+            }catch(EOFException e){
+                report(lexical.getTokenSpan(), e.getMessage());
+                lastSyntaxError = consumedTokens;
+                return Token.of(TokenType.END_OF_FILE);
+            }catch(RuntimeException e){
+                report(lexical.getTokenSpan(), e.getMessage());
+                lastSyntaxError = consumedTokens;
+            }
         }
-        
-        return null;
     }
 
     private void advance(){
         previous = current;
+        previousLine = currentLine;
+        previousSpan = currentSpan;
+        consumedTokens++;
         this.current = this.getToken();
+        currentLine = lexical.getLineCounter();
+        currentSpan = lexical.getTokenSpan();
     }
 
     private void eat(TokenType type){
@@ -54,520 +130,953 @@ public class SyntacticAnalysis {
 
     private void updateIdentifier(WordToken wToken, Type idType, Class idClass){
 
-        if(idType.equals(Type.ERROR)) error("Type error");
-        if(idClass.equals(Class.ERROR)) error("Class error");
+        if(idType == Type.ERROR) error("Type error");
+        if(idClass == Class.ERROR) error("Class error");
+
+        st.setType(wToken.getSymbolId(), idType);
+        st.setClass(wToken.getSymbolId(), idClass);
+        if(idClass == Class.VARIABLE) st.setOffset(wToken.getSymbolId(), variables++); // {identifier.offset = variable number}
+        if(declarations != null) declarations.accept(wToken, previousSpan);
+    }
+
+    // AST construction; nodes take the position of the token just consumed. Every helper is a no-op without buildAst().
+    private int open(NodeKind kind, int value){
+        return ast == null ? Ast.NONE : ast.open(kind, (int) consumedTokens - 1, previousLine, value);
+    }
 
-        st.updateType(wToken, idType);
-        st.updateClass(wToken, idClass);
+    private void close(){
+        if(ast != null) ast.close();
     }
 
-    private void checkDeclarationUniqueness(WordToken wToken){
-        if(!(st.getClass(wToken) == null && st.getType(wToken) == null)){
+    private void foldStatement(int node){
+        if(ast != null) ast.foldStatement(node);
+    }
+
+    private int astDepth(){
+        return ast == null ? 0 : ast.depth();
+    }
+
+    private void unwind(int depth){
+        if(ast != null) ast.unwind(depth);
+    }
+
+    private void attach(int node){
+        if(ast != null) ast.attach(node);
+    }
+
+    private int leaf(NodeKind kind, int value, Type type){
+        return ast == null ? Ast.NONE : ast.leaf(kind, (int) consumedTokens - 1, previousLine, value, type);
+    }
+
+    // The lexeme is only copied out of the source when there is a tree to hold it.
+    private int literal(WordToken token){
+        return ast == null ? Ast.NONE : ast.literal(token.getLexeme(), (int) consumedTokens - 1, previousLine);
+    }
+
+    private int operator(int left){
+        return ast == null ? Ast.NONE : ast.operator(previous.getType(), (int) consumedTokens - 1, previousLine, left);
+    }
+
+    // Completes an operator node with lastNode as its last operand.
+    private int complete(int node, Type type){
+        return ast == null ? Ast.NONE : ast.complete(node, lastNode, type);
+    }
+
+    private Type typed(Type type){
+        if(ast != null && lastNode != Ast.NONE) ast.setType(lastNode, type);
+        return type;
+    }
+
+    private static int symbolOf(Token token){
+        return ((WordToken) token).getSymbolId();
+    }
+
+    private boolean checkDeclarationUniqueness(WordToken wToken){
+        if(st.isDefined(wToken.getSymbolId())){
             error("Identifier \'" + wToken.getLexeme() + "\' is already defined.");
+            return false;
         }
+        return true;
     }
 
-    private void checkUsageUniqueness(WordToken wToken){
-        if(st.getClass(wToken) == null && st.getType(wToken) == null){
+    private boolean checkUsageUniqueness(WordToken wToken){
+        if(!st.isDefined(wToken.getSymbolId())){
             error("Identifier \'" + wToken.getLexeme() + "\' is not defined.");
+            return false;
         }
+        return true;
     }
 
-    private void checkClassCompatibility(WordToken wToken, int idClass){
-        if(!(st.getClass(wToken).equals(idClass))){
-            error(wToken.getLexeme() + " is not a " + new Class(idClass));
+    private boolean checkClassCompatibility(WordToken wToken, Class idClass){
+        if(st.classOf(wToken.getSymbolId()) != idClass){
+            error(wToken.getLexeme() + " is not a " + idClass);
+            return false;
         }
+        return true;
     }
 
+    // ERROR marks an expression that already has a diagnostic, so it is compatible with anything.
     private boolean compatibleTypes(Type t1, Type t2){
-        if(t1.equals(Type.VOID)) return true;
-        if(t2.equals(Type.VOID)) return true;
-        if(t1.equals(t2)) return true;
+        if(t1 == Type.VOID || t1 == Type.ERROR) return true;
+        if(t2 == Type.VOID || t2 == Type.ERROR) return true;
+        if(t1 == t2) return true;
 
         return false;
     }
 
+    private static boolean poisoned(Type t1, Type t2){
+        return t1 == Type.ERROR || t2 == Type.ERROR;
+    }
+
+    // Syntax errors abandon the current statement; only the first one at a given token is reported.
     private void error(TokenType type) {
-        System.err.println("Unexpected token at line " + lexical.getLineCounter()+ ": expecting " + type.getLexeme() + " but got " + current.getType().getLexeme());
-        System.exit(1);
+        syntaxError("Unexpected token at line " + lineOf(currentSpan) + ": expecting " + type.getLexeme() + " but got " + current.getType().getLexeme());
     }
     private void error() {
-        System.err.println("Unexpected token at line " + lexical.getLineCounter() + ": " + current.getType().getLexeme());
-        System.exit(1);
+        syntaxError("Unexpected token at line " + lineOf(currentSpan) + ": " + current.getType().getLexeme());
     }
+
+    // Semantic errors point at the token just consumed, unless given the span of an operator or expression.
     private void error(String message){
-        System.err.println("Error at line " + lexical.getLineCounter() + ": " + message);
-        System.exit(1);
+        error(previousSpan, message);
     }
-
-    public void start() {
-        current = this.getToken();
-
-        this.program();
-
-        eat(TokenType.END_OF_FILE);
-        System.out.println("Semantic analysis completed with success!");
+    private void error(long span, String message){
+        report(span, "Error at line " + lineOf(span) + ": " + message);
     }
 
-    // program ::= "class" identifier [decl-list] body
-    private void program() {
-        switch(current.getType()){
-            case CLASS:
-                advance(); 
-                eat(TokenType.IDENTIFIER);
+    private void syntaxError(String message){
+        if(consumedTokens != lastSyntaxError) report(currentSpan, message);
+        lastSyntaxError = consumedTokens;
+        throw SYNC;
+    }
 
-                checkDeclarationUniqueness((WordToken) previous);
-                updateIdentifier((WordToken) previous, new Type(Type.VOID), new Class(Class.CLASS) ); // {identifier.type = VOID} {identifier.class = CLASS}
+    private int lineOf(long span){
+        return span < 0 ? lexical.getLineCounter() : lexical.getLineIndex().line(Span.offset(span));
+    }
 
-                if(current.getType() == TokenType.INT || current.getType() == TokenType.FLOAT || current.getType() == TokenType.STRING){
-                    declList();
-                }
-                body();
-                break;
-            default:
-                error();
+    // Line and column are looked up only here, from the offsets of the LineIndex.
+    private void report(long span, String message){
+        if(span < 0){
+            diagnostics.add(new Diagnostic(lexical.getLineCounter(), message));
+        }else{
+            LineIndex lines = lexical.getLineIndex();
+            int offset = Span.offset(span);
+            diagnostics.add(new Diagnostic(lines.line(offset), lines.column(offset), Span.length(span), message, lines.excerpt(span), span));
         }
+        if(diagnostics.size() >= maxErrors) throw TOO_MANY_ERRORS;
     }
 
-    // decl-list ::= decl ";" { decl ";" }
-    private void declList() {
-        decl();
-        eat(TokenType.SEMI_COLON);
-
-        while(current.getType() == TokenType.INT || current.getType() == TokenType.FLOAT || current.getType() == TokenType.STRING){
-            decl();
-            eat(TokenType.SEMI_COLON);
+    // Skips to the end of the current statement, the end of the block or the start of a new statement.
+    private void synchronize(){
+        while(true){
+            switch(current.getType()){
+                case SEMI_COLON:
+                case CLOSE_CUR:
+                case IF:
+                case DO:
+                case READ:
+                case WRITE:
+                case END_OF_FILE:
+                    return;
+                default:
+                    advance();
+            }
         }
     }
 
-    // decl ::= type ident-list
-    private void decl() {
-        Type idType = type();
-        identList(idType);
+    // Skips to the end of the current declaration, the next declaration or the body.
+    private void synchronizeDeclaration(){
+        while(true){
+            switch(current.getType()){
+                case SEMI_COLON:
+                case INT:
+                case FLOAT:
+                case STRING:
+                case OPEN_CUR:
+                case END_OF_FILE:
+                    return;
+                default:
+                    advance();
+            }
+        }
     }
 
-    // ident-list ::= identifier {"," identifier}
-    private void identList(Type idType) {
-        eat(TokenType.IDENTIFIER);
+    // Parses and checks the whole input; errors are only collected, see getDiagnostics().
+    public boolean analyze() {
+        try{
+            current = this.getToken();
+            currentLine = lexical.getLineCounter();
+            currentSpan = lexical.getTokenSpan();
+
+            this.parse();
+        }catch(SyncException e){
+            // Unrecoverable syntax error outside of any statement, already reported.
+        }catch(TooManyErrorsException e){
+            diagnostics.add(new Diagnostic(lexical.getLineCounter(), "Too many errors, stopping after " + maxErrors));
+        }
 
-        checkDeclarationUniqueness((WordToken) previous);
-        updateIdentifier((WordToken) previous, idType, new Class(Class.VARIABLE));
+        return diagnostics.isEmpty();
+    }
 
-        while(current.getType() == TokenType.COMMA){
-            eat(TokenType.COMMA);
-            eat(TokenType.IDENTIFIER);
+    public boolean start() {
+        boolean success = analyze();
 
-            checkDeclarationUniqueness((WordToken) previous);
-            updateIdentifier((WordToken) previous, idType, new Class(Class.VARIABLE));
+        for(Diagnostic diagnostic : diagnostics){
+            System.err.println(diagnostic);
         }
+
+        if(success) System.out.println("Semantic analysis completed with success!");
+        return success;
     }
 
-    // type ::= "int" | "string" | "float"
-    private Type type() {
-        switch(current.getType()){
-            case INT: advance(); return new Type(Type.INT);
-            case STRING: advance(); return new Type(Type.STRING);
-            case FLOAT: advance(); return new Type(Type.FLOAT);
-            default: error(); return new Type(Type.ERROR);
+    // Parses the rest of the input from a checkpoint taken by another analysis of the same tokens, with the lexer
+    // at the checkpoint's statement and the symbol table as the declarations left it. Diagnostics only collects
+    // the errors found from there.
+    boolean resume(Checkpoint checkpoint){
+        try{
+            current = this.getToken();
+            currentLine = lexical.getLineCounter();
+            currentSpan = lexical.getTokenSpan();
+            if(checkpoint.reported) lastSyntaxError = consumedTokens;
+
+            int[] stack = checkpoint.stack;
+            stackSize = 0;
+            for(int i = 0; i < stack.length; i += 3) push(stack[i], stack[i + 1], stack[i + 2]);
+            int[] recovery = checkpoint.recovery;
+            recoverSize = 0;
+            for(int i = 0; i < recovery.length; i += 2) recoverPoint(recovery[i], stackSize - recovery[i + 1]);
+            recoverPoint(RECOVER_STATEMENT, 2);
+
+            this.run();
+        }catch(SyncException e){
+            // Unrecoverable syntax error outside of any statement, already reported.
+        }catch(TooManyErrorsException e){
+            diagnostics.add(new Diagnostic(lexical.getLineCounter(), "Too many errors, stopping after " + maxErrors));
         }
+
+        return diagnostics.isEmpty();
     }
 
-    // body ::= "{" stmt-list "}"
-    private void body() {
-        eat(TokenType.OPEN_CUR); 
-        stmtList();
-        eat(TokenType.CLOSE_CUR);
+    // Called with a Checkpoint before every statement, during analyze() and resume().
+    void onCheckpoint(Consumer<Checkpoint> listener){
+        this.checkpoints = listener;
     }
 
-    // stmt-list ::= stmt ";" { stmt ";" }
-    private void stmtList() {
-        stmt();
-        eat(TokenType.SEMI_COLON);
+    // Called with every identifier declared and its span.
+    void onDeclaration(ObjLongConsumer<WordToken> listener){
+        this.declarations = listener;
+    }
 
-        while(current.getType() == TokenType.IDENTIFIER || 
-                current.getType() == TokenType.IF || 
-                current.getType() == TokenType.DO || 
-                current.getType() == TokenType.READ || 
-                current.getType() == TokenType.WRITE){
-        
-            stmt();
-            eat(TokenType.SEMI_COLON);
-        }
+    // Must be called before analyze().
+    public void buildAst(){
+        if(ast == null) ast = new AstBuilder();
     }
 
-    // stmt ::= assign-stmt | if-stmt | do-stmt | read-stmt | write-stmt
-    private void stmt() {
-        switch(current.getType()){
-            case IDENTIFIER: assignStmt();
-                break;
-            case IF: 
-                ifStmt();
-                break;
-            case DO: 
-                doStmt();
-                break;
-            case READ: 
-                readStmt();
-                break;
-            case WRITE: 
-                writeStmt();
-                break;
-            default:
-                error();
-        }
+    // Null unless buildAst() was called. After errors the tree is incomplete: abandoned statements keep
+    // only what was parsed before the error.
+    public Ast getAst(){
+        return ast == null ? null : ast.build();
     }
 
-    // assign-stmt ::= identifier "=" simple_expr
-    private void assignStmt() {
-        eat(TokenType.IDENTIFIER);
-        
-        checkUsageUniqueness((WordToken) previous);
-        checkClassCompatibility((WordToken) previous, Class.VARIABLE);
+    public List<Diagnostic> getDiagnostics(){
+        return Collections.unmodifiableList(diagnostics);
+    }
 
-        Type idType = st.getType((WordToken) previous);
-        eat(TokenType.ASSIGN); 
-        Type simpleExprType = simpleExpr();
+    public SymbolTable getSymbolTable(){
+        return st;
+    }
 
-        if(!idType.equals(simpleExprType)) error("incompatible types: " + simpleExprType + " cannot be assigned to " + idType);
+    // Deepest nesting of statements reached by analyze(); a declaration counts as one level.
+    public int getMaxNestingDepth(){
+        return maxNesting;
     }
 
-    // if-stmt ::= "if" "(" condition ")" "{" stmt-list "}" else-stmt
-    private void ifStmt() {
-        eat(TokenType.IF);
-        eat(TokenType.OPEN_PAR);
-        condition();
-        eat(TokenType.CLOSE_PAR);
-        eat(TokenType.OPEN_CUR);
-        stmtList();
-        eat(TokenType.CLOSE_CUR);
-        elseStmt();
+    // Statements are parsed with the LL(1) table in ParserTables, generated from grammar.ebnf by
+    // syntactic.ll.ParserGenerator, so nesting depth is bounded by the heap instead of the thread stack.
+    // Each stack entry is a grammar symbol with the production and position it comes from. Once the symbol
+    // is parsed, action(production, position + 1) runs the checks of that point of the grammar; an END
+    // entry marks where a nonterminal was expanded. expression and simple-expr go to expression(boolean).
+    private static final int END = -1;
+
+    // Panic-mode recovery points, innermost last.
+    private static final int RECOVER_STATEMENT = 0;
+    private static final int RECOVER_DECLARATION = 1;
+    private static final int RECOVER_CLASS_NAME = 2;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private int[] stackSymbols = new int[64];
+    private int[] stackProductions = new int[64];
+    private int[] stackPositions = new int[64];
+    private int stackSize;
+
+    private int[] recoverKinds = new int[16];
+    private int[] recoverHeights = new int[16];
+    private int[] recoverDepths = new int[16];
+    private int recoverSize;
+    private int maxNesting;
+
+    private int programNode;
+    private Type declType;
+    private Type assignType;
+    private Type exprType;
+    private long exprSpan;
+
+    // program EOF
+    private void parse(){
+        stackSize = 0;
+        recoverSize = 0;
+        push(TokenType.END_OF_FILE.ordinal(), END, 0);
+        push(ParserTables.START, END, 0);
+        run();
     }
 
-    // else-stmt ::= "else" "{" stmt-list "}" | λ
-    private void elseStmt() {
-        switch(current.getType()){
-            case ELSE:
-                eat(TokenType.ELSE);
-                eat(TokenType.OPEN_CUR);
-                stmtList();
-                eat(TokenType.CLOSE_CUR);
-                break;
-            default: return;
+    private void run(){
+        while(stackSize > 0){
+            try{
+                step();
+            }catch(SyncException e){
+                if(recoverSize == 0) throw e;
+                recover();
+            }
         }
     }
 
-    // condition ::= expression
-    private void condition() {
-        Type exprType = expression();
-        if(!exprType.equals(Type.BOOLEAN)) error("condition must be a boolean value");
-    }
+    private void step(){
+        final short[] table = ParserTables.TABLE;
+
+        while(stackSize > 0){
+            stackSize--;
+            int symbol = stackSymbols[stackSize];
+            int production = stackProductions[stackSize];
+            int position = stackPositions[stackSize];
+
+            if(symbol == END){
+                action(production, position);
+            }else if(symbol < ParserTables.TERMINALS){
+                eat(TOKEN_TYPES[symbol]);
+                action(production, position + 1);
+            }else if(symbol == ParserTables.EXPRESSION || symbol == ParserTables.SIMPLE_EXPR){
+                exprType = expression(symbol == ParserTables.EXPRESSION);
+                action(production, position + 1);
+            }else{
+                int next = table[(symbol - ParserTables.TERMINALS) * ParserTables.TERMINALS + current.getType().ordinal()];
+                if(next < 0) error();
+
+                // A nonterminal ending its own production (the repetitions) has nothing left to do there.
+                if(production == END || position + 1 < ParserTables.RHS[production].length || ParserTables.LHS[production] != symbol){
+                    push(END, production, position + 1);
+                }
 
-    // do-stmt ::= "do" "{" stmt-list "}" do-suffix
-    private void doStmt() {
-        eat(TokenType.DO);
-        eat(TokenType.OPEN_CUR);
-        stmtList();
-        eat(TokenType.CLOSE_CUR);
-        doSuffix();
+                int[] rhs = ParserTables.RHS[next];
+                for(int i = rhs.length - 1; i >= 0; i--) push(rhs[i], next, i);
+                action(next, 0);
+            }
+        }
     }
 
-    // do-suffix ::= "while" "(" condition ")"
-    private void doSuffix() {
-        eat(TokenType.WHILE);
-        eat(TokenType.OPEN_PAR);
-        condition();
-        eat(TokenType.CLOSE_PAR);
+    private void push(int symbol, int production, int position){
+        if(stackSize == stackSymbols.length){
+            stackSymbols = Arrays.copyOf(stackSymbols, stackSize * 2);
+            stackProductions = Arrays.copyOf(stackProductions, stackSize * 2);
+            stackPositions = Arrays.copyOf(stackPositions, stackSize * 2);
+        }
+        stackSymbols[stackSize] = symbol;
+        stackProductions[stackSize] = production;
+        stackPositions[stackSize] = position;
+        stackSize++;
     }
 
-    // read-stmt ::= "read" "(" identifier ")"
-    private void readStmt() {
-        eat(TokenType.READ);
-        eat(TokenType.OPEN_PAR);
-        eat(TokenType.IDENTIFIER);
-        checkUsageUniqueness((WordToken) previous);
-        checkClassCompatibility((WordToken) previous, Class.VARIABLE);
-        eat(TokenType.CLOSE_PAR);
+    // A syntax error among the next symbols entries of the stack abandons them.
+    private void recoverPoint(int kind, int symbols){
+        if(recoverSize == recoverKinds.length){
+            recoverKinds = Arrays.copyOf(recoverKinds, recoverSize * 2);
+            recoverHeights = Arrays.copyOf(recoverHeights, recoverSize * 2);
+            recoverDepths = Arrays.copyOf(recoverDepths, recoverSize * 2);
+        }
+        recoverKinds[recoverSize] = kind;
+        recoverHeights[recoverSize] = stackSize - symbols;
+        recoverDepths[recoverSize] = astDepth();
+        recoverSize++;
+        if(recoverSize > maxNesting) maxNesting = recoverSize;
     }
 
-    // write-stmt ::= "write" "(" writable ")"
-    private void writeStmt() {
-        eat(TokenType.WRITE);
-        eat(TokenType.OPEN_PAR);
-        writable();
-        eat(TokenType.CLOSE_PAR);
+    private void recovered(){
+        recoverSize--;
     }
 
-    // writable ::= simple-expr
-    private void writable() {
-        simpleExpr();
-    }
+    // The parser state before a statement, current being its first token. Only the stack, the recovery points,
+    // the production about to be parsed and whether a syntax error was reported at current matter from there
+    // on: the declarations are behind, the enclosing statements are on the stack and every expression starts
+    // afresh. The AST is not part of it.
+    static final class Checkpoint {
+        final int production;
+        // Symbol, production and position of every stack entry, bottom first.
+        final int[] stack;
+        // Kind and stack height of every recovery point, outermost first.
+        final int[] recovery;
+        final boolean reported;
+        // Diagnostics reported before the statement.
+        int diagnostics;
+        // Where current came from, filled in by the listener.
+        int entry;
+
+        Checkpoint(int production, int[] stack, int[] recovery, boolean reported, int diagnostics){
+            this.production = production;
+            this.stack = stack;
+            this.recovery = recovery;
+            this.reported = reported;
+            this.diagnostics = diagnostics;
+        }
 
-    // expression ::= simple-expr | simple-expr relop simple-expr
-    // expression ::= simple_expr expr_prime
-    private Type expression() {
-        Type simpleExprType = simpleExpr(); 
-        Type exprPrimeType = exprPrime();
+        // Whether parsing on from the same token gives the same result from either checkpoint.
+        boolean sameState(Checkpoint other){
+            return production == other.production && reported == other.reported &&
+                   (stack == other.stack || Arrays.equals(stack, other.stack)) &&
+                   (recovery == other.recovery || Arrays.equals(recovery, other.recovery));
+        }
+    }
 
-        if(exprPrimeType.equals(Type.VOID)) 
-            return simpleExprType;
-        else if(simpleExprType.equals(exprPrimeType)) 
-            return new Type(Type.BOOLEAN);
+    private void checkpoint(int production){
+        if(checkpoints == null || current.getType() == TokenType.END_OF_FILE) return;
 
-        error("bad operand types (" + simpleExprType + " and " + exprPrimeType + ") for binary relational operator");
+        int[] stack = new int[stackSize * 3];
+        for(int i = 0; i < stackSize; i++){
+            stack[i * 3] = stackSymbols[i];
+            stack[i * 3 + 1] = stackProductions[i];
+            stack[i * 3 + 2] = stackPositions[i];
+        }
+        int[] recovery = new int[recoverSize * 2];
+        for(int i = 0; i < recoverSize; i++){
+            recovery[i * 2] = recoverKinds[i];
+            recovery[i * 2 + 1] = recoverHeights[i];
+        }
+        // Statements of one block share their state.
+        if(lastCheckpoint != null && Arrays.equals(stack, lastCheckpoint.stack)) stack = lastCheckpoint.stack;
+        if(lastCheckpoint != null && Arrays.equals(recovery, lastCheckpoint.recovery)) recovery = lastCheckpoint.recovery;
 
-        return null;
+        lastCheckpoint = new Checkpoint(production, stack, recovery, lastSyntaxError == consumedTokens, diagnostics.size());
+        checkpoints.accept(lastCheckpoint);
     }
 
-    // expr_prime ::= relop simple_expr | λ
-    private Type exprPrime(){
-        Type simpleExprType;
-        switch (current.getType()) {
-            case GREATER:
-            case GREATER_EQUAL:
-            case LOWER:
-            case LOWER_EQUAL:
-                relop();
-                simpleExprType = simpleExpr();
-                if(!simpleExprType.equals(Type.STRING) && !simpleExprType.equals(Type.BOOLEAN)) return simpleExprType;
-                error("bad operand type (" + simpleExprType + ") for binary relational operator");
-            break;
-            case NOT_EQUALS:
-            case EQUALS:
-                relop();
-                return simpleExpr();
-            default: break;
+    private void recover(){
+        recoverSize--;
+        stackSize = recoverHeights[recoverSize];
+        unwind(recoverDepths[recoverSize]);
+
+        if(recoverKinds[recoverSize] == RECOVER_STATEMENT){
+            synchronize();
+        }else{
+            synchronizeDeclaration();
         }
-        return new Type(Type.VOID);
+        if(recoverKinds[recoverSize] != RECOVER_CLASS_NAME && current.getType() == TokenType.SEMI_COLON) advance();
     }
 
-    // simple-expr ::= term simple-expr-prime
-    private Type simpleExpr() {
-        Type termType = term();
-        Type simpleExprPrimeType = simpleExprPrime(termType);
-        
-        if(compatibleTypes(termType, simpleExprPrimeType)) 
-            return termType;
-        
-        error("incompatible types: " + termType + (simpleExprPrimeType.equals(Type.VOID) ? "" : " and " + simpleExprPrimeType));
-        return null;
-    }
+    private void action(int production, int position){
+        switch(production){
+            // program ::= "class" identifier [decl-list] body
+            case ParserTables.PROGRAM_0:
+                if(position == 1){
+                    programNode = open(NodeKind.PROGRAM, -1);
+                    recoverPoint(RECOVER_CLASS_NAME, 1);
+                }else if(position == 2){
+                    recovered();
+                    if(ast != null) ast.setValue(programNode, symbolOf(previous));
+
+                    checkDeclarationUniqueness((WordToken) previous);
+                    updateIdentifier((WordToken) previous, Type.VOID, Class.CLASS ); // {identifier.type = VOID} {identifier.class = CLASS}
+                }else if(position == 4){
+                    close();
+                }
+                break;
 
-    // simple-expr-prime ::= addop term simple-expr-prime | λ
-    private Type simpleExprPrime(Type leftType) {
-        Type termType = null;
-        Type simpleExprPrimeType = null;
-        Type resultType = null;
-        switch (current.getType()) {
-            case ADD:
-                addop();
-                termType = term();
+            // decl-list ::= decl ";" { decl ";" }
+            case ParserTables.DECL_LIST_0:
+            case ParserTables.DECL_LIST_REPEAT_0:
+                if(position == 0) recoverPoint(RECOVER_DECLARATION, 2);
+                else if(position == 2) recovered();
+                break;
 
-                if(!leftType.equals(termType) || leftType.equals(Type.BOOLEAN))
-                    error("incompatible types for '+' operator: " + leftType + " and " + termType);
+            // decl ::= type ident-list
+            case ParserTables.DECL_0:
+                if(position == 1){
+                    int decl = open(NodeKind.DECL, 0);
+                    if(ast != null) ast.setType(decl, declType);
+                }else if(position == 2){
+                    close();
+                }
+                break;
 
-                resultType = leftType;
-                simpleExprPrimeType = simpleExprPrime(resultType);
+            // ident-list ::= identifier {"," identifier}
+            case ParserTables.IDENT_LIST_0:
+                if(position == 1) declareVariable();
+                break;
+            case ParserTables.IDENT_LIST_REPEAT_0:
+                if(position == 2) declareVariable();
+                break;
 
-                if(compatibleTypes(resultType, simpleExprPrimeType)) 
-                    return resultType;
-                
-                error("incompatible types: " + resultType + " and " + simpleExprPrimeType);
+            // type ::= "int" | "string" | "float"
+            case ParserTables.TYPE_0: declType = Type.INT; break;
+            case ParserTables.TYPE_1: declType = Type.STRING; break;
+            case ParserTables.TYPE_2: declType = Type.FLOAT; break;
+
+            // stmt-list ::= stmt ";" { stmt ";" }
+            case ParserTables.STMT_LIST_0:
+                if(position == 0){
+                    open(NodeKind.STMT_LIST, 0);
+                    checkpoint(production);
+                    recoverPoint(RECOVER_STATEMENT, 2);
+                }else if(position == 2){
+                    recovered();
+                }else if(position == 3){
+                    close();
+                }
+                break;
+            case ParserTables.STMT_LIST_REPEAT_0:
+                if(position == 0){
+                    checkpoint(production);
+                    recoverPoint(RECOVER_STATEMENT, 2);
+                }else if(position == 2){
+                    recovered();
+                }
+                break;
 
-            break;
-            case SUB:
-                addop();
-                termType = term();
+            // assign-stmt ::= identifier "=" simple_expr
+            case ParserTables.ASSIGN_STMT_0:
+                if(position == 1){
+                    open(NodeKind.ASSIGN, symbolOf(previous));
+
+                    assignType = Type.ERROR;
+                    if(checkUsageUniqueness((WordToken) previous) && checkClassCompatibility((WordToken) previous, Class.VARIABLE))
+                        assignType = st.getType((WordToken) previous);
+                }else if(position == 3){
+                    attach(lastNode);
 
-                if(!leftType.equals(termType) || leftType.equals(Type.BOOLEAN) || leftType.equals(Type.STRING))
-                    error("incompatible types for '-' operator: " + leftType + " and " + termType);
+                    if(assignType != exprType && !poisoned(assignType, exprType)) error(exprSpan, "incompatible types: " + exprType + " cannot be assigned to " + assignType);
+                    close();
+                }
+                break;
 
-                resultType = leftType;
-                simpleExprPrimeType = simpleExprPrime(resultType);
+            // if-stmt ::= "if" "(" condition ")" "{" stmt-list "}" else-stmt
+            case ParserTables.IF_STMT_0:
+                if(position == 1) open(NodeKind.IF, 0);
+                else if(position == 8) closeStatement();
+                break;
 
-                if(compatibleTypes(resultType, simpleExprPrimeType)) 
-                    return resultType;
+            // condition ::= expression
+            case ParserTables.CONDITION_0:
+                if(position == 1){
+                    attach(lastNode);
+                    if(exprType != Type.BOOLEAN && exprType != Type.ERROR) error(exprSpan, "condition must be a boolean value");
+                }
+                break;
 
-                error("incompatible types: " + resultType + " and " + simpleExprPrimeType);
-            break;
-            case OR:
-                addop();
-                termType = term();
+            // do-stmt ::= "do" "{" stmt-list "}" do-suffix
+            case ParserTables.DO_STMT_0:
+                if(position == 1) open(NodeKind.DO, 0);
+                else if(position == 5) closeStatement();
+                break;
 
-                if(!leftType.equals(termType) || !leftType.equals(Type.BOOLEAN))
-                    error("incompatible types for '||' operator: " + leftType + " and " + termType);
+            // read-stmt ::= "read" "(" identifier ")"
+            case ParserTables.READ_STMT_0:
+                if(position == 3){
+                    if(checkUsageUniqueness((WordToken) previous))
+                        checkClassCompatibility((WordToken) previous, Class.VARIABLE);
+                    open(NodeKind.READ, symbolOf(previous));
+                    close();
+                }
+                break;
 
-                resultType = leftType;
-                simpleExprPrimeType = simpleExprPrime(resultType);
+            // write-stmt ::= "write" "(" writable ")"
+            case ParserTables.WRITE_STMT_0:
+                if(position == 1) open(NodeKind.WRITE, 0);
+                else if(position == 4) close();
+                break;
 
-                if(compatibleTypes(resultType, simpleExprPrimeType)) 
-                    return resultType;
+            // writable ::= simple-expr
+            case ParserTables.WRITABLE_0:
+                if(position == 1) attach(lastNode);
+                break;
 
-                error("incompatible types: " + resultType + " and " + simpleExprPrimeType);
-            break;
-            default: break;
+            default:
+                break;
         }
-        return new Type(Type.VOID);
     }
 
-    // term ::= factor-a term-prime
-    private Type term() {
-        Type factorAType = factorA(); 
-        Type termPrimeType = termPrime(factorAType);
-
-        return termPrimeType.equals(Type.VOID) ? factorAType : termPrimeType;
+    private void declareVariable(){
+        if(checkDeclarationUniqueness((WordToken) previous))
+            updateIdentifier((WordToken) previous, declType, Class.VARIABLE);
+        attach(leaf(NodeKind.VARIABLE, symbolOf(previous), declType));
     }
 
-    // term-prime ::= mulop factor-a term-prime | λ
-    private Type termPrime(Type leftType) {
-        Type factorAType = null;
-        Type termPrimeType = null;
-        Type resultType = null;
-        switch (current.getType()) {
-            case MUL:
-                mulop();
-                factorAType = factorA();
-
-                if(!leftType.equals(factorAType) || leftType.equals(Type.BOOLEAN) || leftType.equals(Type.STRING)) 
-                    error("incompatible types for '*' operator: " + leftType + " and " + factorAType);
+    // Closes the innermost IF or DO and folds it when its condition is constant.
+    private void closeStatement(){
+        int node = ast == null ? Ast.NONE : ast.innermost();
+        close();
+        foldStatement(node);
+    }
 
-                resultType = leftType;
-                termPrimeType = termPrime(resultType);
+    // The expression grammar, parsed without recursion so that expression length and parenthesis depth are
+    // only limited by the heap:
+    //
+    // expression ::= simple-expr [relop simple-expr]
+    // simple-expr ::= term { addop term }
+    // term ::= factor-a { mulop factor-a }
+    // factor-a ::= factor | "!" factor | "-" factor
+    // factor ::= identifier | constant | "(" expression ")"
+    // relop ::= ">" | ">=" | "<" | "<=" | "!=" | "=="
+    // addop ::= "+" | "-" | "||"
+    // mulop ::= "*" | "/" | "&&"
+    //
+    // Each open parenthesis gets a Frame holding the operator waiting at every precedence level. The checks
+    // and messages are those of the former right-recursive term-prime and simple-expr-prime: an operator is
+    // checked as soon as its right operand is parsed, and once the chain ends the results are checked again
+    // from the last operator back to the first. Operator chains keep those results on a shared stack.
+    private static final class Frame {
+        boolean relational;     // an expression, which may have a relop, rather than a simple-expr
+
+        TokenType unary;        // "!" or "-" before the factor being parsed, or null
+        int unaryNode;
+        long unarySpan;
+
+        Type termFirst;         // type of the first factor-a of the term, null until it is parsed
+        Type termLeft;          // type of the term so far
+        TokenType mulop;        // operator waiting for its right operand, or null
+        int mulopNode;
+        long mulopSpan;
+        int termChain;          // where the results of the term's operators start on the chain stack
+
+        Type simpleFirst;
+        Type simpleLeft;
+        TokenType addop;
+        int addopNode;
+        long addopSpan;
+        int simpleChain;
+
+        TokenType relop;
+        int relopNode;
+        long relopSpan;
+        Type relopLeft;
+    }
 
-                if(compatibleTypes(resultType, termPrimeType)) 
-                    return resultType;
+    private final List<Frame> frames = new ArrayList<Frame>();
+    private int frameCount;
+
+    // Operator, result and span of every checked operator of the open terms and simple-exprs, innermost last.
+    private TokenType[] chainOperators = new TokenType[32];
+    private Type[] chainTypes = new Type[32];
+    private long[] chainSpans = new long[32];
+    private int chainSize;
+
+    // Sets exprSpan to the source range of the expression.
+    private Type expression(boolean relational){
+        // A syntax error unwinds out of here, leaving frames behind; every expression starts afresh.
+        frameCount = 0;
+        chainSize = 0;
+        openFrame(relational);
+        int start = Span.offset(currentSpan);
+
+        while(true){
+            Frame frame = frames.get(frameCount - 1);
+            Type type;
+
+            // factor-a
+            frame.unary = null;
+            if(current.getType() == TokenType.NOT || current.getType() == TokenType.SUB){
+                frame.unary = current.getType();
+                advance();
+                frame.unaryNode = operator(Ast.NONE);
+                frame.unarySpan = previousSpan;
+            }
+
+            // factor
+            switch(current.getType()){
+                case IDENTIFIER:
+                    advance();
+                    type = Type.ERROR;
+                    if(checkUsageUniqueness((WordToken) previous) && checkClassCompatibility((WordToken) previous,Class.VARIABLE))
+                        type = st.getType((WordToken) previous);
+                    lastNode = leaf(NodeKind.IDENT, symbolOf(previous), type);
+                    break;
+                case INTEGER_CONST:
+                    advance();
+                    lastNode = leaf(NodeKind.INT_CONST, ((IntegerToken) previous).getValue(), Type.INT);
+                    type = Type.INT;
+                    break;
+                case LITERAL:
+                    advance();
+                    lastNode = literal((WordToken) previous);
+                    type = Type.STRING;
+                    break;
+                case REAL_CONST:
+                    advance();
+                    lastNode = leaf(NodeKind.REAL_CONST, Float.floatToRawIntBits(((FloatToken) previous).getValue()), Type.FLOAT);
+                    type = Type.FLOAT;
+                    break;
+                case OPEN_PAR:
+                    advance();
+                    openFrame(true);
+                    continue;
+                default:
+                    error();
+                    return null;
+            }
+
+            // Reduce: a frame that is complete becomes the factor of the frame below, after its ")".
+            while((type = factorParsed(frame, type)) != null){
+                frameCount--;
+                if(frameCount == 0){
+                    exprSpan = Span.of(start, Span.end(previousSpan) - start);
+                    return type;
+                }
 
-                error("incompatible types: " + resultType + " and " + termPrimeType);
-            break;
-            case DIV:
-                mulop();
-                factorAType = factorA();
-                
-                if(!leftType.equals(factorAType) || leftType.equals(Type.BOOLEAN) || leftType.equals(Type.STRING)) 
-                    error("incompatible types for '/' operator: " + leftType + " and " + factorAType);
-                
-                resultType = new Type(Type.FLOAT);
+                eat(TokenType.CLOSE_PAR);
+                frame = frames.get(frameCount - 1);
+            }
+        }
+    }
 
-                termPrimeType = termPrime(resultType);
+    private void openFrame(boolean relational){
+        if(frameCount == frames.size()) frames.add(new Frame());
+        Frame frame = frames.get(frameCount++);
+        frame.relational = relational;
+        frame.unary = null;
+        frame.termFirst = null;
+        frame.mulop = null;
+        frame.simpleFirst = null;
+        frame.addop = null;
+        frame.relop = null;
+    }
 
-                if(compatibleTypes(resultType, termPrimeType)) 
-                    return resultType;
+    private void pushChain(TokenType operator, Type type, long span){
+        if(chainSize == chainTypes.length){
+            chainOperators = Arrays.copyOf(chainOperators, chainSize * 2);
+            chainTypes = Arrays.copyOf(chainTypes, chainSize * 2);
+            chainSpans = Arrays.copyOf(chainSpans, chainSize * 2);
+        }
+        chainOperators[chainSize] = operator;
+        chainTypes[chainSize] = type;
+        chainSpans[chainSize] = span;
+        chainSize++;
+    }
 
-                error("incompatible types" + resultType + " and " + termPrimeType);
-            break;
-            case AND:
-                mulop();
-                factorAType = factorA();
+    // Continues the frame with a parsed factor. Returns null when an operator was consumed and another factor-a
+    // must be parsed, or the type of the frame when it is complete.
+    private Type factorParsed(Frame frame, Type factorType){
+        Type type = unary(frame, factorType);
 
-                if(!leftType.equals(factorAType) || !leftType.equals(Type.BOOLEAN))
-                    error("incompatible types for '&&' operator: " + leftType + " and " + factorAType);
+        // term ::= factor-a { mulop factor-a }
+        if(frame.termFirst == null){
+            frame.termFirst = type;
+            frame.termLeft = type;
+            frame.termChain = chainSize;
+        }else{
+            frame.termLeft = mulop(frame.mulop, frame.mulopSpan, frame.termLeft, type);
+            lastNode = complete(frame.mulopNode, frame.termLeft);
+            pushChain(frame.mulop, frame.termLeft, frame.mulopSpan);
+            frame.mulop = null;
+        }
 
-                resultType = leftType;
-                termPrimeType = termPrime(resultType);
+        if(current.getType() == TokenType.MUL || current.getType() == TokenType.DIV || current.getType() == TokenType.AND){
+            advance();
+            frame.mulop = previous.getType();
+            frame.mulopNode = operator(lastNode);
+            frame.mulopSpan = previousSpan;
+            return null;
+        }
+        Type termType = term(frame);
 
-                if(resultType.equals(Type.BOOLEAN) && termPrimeType.equals(Type.BOOLEAN) || resultType.equals(Type.BOOLEAN) && termPrimeType.equals(Type.VOID))
-                    return new Type(Type.BOOLEAN);
-                    
-                error("bad operand types for binary operator '&&'");
-            break;
+        // simple-expr ::= term { addop term }
+        if(frame.simpleFirst == null){
+            frame.simpleFirst = termType;
+            frame.simpleLeft = termType;
+            frame.simpleChain = chainSize;
+        }else{
+            frame.simpleLeft = addop(frame.addop, frame.addopSpan, frame.simpleLeft, termType);
+            lastNode = complete(frame.addopNode, frame.simpleLeft);
+            pushChain(frame.addop, frame.simpleLeft, frame.addopSpan);
+            frame.addop = null;
+        }
 
-            default: break;
+        if(current.getType() == TokenType.ADD || current.getType() == TokenType.SUB || current.getType() == TokenType.OR){
+            advance();
+            frame.addop = previous.getType();
+            frame.addopNode = operator(lastNode);
+            frame.addopSpan = previousSpan;
+            frame.termFirst = null;
+            return null;
         }
-        return new Type(Type.VOID);
-    }
+        Type simpleExprType = simpleExpr(frame);
 
-    // factor-a ::= factor | "!" factor | "-" factor
-    private Type factorA() {
-        Type factorType = null;
-        switch(current.getType()){
-            case NOT:
-                advance();
-                factorType = factor();
-                if(factorType.equals(Type.BOOLEAN)) break;
-                error("bad operand type "+ factorType +" for unary operator '!'");
-            break;
-            case SUB:
+        // expression ::= simple-expr [relop simple-expr]
+        if(frame.relop == null){
+            if(frame.relational && isRelop(current.getType())){
                 advance();
-                factorType = factor();
-                if(factorType.equals(Type.FLOAT) || factorType.equals(Type.INT)) break;
-                error("bad operand type "+ factorType +" for unary operator '-'");
-            break;
-            case IDENTIFIER:
-            case OPEN_PAR:
-            case INTEGER_CONST:
-            case LITERAL:
-            case REAL_CONST:
-                factorType = factor();
-            break;
+                frame.relop = previous.getType();
+                frame.relopNode = operator(lastNode);
+                frame.relopSpan = previousSpan;
+                frame.relopLeft = simpleExprType;
+                frame.simpleFirst = null;
+                frame.termFirst = null;
+                return null;
+            }
+            return simpleExprType;
+        }
 
-            default: error();
+        lastNode = complete(frame.relopNode, Type.BOOLEAN);
+        Type relopType = simpleExprType;
+        if(frame.relop != TokenType.EQUALS && frame.relop != TokenType.NOT_EQUALS &&
+           (simpleExprType == Type.STRING || simpleExprType == Type.BOOLEAN)){
+            error(frame.relopSpan, "bad operand type (" + simpleExprType + ") for binary relational operator");
+            relopType = Type.ERROR;
         }
 
-        return factorType;
-    }
+        if(poisoned(frame.relopLeft, relopType))
+            return typed(Type.ERROR);
+        else if(frame.relopLeft == relopType)
+            return typed(Type.BOOLEAN);
 
-    // factor ::= identifier | constant | "(" expression ")"
-    private Type factor() {
-        switch(current.getType()){
-            case IDENTIFIER:
-                advance();
-                checkUsageUniqueness((WordToken) previous);
-                checkClassCompatibility((WordToken) previous,Class.VARIABLE);
-                return st.getType((WordToken) previous);
-            case INTEGER_CONST:
-                advance();
-                return new Type(Type.INT);
-            case LITERAL:
-                advance();
-                return new Type(Type.STRING);
-            case REAL_CONST:
-                advance();
-                return new Type(Type.FLOAT);
-            case OPEN_PAR:
-                advance();
-                Type exprType = expression();
-                eat(TokenType.CLOSE_PAR);
-                return exprType;
-            default: error(); return null;
-        }
+        error(frame.relopSpan, "bad operand types (" + frame.relopLeft + " and " + relopType + ") for binary relational operator");
+        return typed(Type.ERROR);
     }
 
-    // relop ::= ">" | ">=" | "<" | "<=" | "!=" | "=="
-    private void relop() {
-        switch (current.getType()) {
+    private static boolean isRelop(TokenType type){
+        switch(type){
             case GREATER:
             case GREATER_EQUAL:
             case LOWER:
             case LOWER_EQUAL:
             case NOT_EQUALS:
             case EQUALS:
-                advance();
-            break;
-            default: error();
+                return true;
+            default:
+                return false;
         }
     }
 
-    // addop ::= "+" | "-" | "||"
-    private void addop() {
-        switch (current.getType()) {
-            case ADD:
-            case SUB:
-            case OR:
-                advance();
-            break;
-            default: error();
+    private Type unary(Frame frame, Type factorType){
+        if(frame.unary == TokenType.NOT){
+            if(factorType != Type.BOOLEAN && factorType != Type.ERROR){
+                error(frame.unarySpan, "bad operand type "+ factorType +" for unary operator '!'");
+                factorType = Type.ERROR;
+            }
+            lastNode = complete(frame.unaryNode, factorType);
+        }else if(frame.unary == TokenType.SUB){
+            if(factorType != Type.FLOAT && factorType != Type.INT && factorType != Type.ERROR){
+                error(frame.unarySpan, "bad operand type "+ factorType +" for unary operator '-'");
+                factorType = Type.ERROR;
+            }
+            lastNode = complete(frame.unaryNode, factorType);
         }
+        frame.unary = null;
+        return factorType;
     }
 
-    // mulop ::= "*" | "/" | "&&"
-    private void mulop() {
-        switch (current.getType()) {
+    // Type of leftType mulop factorAType, checked as soon as the right operand is parsed.
+    private Type mulop(TokenType operator, long span, Type leftType, Type factorAType){
+        switch(operator){
             case MUL:
+                if(poisoned(leftType, factorAType)) return Type.ERROR;
+                if(leftType != factorAType || leftType == Type.BOOLEAN || leftType == Type.STRING){
+                    error(span, "incompatible types for '*' operator: " + leftType + " and " + factorAType);
+                    return Type.ERROR;
+                }
+                return leftType;
             case DIV:
-            case AND:
-                advance();
-            break;
-            default: error();
+                if(poisoned(leftType, factorAType)) return Type.ERROR;
+                if(leftType != factorAType || leftType == Type.BOOLEAN || leftType == Type.STRING){
+                    error(span, "incompatible types for '/' operator: " + leftType + " and " + factorAType);
+                    return Type.ERROR;
+                }
+                return Type.FLOAT;
+            default:
+                if(poisoned(leftType, factorAType)) return Type.ERROR;
+                if(leftType != factorAType || leftType != Type.BOOLEAN){
+                    error(span, "incompatible types for '&&' operator: " + leftType + " and " + factorAType);
+                    return Type.ERROR;
+                }
+                return leftType;
         }
     }
 
+    // Ends the term: every operator result is checked against the type of the rest of the chain, last first.
+    private Type term(Frame frame){
+        Type restType = Type.VOID;
+        for(int i = chainSize - 1; i >= frame.termChain; i--){
+            Type resultType = chainTypes[i];
+            if(chainOperators[i] == TokenType.AND){
+                if(poisoned(resultType, restType)){
+                    restType = Type.ERROR;
+                }else if(resultType == Type.BOOLEAN && (restType == Type.BOOLEAN || restType == Type.VOID)){
+                    restType = Type.BOOLEAN;
+                }else{
+                    error(chainSpans[i], "bad operand types for binary operator '&&'");
+                    restType = Type.ERROR;
+                }
+            }else if(compatibleTypes(resultType, restType)){
+                restType = resultType;
+            }else{
+                if(chainOperators[i] == TokenType.DIV) error(chainSpans[i], "incompatible types" + resultType + " and " + restType);
+                else error(chainSpans[i], "incompatible types: " + resultType + " and " + restType);
+                restType = Type.ERROR;
+            }
+        }
+        chainSize = frame.termChain;
+
+        Type termType = restType == Type.VOID ? frame.termFirst : restType;
+        frame.termFirst = null;
+        return termType;
+    }
+
+    // Type of leftType addop termType, checked as soon as the right operand is parsed.
+    private Type addop(TokenType operator, long span, Type leftType, Type termType){
+        if(poisoned(leftType, termType)) return Type.ERROR;
+
+        switch(operator){
+            case ADD:
+                if(leftType != termType || leftType == Type.BOOLEAN){
+                    error(span, "incompatible types for '+' operator: " + leftType + " and " + termType);
+                    return Type.ERROR;
+                }
+                return leftType;
+            case SUB:
+                if(leftType != termType || leftType == Type.BOOLEAN || leftType == Type.STRING){
+                    error(span, "incompatible types for '-' operator: " + leftType + " and " + termType);
+                    return Type.ERROR;
+                }
+                return leftType;
+            default:
+                if(leftType != termType || leftType != Type.BOOLEAN){
+                    error(span, "incompatible types for '||' operator: " + leftType + " and " + termType);
+                    return Type.ERROR;
+                }
+                return leftType;
+        }
+    }
+
+    // Ends the simple-expr the way term() ends a term.
+    private Type simpleExpr(Frame frame){
+        Type restType = Type.VOID;
+        for(int i = chainSize - 1; i >= frame.simpleChain; i--){
+            Type resultType = chainTypes[i];
+            if(compatibleTypes(resultType, restType)){
+                restType = resultType;
+            }else{
+                error(chainSpans[i], "incompatible types: " + resultType + " and " + restType);
+                restType = Type.ERROR;
+            }
+        }
+        chainSize = frame.simpleChain;
+
+        Type termType = frame.simpleFirst;
+        if(poisoned(termType, restType))
+            return typed(Type.ERROR);
+        if(compatibleTypes(termType, restType))
+            return termType;
+
+        // Only reached after a chain of addops: the first one is where the types part.
+        error(chainSpans[frame.simpleChain], "incompatible types: " + termType + (restType == Type.VOID ? "" : " and " + restType));
+        return typed(Type.ERROR);
+    }
+
 }
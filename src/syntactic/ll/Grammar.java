@@ -0,0 +1,331 @@
+package syntactic.ll;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lexical.TokenType;
+
+// The "name ::= ..." rules of grammar.ebnf rewritten as plain BNF. Symbols below TERMINALS are TokenType
+// ordinals; nonterminal n is the symbol TERMINALS + n. Optional parts and repetitions become helper
+// nonterminals: [x] is "rule-option ::= x | λ" and {x} is the right recursive "rule-repeat ::= x rule-repeat | λ".
+// A "#name → a | b" token definition whose alternatives are all token names is read as a rule as well,
+// which is how constant reaches the grammar.
+//
+// Terminal sets are bitmasks over TokenType ordinals.
+class Grammar {
+
+    static final int TERMINALS = TokenType.values().length;
+
+    final List<String> names = new ArrayList<String>();
+    final List<Integer> lhs = new ArrayList<Integer>();
+    final List<int[]> rhs = new ArrayList<int[]>();
+
+    boolean[] nullable;
+    long[] first;
+    long[] follow;
+
+    private final Map<String, Integer> nonterminals = new LinkedHashMap<String, Integer>();
+    private final Map<String, Integer> helpers = new LinkedHashMap<String, Integer>();
+
+    private String text;
+    private int pos;
+    private String rule;
+
+    static Grammar read(List<String> lines){
+        if(TERMINALS > Long.SIZE) throw new IllegalArgumentException("TokenType has more than " + Long.SIZE + " values");
+
+        Grammar grammar = new Grammar();
+        List<String[]> rules = new ArrayList<String[]>();
+
+        for(String line : lines){
+            if(line.startsWith("#")){
+                int arrow = line.indexOf('→');
+                if(arrow < 0) continue;
+
+                String name = normalize(line.substring(1, arrow).trim());
+                String body = line.substring(arrow + 1).trim();
+                if(tokenTypeOf(name) == null && isTokenAlternative(body)) rules.add(new String[]{name, body});
+                continue;
+            }
+
+            int define = line.indexOf("::=");
+            if(define < 0) continue;
+            rules.add(new String[]{normalize(line.substring(0, define).trim()), line.substring(define + 3).trim()});
+        }
+        if(rules.isEmpty()) throw new IllegalArgumentException("grammar.ebnf has no rules");
+
+        // Every rule name is a nonterminal before any body is read, so bodies may refer forward.
+        for(String[] rule : rules){
+            if(grammar.nonterminals.containsKey(rule[0])) throw new IllegalArgumentException("Rule '" + rule[0] + "' is defined twice");
+            grammar.nonterminal(rule[0]);
+        }
+        for(String[] rule : rules) grammar.define(rule[0], rule[1]);
+
+        grammar.sortProductions();
+        grammar.analyze();
+        return grammar;
+    }
+
+    // grammar.ebnf writes both simple_expr and simple-expr.
+    private static String normalize(String name){
+        return name.replace('_', '-');
+    }
+
+    private static TokenType tokenTypeOf(String name){
+        String constant = name.toUpperCase().replace('-', '_');
+        for(TokenType type : TokenType.values()){
+            if(type.name().equals(constant)) return type;
+        }
+        return null;
+    }
+
+    private static TokenType tokenTypeOfLexeme(String lexeme){
+        for(TokenType type : TokenType.values()){
+            if(type.getLexeme().equals(lexeme)) return type;
+        }
+        return null;
+    }
+
+    private static boolean isTokenAlternative(String body){
+        for(String option : body.split("\\|")){
+            String name = option.trim();
+            if(!name.matches("[A-Za-z][A-Za-z0-9_-]*") || tokenTypeOf(normalize(name)) == null) return false;
+        }
+        return true;
+    }
+
+    int nonterminalCount(){
+        return names.size();
+    }
+
+    int start(){
+        return TERMINALS;
+    }
+
+    boolean isTerminal(int symbol){
+        return symbol < TERMINALS;
+    }
+
+    int symbol(String name){
+        Integer n = nonterminals.get(name);
+        if(n == null) throw new IllegalArgumentException("grammar.ebnf has no rule '" + name + "'");
+        return TERMINALS + n;
+    }
+
+    String name(int symbol){
+        if(!isTerminal(symbol)) return names.get(symbol - TERMINALS);
+
+        TokenType type = TokenType.values()[symbol];
+        return type.getLexeme().isEmpty() ? type.name().toLowerCase().replace('_', '-') : "\"" + type.getLexeme() + "\"";
+    }
+
+    // The production as a grammar.ebnf line.
+    String describe(int production){
+        StringBuilder out = new StringBuilder(name(lhs.get(production))).append(" ::=");
+        int[] symbols = rhs.get(production);
+        if(symbols.length == 0) out.append(" λ");
+        for(int symbol : symbols) out.append(' ').append(name(symbol));
+        return out.toString();
+    }
+
+    private int nonterminal(String name){
+        nonterminals.put(name, names.size());
+        names.add(name);
+        return TERMINALS + names.size() - 1;
+    }
+
+    private void define(String name, String body){
+        this.rule = name;
+        this.text = body;
+        this.pos = 0;
+
+        int symbol = symbol(name);
+        for(List<Integer> alternative : alternatives()) production(symbol, alternative);
+
+        skipSpaces();
+        if(pos < text.length()) throw error("unexpected '" + text.charAt(pos) + "'");
+    }
+
+    private void production(int symbol, List<Integer> symbols){
+        int[] array = new int[symbols.size()];
+        for(int i = 0; i < array.length; i++) array[i] = symbols.get(i);
+        lhs.add(symbol);
+        rhs.add(array);
+    }
+
+    //   alternatives ::= sequence { "|" sequence }
+    //   sequence     ::= item { item } | "λ"
+    //   item         ::= name | quoted | "[" alternatives "]" | "{" alternatives "}" | "(" alternatives ")"
+    private List<List<Integer>> alternatives(){
+        List<List<Integer>> alternatives = new ArrayList<List<Integer>>();
+        alternatives.add(sequence());
+
+        while(peek() == '|'){
+            pos++;
+            alternatives.add(sequence());
+        }
+        return alternatives;
+    }
+
+    private List<Integer> sequence(){
+        List<Integer> symbols = new ArrayList<Integer>();
+
+        if(peek() == 'λ'){
+            pos++;
+            return symbols;
+        }
+
+        int c = peek();
+        while(c != -1 && c != '|' && c != ']' && c != '}' && c != ')'){
+            symbols.add(item());
+            c = peek();
+        }
+        if(symbols.isEmpty()) throw error("empty alternative");
+        return symbols;
+    }
+
+    private int item(){
+        int c = peek();
+
+        if(c == '"'){
+            int end = text.indexOf('"', pos + 1);
+            if(end < 0) throw error("unterminated terminal");
+            String lexeme = text.substring(pos + 1, end);
+            pos = end + 1;
+
+            TokenType type = tokenTypeOfLexeme(lexeme);
+            if(type == null) throw error("no TokenType has the lexeme \"" + lexeme + "\"");
+            return type.ordinal();
+        }
+
+        if(c == '[' || c == '{' || c == '('){
+            pos++;
+            List<List<Integer>> alternatives = alternatives();
+            char close = c == '[' ? ']' : c == '{' ? '}' : ')';
+            if(peek() != close) throw error("expected '" + close + "'");
+            pos++;
+
+            int helper = nonterminal(helperName(c == '[' ? "option" : c == '{' ? "repeat" : "group"));
+            for(List<Integer> alternative : alternatives){
+                if(c == '{') alternative.add(helper);
+                production(helper, alternative);
+            }
+            if(c != '(') production(helper, new ArrayList<Integer>());
+            return helper;
+        }
+
+        int start = pos;
+        while(pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_' || text.charAt(pos) == '-')) pos++;
+        if(start == pos) throw error("unexpected '" + text.charAt(pos) + "'");
+
+        String name = normalize(text.substring(start, pos));
+        if(nonterminals.containsKey(name)) return symbol(name);
+
+        TokenType type = tokenTypeOf(name);
+        if(type == null) throw error("'" + name + "' is neither a rule nor a token");
+        return type.ordinal();
+    }
+
+    // stmt-list-repeat, then stmt-list-repeat-2 for a second repetition in the same rule.
+    private String helperName(String kind){
+        String base = rule + "-" + kind;
+        int count = helpers.merge(base, 1, Integer::sum);
+        return count == 1 ? base : base + "-" + count;
+    }
+
+    private int peek(){
+        skipSpaces();
+        return pos < text.length() ? text.charAt(pos) : -1;
+    }
+
+    private void skipSpaces(){
+        while(pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException("Rule '" + rule + "' at column " + (pos + 1) + ": " + message);
+    }
+
+    // Helpers are defined while their rule is read; keep every rule's productions together, in symbol order.
+    private void sortProductions(){
+        List<Integer> order = new ArrayList<Integer>();
+        for(int p = 0; p < lhs.size(); p++) order.add(p);
+        order.sort((p, q) -> Integer.compare(lhs.get(p), lhs.get(q)));
+
+        List<Integer> sortedLhs = new ArrayList<Integer>();
+        List<int[]> sortedRhs = new ArrayList<int[]>();
+        for(int p : order){
+            sortedLhs.add(lhs.get(p));
+            sortedRhs.add(rhs.get(p));
+        }
+        lhs.clear();
+        lhs.addAll(sortedLhs);
+        rhs.clear();
+        rhs.addAll(sortedRhs);
+    }
+
+    // Fixed points of nullable, FIRST and FOLLOW. The start symbol is followed by END_OF_FILE.
+    private void analyze(){
+        int count = names.size();
+        nullable = new boolean[count];
+        first = new long[count];
+        follow = new long[count];
+        follow[0] = 1L << TokenType.END_OF_FILE.ordinal();
+
+        for(boolean changed = true; changed; ){
+            changed = false;
+            for(int p = 0; p < rhs.size(); p++){
+                int a = lhs.get(p) - TERMINALS;
+                int[] symbols = rhs.get(p);
+
+                long f = first[a] | first(symbols, 0);
+                boolean n = nullable[a] || nullable(symbols, 0);
+                if(f != first[a] || n != nullable[a]){
+                    first[a] = f;
+                    nullable[a] = n;
+                    changed = true;
+                }
+            }
+        }
+
+        for(boolean changed = true; changed; ){
+            changed = false;
+            for(int p = 0; p < rhs.size(); p++){
+                int a = lhs.get(p) - TERMINALS;
+                int[] symbols = rhs.get(p);
+
+                for(int i = 0; i < symbols.length; i++){
+                    if(isTerminal(symbols[i])) continue;
+
+                    int b = symbols[i] - TERMINALS;
+                    long f = follow[b] | first(symbols, i + 1);
+                    if(nullable(symbols, i + 1)) f |= follow[a];
+                    if(f != follow[b]){
+                        follow[b] = f;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // FIRST of symbols[from..].
+    long first(int[] symbols, int from){
+        long set = 0;
+        for(int i = from; i < symbols.length; i++){
+            if(isTerminal(symbols[i])) return set | 1L << symbols[i];
+
+            set |= first[symbols[i] - TERMINALS];
+            if(!nullable[symbols[i] - TERMINALS]) return set;
+        }
+        return set;
+    }
+
+    boolean nullable(int[] symbols, int from){
+        for(int i = from; i < symbols.length; i++){
+            if(isTerminal(symbols[i]) || !nullable[symbols[i] - TERMINALS]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+package syntactic.ll;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lexical.TokenType;
+
+// Builds the LL(1) parse table behind SyntacticAnalysis from the rules of grammar.ebnf and writes it as
+// src/syntactic/ParserTables.java. Fails if the grammar is not LL(1).
+//
+// Usage: java syntactic.ll.ParserGenerator [grammar.ebnf] [src/syntactic/ParserTables.java]
+public class ParserGenerator {
+
+    private static final String NEWLINE = "\r\n";
+    private static final int ERROR = -1;
+
+    private final Grammar grammar;
+    private short[] table;
+
+    private ParserGenerator(Grammar grammar){
+        this.grammar = grammar;
+    }
+
+    public static void main(String[] args) throws IOException{
+        Path source = Paths.get(args.length > 0 ? args[0] : "grammar.ebnf");
+        Path output = Paths.get(args.length > 1 ? args[1] : "src/syntactic/ParserTables.java");
+
+        ParserGenerator generator = new ParserGenerator(Grammar.read(Files.readAllLines(source, StandardCharsets.UTF_8)));
+        generator.build();
+
+        Files.write(output, generator.emit().getBytes(StandardCharsets.UTF_8));
+        System.out.println(output + ": " + generator.summary());
+    }
+
+    // TABLE[(nonterminal - TERMINALS) * TERMINALS + terminal]: a production is chosen by FIRST of its right side,
+    // or by FOLLOW of the nonterminal when the right side is nullable. Two productions for one entry is a conflict.
+    private void build(){
+        int terminals = Grammar.TERMINALS;
+        table = new short[grammar.nonterminalCount() * terminals];
+        Arrays.fill(table, (short) ERROR);
+
+        List<String> conflicts = new ArrayList<String>();
+        for(int p = 0; p < grammar.rhs.size(); p++){
+            int a = grammar.lhs.get(p) - terminals;
+            int[] symbols = grammar.rhs.get(p);
+
+            long lookahead = grammar.first(symbols, 0);
+            if(grammar.nullable(symbols, 0)) lookahead |= grammar.follow[a];
+
+            for(int t = 0; t < terminals; t++){
+                if((lookahead & 1L << t) == 0) continue;
+
+                int entry = a * terminals + t;
+                if(table[entry] != ERROR){
+                    conflicts.add(grammar.name(grammar.lhs.get(p)) + " on " + grammar.name(t) + ": " +
+                                  grammar.describe(table[entry]) + "  /  " + grammar.describe(p));
+                }else{
+                    table[entry] = (short) p;
+                }
+            }
+        }
+        if(!conflicts.isEmpty()) throw new IllegalArgumentException("grammar.ebnf is not LL(1):\n  " + String.join("\n  ", conflicts));
+
+        // The remaining entries are errors. Like recursive descent, a nonterminal with a λ production or with a
+        // single production takes it anyway, so the error is reported by the terminal it expects next. Only the
+        // start symbol and nonterminals choosing between alternatives report the unexpected token themselves.
+        for(int a = 0; a < grammar.nonterminalCount(); a++){
+            if(a + terminals == grammar.start()) continue;
+
+            int fallback = ERROR;
+            int productions = 0;
+            for(int p = 0; p < grammar.rhs.size(); p++){
+                if(grammar.lhs.get(p) != a + terminals) continue;
+                productions++;
+                if(grammar.nullable(grammar.rhs.get(p), 0) || fallback == ERROR) fallback = p;
+            }
+            if(productions > 1 && !grammar.nullable[a]) continue;
+
+            for(int t = 0; t < terminals; t++){
+                if(table[a * terminals + t] == ERROR) table[a * terminals + t] = (short) fallback;
+            }
+        }
+    }
+
+    private String summary(){
+        return grammar.nonterminalCount() + " nonterminals, " + grammar.rhs.size() + " productions, LL(1)";
+    }
+
+    private String emit(){
+        StringBuilder out = new StringBuilder();
+        int terminals = Grammar.TERMINALS;
+
+        line(out, "package syntactic;");
+        line(out, "");
+        line(out, "import lexical.TokenType;");
+        line(out, "");
+        line(out, "// Generated by syntactic.ll.ParserGenerator from grammar.ebnf and TokenType. Do not edit.");
+        line(out, "// " + summary());
+        line(out, "final class ParserTables {");
+        line(out, "");
+        line(out, "    // Symbols below TERMINALS are TokenType ordinals.");
+        line(out, "    static final int TERMINALS = " + terminals + ";");
+        line(out, "    static final int NONTERMINALS = " + grammar.nonterminalCount() + ";");
+        line(out, "");
+
+        line(out, "    // Nonterminals.");
+        for(int a = 0; a < grammar.nonterminalCount(); a++){
+            line(out, "    static final int " + constant(a + terminals) + " = " + (a + terminals) + ";");
+        }
+        line(out, "    static final int START = " + constant(grammar.start()) + ";");
+        line(out, "");
+
+        line(out, "    // Productions.");
+        for(int p = 0; p < grammar.rhs.size(); p++){
+            line(out, "    static final int " + production(p) + " = " + p + "; // " + grammar.describe(p));
+        }
+        line(out, "");
+
+        line(out, "    static final int[] LHS = {");
+        for(int p = 0; p < grammar.rhs.size(); p++){
+            line(out, "        " + constant(grammar.lhs.get(p)) + (p < grammar.rhs.size() - 1 ? "," : ""));
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    static final int[][] RHS = {");
+        for(int p = 0; p < grammar.rhs.size(); p++){
+            StringBuilder row = new StringBuilder("        {");
+            int[] symbols = grammar.rhs.get(p);
+            for(int i = 0; i < symbols.length; i++){
+                row.append(symbolName(symbols[i]));
+                if(i < symbols.length - 1) row.append(", ");
+            }
+            line(out, row.append("}").append(p < grammar.rhs.size() - 1 ? "," : "").toString());
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    // TABLE[(nonterminal - TERMINALS) * TERMINALS + terminal] is the production to expand, or -1 for an");
+        line(out, "    // unexpected token. Entries outside FIRST/FOLLOW hold the λ or only production of the nonterminal.");
+        line(out, "    static final short[] TABLE = {");
+        for(int a = 0; a < grammar.nonterminalCount(); a++){
+            StringBuilder row = new StringBuilder("        ");
+            for(int t = 0; t < terminals; t++){
+                row.append(table[a * terminals + t]);
+                if(t < terminals - 1) row.append(", ");
+                else if(a < grammar.nonterminalCount() - 1) row.append(",");
+            }
+            line(out, row.append(" // ").append(grammar.names.get(a)).toString());
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    // Terminal sets of each nonterminal, bit i for TokenType ordinal i.");
+        sets(out, "FIRST", grammar.first);
+        line(out, "");
+        sets(out, "FOLLOW", grammar.follow);
+        line(out, "");
+
+        line(out, "    static final boolean[] NULLABLE = {");
+        for(int a = 0; a < grammar.nonterminalCount(); a++){
+            line(out, "        " + grammar.nullable[a] + (a < grammar.nonterminalCount() - 1 ? "," : ""));
+        }
+        line(out, "    };");
+        line(out, "");
+
+        line(out, "    static final String[] NAMES = {");
+        for(int a = 0; a < grammar.nonterminalCount(); a++){
+            line(out, "        \"" + grammar.names.get(a) + "\"" + (a < grammar.nonterminalCount() - 1 ? "," : ""));
+        }
+        line(out, "    };");
+        line(out, "");
+        line(out, "    private ParserTables(){}");
+        line(out, "}");
+
+        return out.toString();
+    }
+
+    private void sets(StringBuilder out, String name, long[] sets){
+        line(out, "    static final long[] " + name + " = {");
+        for(int a = 0; a < sets.length; a++){
+            String value = "0x" + String.format("%016X", sets[a]) + "L";
+            line(out, "        " + value + (a < sets.length - 1 ? "," : "") + " // " + grammar.names.get(a) + ": " + terminals(sets[a]));
+        }
+        line(out, "    };");
+    }
+
+    private String terminals(long set){
+        StringBuilder names = new StringBuilder();
+        for(int t = 0; t < Grammar.TERMINALS; t++){
+            if((set & 1L << t) == 0) continue;
+            if(names.length() > 0) names.append(' ');
+            names.append(grammar.name(t));
+        }
+        return names.toString();
+    }
+
+    private String symbolName(int symbol){
+        if(grammar.isTerminal(symbol)) return "TokenType." + TokenType.values()[symbol].name() + ".ordinal()";
+        return constant(symbol);
+    }
+
+    private String constant(int symbol){
+        return grammar.names.get(symbol - Grammar.TERMINALS).toUpperCase().replace('-', '_');
+    }
+
+    // IF_STMT_0, ELSE_STMT_0, ELSE_STMT_1: the alternatives of a rule in grammar.ebnf order.
+    private String production(int p){
+        int index = 0;
+        for(int q = 0; q < p; q++){
+            if(grammar.lhs.get(q).equals(grammar.lhs.get(p))) index++;
+        }
+        return constant(grammar.lhs.get(p)) + "_" + index;
+    }
+
+    private static void line(StringBuilder out, String text){
+        out.append(text).append(NEWLINE);
+    }
+}
@@ -0,0 +1,446 @@
+package synthetic;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Writes random programs of the grammar in grammar.ebnf with a requested shape: statement count (nested ones
+// included), nesting depth of if/do, number of distinct identifiers, operands per expression and literal length.
+// Programs are typed the way SyntacticAnalysis checks them, so they compile without diagnostics unless
+// illTyped() asks for errors; they are meant to be compiled, not run (loops need not terminate).
+// The same seed and shape always give the same program. Both statements and expressions are generated
+// with explicit stacks, so neither depth is limited by the Java stack.
+//
+// Usage: java synthetic.ProgramGenerator [--seed N] [--statements N] [--depth N] [--identifiers N]
+//                                        [--expression-size N] [--literal-length N] [--ill-typed RATE] [output path]
+public class ProgramGenerator {
+
+    // Types as the generator sees them; only the first three can be declared.
+    private static final int INT = 0;
+    private static final int FLOAT = 1;
+    private static final int STRING = 2;
+    private static final int BOOLEAN = 3;
+    private static final String[] TYPE_NAMES = {"int", "float", "string"};
+    private static final String[] PREFIXES = {"i", "f", "s"};
+
+    // Blocks on the nesting stack.
+    private static final int THEN = 0;
+    private static final int ELSE = 1;
+    private static final int DO = 2;
+
+    // Expression tasks; a TEXT task writes TEXTS[size].
+    private static final int TEXT = 0;
+    private static final int EXPRESSION = 1;
+    private static final int RELATION = 2;
+    private static final int SIMPLE = 3;
+    private static final int TERM = 4;
+    private static final int FACTOR_A = 5;
+    private static final int FACTOR = 6;
+
+    private static final String[] TEXTS = {"(", ")", " + ", " - ", " || ", " * ", " / ", " && ", "-", "!",
+                                           " < ", " <= ", " > ", " >= ", " == ", " != "};
+    private static final int OPEN = 0, CLOSE = 1, ADD = 2, SUB = 3, OR = 4, MUL = 5, DIV = 6, AND = 7, MINUS = 8, NOT = 9;
+    private static final int FIRST_RELOP = 10;
+
+    private static final int MAX_INDENT = 16;
+    private static final int IDENTIFIERS_PER_DECL = 16;
+    private static final String LITERAL_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 .,:;-+*/_!?";
+
+    private long state;
+    private int statements = 1000;
+    private int depth = 8;
+    private int identifiers = 48;
+    private int expressionSize = 4;
+    private int literalLength = 8;
+    private double illTyped;
+
+    private int[] declared = new int[3];
+    private int injectedErrors;
+    private Appendable out;
+
+    private int[] taskKinds = new int[64];
+    private int[] taskTypes = new int[64];
+    private int[] taskSizes = new int[64];
+    private int tasks;
+
+    public ProgramGenerator(long seed){
+        this.state = seed;
+    }
+
+    // Statements in the whole program, if and do included.
+    public ProgramGenerator statements(int statements){
+        if(statements < 1) throw new IllegalArgumentException("A program needs at least one statement");
+        this.statements = statements;
+        return this;
+    }
+
+    // Deepest if/do nesting; the first statements open that many blocks so the depth is always reached.
+    public ProgramGenerator depth(int depth){
+        if(depth < 0) throw new IllegalArgumentException("Negative depth: " + depth);
+        this.depth = depth;
+        return this;
+    }
+
+    // Distinct identifiers, split among int, float and string; the class name is not counted.
+    public ProgramGenerator identifiers(int identifiers){
+        if(identifiers < 3) throw new IllegalArgumentException("At least one identifier of each type is needed");
+        this.identifiers = identifiers;
+        return this;
+    }
+
+    // Largest number of operands in the expression of a statement.
+    public ProgramGenerator expressionSize(int expressionSize){
+        if(expressionSize < 1) throw new IllegalArgumentException("Expressions need at least one operand");
+        this.expressionSize = expressionSize;
+        return this;
+    }
+
+    public ProgramGenerator literalLength(int literalLength){
+        if(literalLength < 0) throw new IllegalArgumentException("Negative literal length: " + literalLength);
+        this.literalLength = literalLength;
+        return this;
+    }
+
+    // Fraction of statements that get exactly one type error.
+    public ProgramGenerator illTyped(double rate){
+        if(rate < 0 || rate > 1) throw new IllegalArgumentException("Rate must be between 0 and 1: " + rate);
+        this.illTyped = rate;
+        return this;
+    }
+
+    // Type errors written by the last generate(), one diagnostic each.
+    public int injectedErrors(){
+        return injectedErrors;
+    }
+
+    public String generate(){
+        StringBuilder text = new StringBuilder(statements * 32);
+        try{
+            generate(text);
+        }catch(IOException e){
+            throw new IllegalStateException(e); // StringBuilder does not throw
+        }
+        return text.toString();
+    }
+
+    public void generate(Appendable out) throws IOException{
+        this.out = out;
+        injectedErrors = 0;
+
+        declarations();
+        out.append("{\n");
+        body();
+        out.append("}\n");
+    }
+
+    private void declarations() throws IOException{
+        out.append("class Generated\n");
+        for(int type = INT; type <= STRING; type++){
+            declared[type] = identifiers / 3 + (type < identifiers % 3 ? 1 : 0);
+            for(int first = 0; first < declared[type]; first += IDENTIFIERS_PER_DECL){
+                out.append(TYPE_NAMES[type]).append(' ');
+                for(int i = first; i < Math.min(first + IDENTIFIERS_PER_DECL, declared[type]); i++){
+                    if(i > first) out.append(", ");
+                    out.append(PREFIXES[type]).append(Integer.toString(i));
+                }
+                out.append(";\n");
+            }
+        }
+    }
+
+    // Every block holds at least one statement: a block is only opened when the budget has room for the
+    // opening statement and its first child, and closed once it has a child.
+    private void body() throws IOException{
+        int maxDepth = Math.min(depth, statements - 1);
+        int[] blocks = new int[16];
+        int[] children = new int[16];
+        int open = 0;
+        int emitted = 0;
+        boolean spine = true;
+
+        while(emitted < statements || open > 0){
+            if(open == maxDepth) spine = false;
+            int room = statements - emitted;
+            boolean mayOpen = open < maxDepth && room >= 2;
+            boolean mayClose = open > 0 && children[open - 1] > 0;
+
+            int choice = random(16);
+            if(mayClose && (room == 0 || !spine && choice < 2)){
+                open--;
+                indent(open);
+                if(blocks[open] == THEN && room >= 1 && random(2) == 0){
+                    out.append("} else {\n");
+                    blocks[open] = ELSE;
+                    children[open] = 0;
+                    open++;
+                }else if(blocks[open] == DO){
+                    out.append("} while (");
+                    condition();
+                    out.append(");\n");
+                }else{
+                    out.append("};\n");
+                }
+                continue;
+            }
+
+            if(open > 0) children[open - 1]++;
+            emitted++;
+            indent(open);
+
+            if(mayOpen && (spine || choice < 3)){
+                if(open == blocks.length){
+                    blocks = Arrays.copyOf(blocks, open * 2);
+                    children = Arrays.copyOf(children, open * 2);
+                }
+                if(random(3) == 0){
+                    out.append("do {\n");
+                    blocks[open] = DO;
+                }else{
+                    out.append("if (");
+                    condition();
+                    out.append(") {\n");
+                    blocks[open] = THEN;
+                }
+                children[open] = 0;
+                open++;
+            }else{
+                simpleStatement();
+            }
+        }
+    }
+
+    private void condition() throws IOException{
+        if(injectError()){
+            push(SIMPLE, random(2) == 0 ? INT : STRING, operands());
+        }else{
+            push(EXPRESSION, BOOLEAN, operands());
+        }
+        run();
+    }
+
+    private void simpleStatement() throws IOException{
+        int choice = random(8);
+        int type = random(3);
+        boolean error = injectError();
+
+        if(choice < 4 || error && choice < 6){
+            // assign-stmt: the expression has another type when an error is wanted.
+            int valueType = error ? (type + 1 + random(2)) % 3 : type;
+            out.append(identifier(type)).append(" = ");
+            simpleExpression(valueType, operands());
+        }else if(choice < 6 && !error){
+            out.append("read(").append(identifier(type)).append(")");
+        }else if(error){
+            // write-stmt with an operator that does not accept its operand type.
+            out.append("write(");
+            if(random(2) == 0){
+                push(FACTOR, STRING, 1);
+                push(TEXT, 0, SUB);
+                push(FACTOR, STRING, 1);
+            }else{
+                push(FACTOR, INT, 1);
+                push(TEXT, 0, AND);
+                push(FACTOR, INT, 1);
+            }
+            run();
+            out.append(")");
+        }else{
+            out.append("write(");
+            simpleExpression(random(4), operands());
+            out.append(")");
+        }
+        out.append(";\n");
+    }
+
+    private boolean injectError(){
+        if(illTyped == 0 || nextDouble() >= illTyped) return false;
+        injectedErrors++;
+        return true;
+    }
+
+    private int operands(){
+        return 1 + random(expressionSize);
+    }
+
+    // assign-stmt and write-stmt take a simple-expr: a relation there must be in parentheses.
+    private void simpleExpression(int type, int size) throws IOException{
+        push(SIMPLE, type, size);
+        run();
+    }
+
+    private void run() throws IOException{
+        while(tasks > 0){
+            tasks--;
+            int kind = taskKinds[tasks];
+            int type = taskTypes[tasks];
+            int size = taskSizes[tasks];
+
+            switch(kind){
+                case TEXT:
+                    out.append(TEXTS[size]);
+                break;
+                case EXPRESSION:
+                    // A boolean has no constant or variable, so small ones must come from a relation.
+                    if(type == BOOLEAN && (size <= 2 || random(2) == 0)) push(RELATION, 0, Math.max(size, 2));
+                    else push(SIMPLE, type, size);
+                break;
+                case RELATION:{
+                    int relop = random(6);
+                    int operands = relop < 4 ? random(2) : random(8) == 0 ? BOOLEAN : random(3);
+                    push(SIMPLE, operands, size - size / 2);
+                    push(TEXT, 0, FIRST_RELOP + relop);
+                    push(SIMPLE, operands, size / 2);
+                }
+                break;
+                case SIMPLE:
+                    chain(TERM, type, size, type == BOOLEAN ? OR : type == STRING ? ADD : -1);
+                break;
+                case TERM:
+                    if(type == STRING){
+                        push(FACTOR_A, type, size);
+                    }else if(type == FLOAT && size >= 2 && random(4) == 0){
+                        // int / int is a float and may start a float term.
+                        int rest = size - 2;
+                        if(rest > 0){
+                            chain(FACTOR_A, FLOAT, rest, -1);
+                            push(TEXT, 0, random(2) == 0 ? MUL : DIV);
+                        }
+                        push(FACTOR_A, INT, 1);
+                        push(TEXT, 0, DIV);
+                        push(FACTOR_A, INT, 1);
+                    }else{
+                        chain(FACTOR_A, type, size, type == BOOLEAN ? AND : type == INT ? MUL : -1);
+                    }
+                break;
+                case FACTOR_A:
+                    push(FACTOR, type, size);
+                    if(type == BOOLEAN && random(4) == 0) push(TEXT, 0, NOT);
+                    else if(type != BOOLEAN && type != STRING && random(8) == 0) push(TEXT, 0, MINUS);
+                break;
+                default:
+                    if(type == BOOLEAN || size > 1){
+                        push(TEXT, 0, CLOSE);
+                        push(EXPRESSION, type, size);
+                        push(TEXT, 0, OPEN);
+                    }else if(random(3) != 0){
+                        out.append(identifier(type));
+                    }else{
+                        constant(type);
+                    }
+            }
+        }
+    }
+
+    // Splits size operands among a random number of items joined by operator, pushed right to left.
+    // A negative operator picks + or - between terms and * or / between factors for each join.
+    private void chain(int item, int type, int size, int operator){
+        int count = 1 + random(size);
+        int remaining = size;
+        for(int i = count - 1; i >= 0; i--){
+            int itemSize = i == 0 ? remaining : 1 + random(remaining - i) / (i + 1);
+            remaining -= itemSize;
+            push(item, type, itemSize);
+            if(i > 0) push(TEXT, 0, operator >= 0 ? operator : item == TERM ? ADD + random(2) : MUL + random(2));
+        }
+    }
+
+    private void push(int kind, int type, int size){
+        if(tasks == taskKinds.length){
+            taskKinds = Arrays.copyOf(taskKinds, tasks * 2);
+            taskTypes = Arrays.copyOf(taskTypes, tasks * 2);
+            taskSizes = Arrays.copyOf(taskSizes, tasks * 2);
+        }
+        taskKinds[tasks] = kind;
+        taskTypes[tasks] = type;
+        taskSizes[tasks] = size;
+        tasks++;
+    }
+
+    private String identifier(int type){
+        return PREFIXES[type] + random(declared[type]);
+    }
+
+    private void constant(int type) throws IOException{
+        if(type == INT){
+            out.append(Integer.toString(random(4) == 0 ? random(Integer.MAX_VALUE) : random(1000)));
+        }else if(type == FLOAT){
+            out.append(Integer.toString(random(1000))).append('.').append(Integer.toString(random(100)));
+        }else{
+            out.append('"');
+            for(int i = random(literalLength + 1); i > 0; i--) out.append(LITERAL_CHARACTERS.charAt(random(LITERAL_CHARACTERS.length())));
+            out.append('"');
+        }
+    }
+
+    private void indent(int level) throws IOException{
+        for(int i = -1; i < Math.min(level, MAX_INDENT); i++) out.append("  ");
+    }
+
+    // SplitMix64, so a seed gives the same program on every JVM.
+    private long next(){
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private int random(int bound){
+        return (int) ((next() >>> 33) % bound);
+    }
+
+    private double nextDouble(){
+        return (next() >>> 11) * 0x1.0p-53;
+    }
+
+    public static void main(String[] args){
+        ProgramGenerator generator = new ProgramGenerator(0);
+        String output = null;
+
+        for(int i = 0; i < args.length; i++){
+            String option = args[i];
+            String value = null;
+            int equals = option.indexOf('=');
+            if(option.startsWith("-") && equals > 0){
+                value = option.substring(equals + 1);
+                option = option.substring(0, equals);
+            }
+
+            switch(option){
+                case "--seed": generator.state = Long.parseLong(value != null ? value : argument(args, ++i)); break;
+                case "--statements": generator.statements(Integer.parseInt(value != null ? value : argument(args, ++i))); break;
+                case "--depth": generator.depth(Integer.parseInt(value != null ? value : argument(args, ++i))); break;
+                case "--identifiers": generator.identifiers(Integer.parseInt(value != null ? value : argument(args, ++i))); break;
+                case "--expression-size": generator.expressionSize(Integer.parseInt(value != null ? value : argument(args, ++i))); break;
+                case "--literal-length": generator.literalLength(Integer.parseInt(value != null ? value : argument(args, ++i))); break;
+                case "--ill-typed": generator.illTyped(Double.parseDouble(value != null ? value : argument(args, ++i))); break;
+                default:
+                    if(option.startsWith("-") || output != null) usage();
+                    output = option;
+            }
+        }
+
+        try(Writer writer = output == null ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.ISO_8859_1), 1 << 16)
+                                           : Files.newBufferedWriter(Paths.get(output), StandardCharsets.ISO_8859_1)){
+            generator.generate(writer);
+        }catch(IOException e){
+            System.err.println("Could not write " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+        if(generator.injectedErrors() > 0) System.err.println(generator.injectedErrors() + " type errors injected");
+    }
+
+    private static String argument(String[] args, int i){
+        if(i >= args.length) usage();
+        return args[i];
+    }
+
+    private static void usage(){
+        System.out.println("Usage: java synthetic.ProgramGenerator [--seed N] [--statements N] [--depth N] [--identifiers N] [--expression-size N] [--literal-length N] [--ill-typed RATE] [output path]");
+        System.exit(1);
+    }
+}